@@ -0,0 +1,190 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * Cost of the build-methods of {@link AmqpUtils} and
+ * {@link QueueWithDlxBuilder} per built topology, with a growing number of
+ * admins that should declare it. Run with '-prof gc' to see the allocation
+ * per built topology
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmqpUtilsBenchmark
+{
+    private static final String QUEUE_NAME = "queue.name";
+
+    @Param({ "1", "10", "100" })
+    private int admins;
+
+    private Object admin;
+
+    private Object[] furtherAdmins;
+
+    private Queue queue;
+
+    private DlxRetentionPolicy retentionPolicy;
+
+    private SharedDlx sharedDlx;
+
+    @Setup
+    public void setUp()
+    {
+        admin = "admin";
+        furtherAdmins = new Object[admins - 1];
+        for (int i = 0; i < furtherAdmins.length; i++)
+        {
+            furtherAdmins[i] = "admin" + i;
+        }
+        queue = AmqpUtils.buildDurableQueueWithDlxArguments(QUEUE_NAME, admin, furtherAdmins);
+        retentionPolicy = new DlxRetentionPolicy().withMaxAge(Duration.ofDays(7)).withMaxLength(100000);
+        sharedDlx = AmqpUtils.buildDurableSharedDlx("shared.dlx", 4, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildDurableQueueWithDlx()
+    {
+        return AmqpUtils.buildDurableQueueWithDlx(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildDurableQueueWithDlxArguments()
+    {
+        return AmqpUtils.buildDurableQueueWithDlxArguments(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildDurableDlxQueueFor()
+    {
+        return AmqpUtils.buildDurableDlxQueueFor(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildDurableDlxQueueForQueue()
+    {
+        return AmqpUtils.buildDurableDlxQueueFor(queue);
+    }
+
+    @Benchmark
+    public Queue buildNonDurableQueueWithDlx()
+    {
+        return AmqpUtils.buildNonDurableQueueWithDlx(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildNonDurableQueueWithDlxArguments()
+    {
+        return AmqpUtils.buildNonDurableQueueWithDlxArguments(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildNonDurableDlxQueueFor()
+    {
+        return AmqpUtils.buildNonDurableDlxQueueFor(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildNonDurableDlxQueueForQueue()
+    {
+        return AmqpUtils.buildNonDurableDlxQueueFor(queue);
+    }
+
+    @Benchmark
+    public Queue buildDlxQueueFor()
+    {
+        return AmqpUtils.buildDlxQueueFor(queue);
+    }
+
+    @Benchmark
+    public Queue buildDlxQueueForWithRetentionPolicy()
+    {
+        return AmqpUtils.buildDlxQueueFor(queue, retentionPolicy);
+    }
+
+    @Benchmark
+    public Queue buildQuorumQueueWithDlxArguments()
+    {
+        return AmqpUtils.buildQuorumQueueWithDlxArguments(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public Queue buildQuorumDlxQueueFor()
+    {
+        return AmqpUtils.buildQuorumDlxQueueFor(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public QueueWithDlx buildDurableQueueWithDlxDeclarables()
+    {
+        return AmqpUtils.buildDurableQueueWithDlxDeclarables(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public QueueWithDlx buildNonDurableQueueWithDlxDeclarables()
+    {
+        return AmqpUtils.buildNonDurableQueueWithDlxDeclarables(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public QueueWithDlx buildQuorumQueueWithDlxDeclarables()
+    {
+        return AmqpUtils.buildQuorumQueueWithDlxDeclarables(QUEUE_NAME, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public PartitionedQueueWithDlx buildDurablePartitionedQueueWithDlx()
+    {
+        return AmqpUtils.buildDurablePartitionedQueueWithDlx(QUEUE_NAME, 8, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public PartitionedQueueWithDlx buildNonDurablePartitionedQueueWithDlx()
+    {
+        return AmqpUtils.buildNonDurablePartitionedQueueWithDlx(QUEUE_NAME, 8, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public SharedDlx buildDurableSharedDlx()
+    {
+        return AmqpUtils.buildDurableSharedDlx("shared.dlx", 4, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public SharedDlx buildNonDurableSharedDlx()
+    {
+        return AmqpUtils.buildNonDurableSharedDlx("shared.dlx", 4, admin, furtherAdmins);
+    }
+
+    @Benchmark
+    public QueueWithDlx buildWithRetryTiers()
+    {
+        return QueueWithDlxBuilder.durable(QUEUE_NAME)
+            .declaredBy(admin, furtherAdmins)
+            .withRetryTiers(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1))
+            .build();
+    }
+
+    @Benchmark
+    public QueueWithDlx buildWithSharedDlx()
+    {
+        return QueueWithDlxBuilder.durable(QUEUE_NAME).declaredBy(admin, furtherAdmins).withSharedDlx(sharedDlx).build();
+    }
+}
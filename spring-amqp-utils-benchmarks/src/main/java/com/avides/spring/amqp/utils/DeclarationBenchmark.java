@@ -0,0 +1,97 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Cost of building and declaring a whole topology of {@link QueueWithDlx}s
+ * with a {@link RabbitAdmin} against the {@link StubConnectionFactory}. Run
+ * with '-prof gc' to see the allocation per topology
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeclarationBenchmark
+{
+    private static final String ADMIN_NAME = "rabbitAdmin";
+
+    @Param({ "100", "1000", "10000" })
+    private int queues;
+
+    @Param({ "1", "10" })
+    private int admins;
+
+    private Object[] furtherAdmins;
+
+    private GenericApplicationContext applicationContext;
+
+    private RabbitAdmin rabbitAdmin;
+
+    @Setup
+    public void setUp()
+    {
+        furtherAdmins = new Object[admins - 1];
+        for (int i = 0; i < furtherAdmins.length; i++)
+        {
+            furtherAdmins[i] = "otherAdmin" + i;
+        }
+        StubConnectionFactory connectionFactory = new StubConnectionFactory();
+        applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean(ADMIN_NAME, RabbitAdmin.class, () -> new RabbitAdmin(connectionFactory));
+        for (QueueWithDlx queueWithDlx : buildTopology())
+        {
+            applicationContext.registerBean(queueWithDlx.getQueue().getName(), QueueWithDlx.class, () -> queueWithDlx);
+        }
+        applicationContext.refresh();
+        rabbitAdmin = applicationContext.getBean(RabbitAdmin.class);
+        // a declaration that silently skips queues would make declareTopology look faster than it is
+        rabbitAdmin.initialize();
+        if (connectionFactory.getDeclarations() != 2L * queues)
+        {
+            throw new IllegalStateException("declared " + connectionFactory.getDeclarations() + " instead of " + 2L * queues + " queues");
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public List<QueueWithDlx> buildTopology()
+    {
+        List<QueueWithDlx> topology = new ArrayList<>(queues);
+        for (int i = 0; i < queues; i++)
+        {
+            topology.add(AmqpUtils.buildDurableQueueWithDlxDeclarables("queue.name." + i, ADMIN_NAME, furtherAdmins));
+        }
+        return topology;
+    }
+
+    @Benchmark
+    public RabbitAdmin declareTopology()
+    {
+        rabbitAdmin.initialize();
+        return rabbitAdmin;
+    }
+}
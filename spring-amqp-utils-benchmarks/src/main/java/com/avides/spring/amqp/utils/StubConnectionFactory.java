@@ -0,0 +1,165 @@
+package com.avides.spring.amqp.utils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+
+import com.rabbitmq.client.BlockedListener;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.impl.AMQImpl;
+
+/**
+ * In-process stand-in for a broker: every channel acknowledges all
+ * declarations immediately, so the benchmarks measure the declaration cycle of
+ * the client without network and broker
+ */
+class StubConnectionFactory implements ConnectionFactory
+{
+    private long declarations;
+
+    long getDeclarations()
+    {
+        return declarations;
+    }
+
+    @Override
+    public Connection createConnection()
+    {
+        return new StubConnection();
+    }
+
+    @Override
+    public String getHost()
+    {
+        return "localhost";
+    }
+
+    @Override
+    public int getPort()
+    {
+        return 5672;
+    }
+
+    @Override
+    public String getVirtualHost()
+    {
+        return "/";
+    }
+
+    @Override
+    public String getUsername()
+    {
+        return "guest";
+    }
+
+    @Override
+    public void addConnectionListener(ConnectionListener listener)
+    {
+        // connections are never lost
+    }
+
+    @Override
+    public boolean removeConnectionListener(ConnectionListener listener)
+    {
+        return false;
+    }
+
+    @Override
+    public void clearConnectionListeners()
+    {
+        // connections are never lost
+    }
+
+    private Object answer(Object proxy, Method method, Object[] args)
+    {
+        switch (method.getName())
+        {
+            case "queueDeclare":
+            case "queueDeclarePassive":
+                declarations++;
+                return new AMQImpl.Queue.DeclareOk(args == null ? "amq.gen-stub" : (String) args[0], 0, 0);
+            case "exchangeDeclare":
+            case "exchangeDeclarePassive":
+                declarations++;
+                return new AMQImpl.Exchange.DeclareOk();
+            case "queueBind":
+                declarations++;
+                return new AMQImpl.Queue.BindOk();
+            case "exchangeBind":
+                declarations++;
+                return new AMQImpl.Exchange.BindOk();
+            case "isOpen":
+                return Boolean.TRUE;
+            case "getChannelNumber":
+                return Integer.valueOf(1);
+            case "hashCode":
+                return Integer.valueOf(System.identityHashCode(proxy));
+            case "equals":
+                return Boolean.valueOf(args[0] == proxy);
+            case "toString":
+                return "StubChannel";
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return Boolean.FALSE;
+        }
+        if (type == int.class)
+        {
+            return Integer.valueOf(0);
+        }
+        if (type == long.class)
+        {
+            return Long.valueOf(0);
+        }
+        return null;
+    }
+
+    private class StubConnection implements Connection
+    {
+        @Override
+        public Channel createChannel(boolean transactional)
+        {
+            return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[] { Channel.class },
+                    (proxy, method, args) -> answer(proxy, method, args));
+        }
+
+        @Override
+        public void close()
+        {
+            // nothing to release
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public int getLocalPort()
+        {
+            return 0;
+        }
+
+        @Override
+        public void addBlockedListener(BlockedListener listener)
+        {
+            // never blocked
+        }
+
+        @Override
+        public boolean removeBlockedListener(BlockedListener listener)
+        {
+            return false;
+        }
+    }
+}
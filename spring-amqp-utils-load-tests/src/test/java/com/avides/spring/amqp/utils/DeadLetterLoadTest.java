@@ -0,0 +1,151 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.HdrHistogram.Histogram;
+import org.aopalliance.aop.Advice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+public class DeadLetterLoadTest
+{
+    private static final int MESSAGES = Integer.getInteger("load.messages", 20000).intValue();
+
+    private static final int RATE = Integer.getInteger("load.rate", 10000).intValue();
+
+    private static final String PUBLISHED_AT = "load-published-at";
+
+    private InMemoryBroker broker = new InMemoryBroker();
+
+    private RabbitAdmin rabbitAdmin = new RabbitAdmin(broker);
+
+    private RabbitTemplate rabbitTemplate = new RabbitTemplate(broker);
+
+    private List<SimpleMessageListenerContainer> containers = new ArrayList<>();
+
+    private Histogram latencies = LoadTestReport.newLatencyHistogram();
+
+    private AtomicInteger invalidDeadLetters = new AtomicInteger();
+
+    @Before
+    public void before()
+    {
+        rabbitTemplate.setMandatory(true);
+    }
+
+    @After
+    public void after()
+    {
+        containers.forEach(SimpleMessageListenerContainer::stop);
+        broker.shutdown();
+    }
+
+    @Test
+    public void testRejectIntoDlx() throws InterruptedException
+    {
+        QueueWithDlx queueWithDlx = declare(QueueWithDlxBuilder.durable("load.rejecting").build());
+        CountDownLatch deadLettered = new CountDownLatch(MESSAGES);
+        startContainer(queueWithDlx.getQueue(), message ->
+        {
+            throw new AmqpRejectAndDontRequeueException("rejected by load-test");
+        });
+        startContainer(queueWithDlx.getDlxQueue(), message ->
+        {
+            latencies.recordValue(System.nanoTime() - ((Long) message.getMessageProperties().getHeaders().get(PUBLISHED_AT)).longValue());
+            DeadLetterInfo deadLetterInfo = DeadLetterInfo.of(message);
+            if (!"rejected".equals(deadLetterInfo.getReason()) || !"load.rejecting".equals(deadLetterInfo.getQueue()))
+            {
+                invalidDeadLetters.incrementAndGet();
+            }
+            deadLettered.countDown();
+        });
+
+        long duration = publish("load.rejecting", MESSAGES, RATE, deadLettered);
+
+        assertThat(invalidDeadLetters.get()).isZero();
+        assertThat(broker.getMessageCount("load.rejecting")).isZero();
+        LoadTestReport.printThroughput("reject into DLX at " + RATE + " msg/s", MESSAGES, duration);
+        LoadTestReport.printLatencies("reject into DLX at " + RATE + " msg/s", latencies);
+    }
+
+    @Test
+    public void testRetryTiersIntoDlx() throws InterruptedException
+    {
+        QueueWithDlx queueWithDlx = declare(QueueWithDlxBuilder.durable("load.retrying").withRetryTiers(Duration.ofMillis(20), Duration.ofMillis(50)).build());
+        int messages = MESSAGES / 10;
+        CountDownLatch deadLettered = new CountDownLatch(messages);
+        startContainer(queueWithDlx.getQueue(), message ->
+        {
+            throw new IllegalStateException("failed in load-test");
+        }, RetryInterceptorBuilder.stateless().maxAttempts(1).recoverer(new RetryTierMessageRecoverer(rabbitTemplate, queueWithDlx)).build());
+        startContainer(queueWithDlx.getDlxQueue(), message ->
+        {
+            latencies.recordValue(System.nanoTime() - ((Long) message.getMessageProperties().getHeaders().get(PUBLISHED_AT)).longValue());
+            if (DeadLetterInfo.of(message).getDeathCount() != 2)
+            {
+                invalidDeadLetters.incrementAndGet();
+            }
+            deadLettered.countDown();
+        });
+
+        long duration = publish("load.retrying", messages, RATE / 10, deadLettered);
+
+        assertThat(invalidDeadLetters.get()).isZero();
+        for (Queue retryQueue : queueWithDlx.getRetryQueues())
+        {
+            assertThat(broker.getMessageCount(retryQueue.getName())).isZero();
+        }
+        LoadTestReport.printThroughput("retry-tiers 20ms/50ms into DLX at " + RATE / 10 + " msg/s", messages, duration);
+        LoadTestReport.printLatencies("retry-tiers 20ms/50ms into DLX at " + RATE / 10 + " msg/s", latencies);
+    }
+
+    private QueueWithDlx declare(QueueWithDlx queueWithDlx)
+    {
+        queueWithDlx.getDeclarables().stream().filter(Queue.class::isInstance).map(Queue.class::cast).forEach(rabbitAdmin::declareQueue);
+        return queueWithDlx;
+    }
+
+    private void startContainer(Queue queue, MessageListener messageListener, Advice... adviceChain)
+    {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(broker);
+        container.setQueues(queue);
+        container.setMessageListener(messageListener);
+        container.setPrefetchCount(250);
+        container.setAdviceChain(adviceChain);
+        container.setErrorHandler(throwable ->
+        {
+            // failures are expected, the rejection is asserted via the DLX
+        });
+        container.afterPropertiesSet();
+        container.start();
+        containers.add(container);
+    }
+
+    private long publish(String queueName, int messages, int messagesPerSecond, CountDownLatch deadLettered) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++)
+        {
+            long sendAt = LoadTestReport.pace(start, i, messagesPerSecond);
+            rabbitTemplate.send(queueName, MessageBuilder.withBody(new byte[256]).setHeader(PUBLISHED_AT, Long.valueOf(sendAt)).build());
+        }
+        assertThat(deadLettered.await(messages / messagesPerSecond + 30, TimeUnit.SECONDS)).as(deadLettered.getCount() + " messages missing in DLX").isTrue();
+        return System.nanoTime() - start;
+    }
+}
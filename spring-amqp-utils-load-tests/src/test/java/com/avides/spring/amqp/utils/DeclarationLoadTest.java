@@ -0,0 +1,64 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import com.avides.spring.amqp.utils.DeclarationCoordinator.DeclarationResult;
+
+public class DeclarationLoadTest
+{
+    private static final int DLX_PAIRS = Integer.getInteger("load.dlxPairs", 10000).intValue();
+
+    private InMemoryBroker broker = new InMemoryBroker();
+
+    private DeclarationCoordinator declarationCoordinator = new DeclarationCoordinator(Collections.singletonList(new RabbitAdmin(broker)));
+
+    @After
+    public void after()
+    {
+        broker.shutdown();
+    }
+
+    @Test
+    public void testDeclareDlxPairs()
+    {
+        List<QueueWithDlx> queuesWithDlx = new ArrayList<>(DLX_PAIRS);
+        for (int i = 0; i < DLX_PAIRS; i++)
+        {
+            queuesWithDlx.add(QueueWithDlxBuilder.durable("load.declaration." + i).withMaxLength(10000).build());
+        }
+
+        long start = System.nanoTime();
+        List<DeclarationResult> results = declarationCoordinator.declare(queuesWithDlx);
+        long declarationDuration = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<DeclarationResult> redeclarationResults = declarationCoordinator.declare(queuesWithDlx);
+        long redeclarationDuration = System.nanoTime() - start;
+
+        assertThat(results.get(0).isSuccessful()).as(String.valueOf(results.get(0).getFailure())).isTrue();
+        assertThat(results.get(0).getDeclarations()).isEqualTo(2 * DLX_PAIRS);
+        assertThat(redeclarationResults.get(0).isSuccessful()).isTrue();
+        assertThat(broker.getQueueCount()).isEqualTo(2 * DLX_PAIRS);
+        LoadTestReport.printThroughput("declaration of " + DLX_PAIRS + " DLX-pairs", 2L * DLX_PAIRS, declarationDuration);
+        LoadTestReport.printThroughput("redeclaration of " + DLX_PAIRS + " DLX-pairs", 2L * DLX_PAIRS, redeclarationDuration);
+    }
+
+    @Test
+    public void testRedeclareWithInequivalentArguments()
+    {
+        declarationCoordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+
+        List<DeclarationResult> results = declarationCoordinator
+            .declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(100).build()));
+
+        assertThat(results.get(0).isSuccessful()).isFalse();
+        assertThat(results.get(0).getFailure()).hasStackTraceContaining("inequivalent arg for queue 'anyQueueName'");
+    }
+}
@@ -0,0 +1,66 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.rabbitmq.client.GetResponse;
+
+public class DlxReplayLoadTest
+{
+    private static final int MESSAGES = Integer.getInteger("load.messages", 20000).intValue();
+
+    private InMemoryBroker broker = new InMemoryBroker();
+
+    private RabbitTemplate rabbitTemplate = new RabbitTemplate(broker);
+
+    @After
+    public void after()
+    {
+        broker.shutdown();
+    }
+
+    @Test
+    public void testReplay()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("load.replaying").build();
+        RabbitAdmin rabbitAdmin = new RabbitAdmin(broker);
+        queueWithDlx.getDeclarables().stream().filter(Queue.class::isInstance).map(Queue.class::cast).forEach(rabbitAdmin::declareQueue);
+        fillDlx("load.replaying", MESSAGES);
+        assertThat(broker.getMessageCount("load.replaying.dlx")).isEqualTo(MESSAGES);
+
+        DlxReplayer dlxReplayer = new DlxReplayer(broker);
+        dlxReplayer.setBatchSize(500);
+        long start = System.nanoTime();
+        long replayed = dlxReplayer.replay("load.replaying.dlx");
+        long duration = System.nanoTime() - start;
+
+        assertThat(replayed).isEqualTo(MESSAGES);
+        assertThat(broker.getMessageCount("load.replaying")).isEqualTo(MESSAGES);
+        assertThat(broker.getMessageCount("load.replaying.dlx")).isZero();
+        LoadTestReport.printThroughput("replay of " + MESSAGES + " dead-letters", MESSAGES, duration);
+    }
+
+    private void fillDlx(String queueName, int messages)
+    {
+        for (int i = 0; i < messages; i++)
+        {
+            rabbitTemplate.send(queueName, MessageBuilder.withBody(new byte[256]).build());
+        }
+        rabbitTemplate.execute(channel ->
+        {
+            GetResponse response = channel.basicGet(queueName, false);
+            while (response != null)
+            {
+                channel.basicReject(response.getEnvelope().getDeliveryTag(), false);
+                response = channel.basicGet(queueName, false);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,1293 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.BlockedListener;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ReturnCallback;
+import com.rabbitmq.client.ReturnListener;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.impl.AMQImpl;
+
+/**
+ * In-process stand-in for an AMQP 0-9-1 broker, implementing the semantics of
+ * RabbitMQ the library relies on: default-, direct-, fanout- and
+ * topic-exchanges, argument-equivalence on redeclaration, dead-lettering with
+ * 'x-death'-headers on reject, expiry ('x-message-ttl' and 'expiration') and
+ * overflow ('x-max-length', 'x-max-length-bytes' and 'x-overflow'), prefetch,
+ * publisher-confirms and mandatory-returns. Channels are handed out through
+ * {@link Channel}, so {@link org.springframework.amqp.rabbit.core.RabbitAdmin},
+ * {@link org.springframework.amqp.rabbit.core.RabbitTemplate}, the
+ * listener-containers and the utilities of the library run unchanged against
+ * it without network. Like a single broker-node, all state is guarded by one
+ * lock, deliveries, confirms and returns of a channel are called back on one
+ * thread per channel, like on the connection-thread of the client. Queues are
+ * classic queues regardless of their 'x-queue-type'
+ */
+class InMemoryBroker implements ConnectionFactory
+{
+    private static final String DEFAULT_EXCHANGE = "";
+
+    private static final String X_DEATH = "x-death";
+
+    private static final String X_FIRST_DEATH_QUEUE = "x-first-death-queue";
+
+    private static final String X_FIRST_DEATH_REASON = "x-first-death-reason";
+
+    private static final String X_FIRST_DEATH_EXCHANGE = "x-first-death-exchange";
+
+    private static final String REJECTED = "rejected";
+
+    private static final String EXPIRED = "expired";
+
+    private static final String MAXLEN = "maxlen";
+
+    private static final int NOT_FOUND = 404;
+
+    private static final int PRECONDITION_FAILED = 406;
+
+    private static final int NO_ROUTE = 312;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Object lock = new Object();
+
+    private final Map<String, BrokerExchange> exchanges = new HashMap<>();
+
+    private final Map<String, BrokerQueue> queues = new HashMap<>();
+
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService expiryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("in-memory-broker-expiry"));
+
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+
+    private final AtomicInteger consumerTags = new AtomicInteger();
+
+    private final BrokerConnection connection = new BrokerConnection();
+
+    private boolean connectionCreated;
+
+    InMemoryBroker()
+    {
+        for (BuiltinExchangeType type : new BuiltinExchangeType[] { BuiltinExchangeType.DIRECT, BuiltinExchangeType.FANOUT, BuiltinExchangeType.TOPIC })
+        {
+            exchanges.put("amq." + type.getType(), new BrokerExchange(type.getType(), true));
+        }
+    }
+
+    int getQueueCount()
+    {
+        synchronized (lock)
+        {
+            return queues.size();
+        }
+    }
+
+    int getMessageCount(String queueName)
+    {
+        synchronized (lock)
+        {
+            BrokerQueue queue = queues.get(queueName);
+            return queue == null ? 0 : queue.messages.size() + queue.unacked;
+        }
+    }
+
+    void shutdown()
+    {
+        expiryScheduler.shutdownNow();
+    }
+
+    @Override
+    public Connection createConnection()
+    {
+        boolean created;
+        synchronized (lock)
+        {
+            created = !connectionCreated;
+            connectionCreated = true;
+        }
+        if (created)
+        {
+            for (ConnectionListener listener : connectionListeners)
+            {
+                listener.onCreate(connection);
+            }
+        }
+        return connection;
+    }
+
+    @Override
+    public String getHost()
+    {
+        return "localhost";
+    }
+
+    @Override
+    public int getPort()
+    {
+        return 5672;
+    }
+
+    @Override
+    public String getVirtualHost()
+    {
+        return "/";
+    }
+
+    @Override
+    public String getUsername()
+    {
+        return "guest";
+    }
+
+    @Override
+    public void addConnectionListener(ConnectionListener listener)
+    {
+        connectionListeners.add(listener);
+        boolean created;
+        synchronized (lock)
+        {
+            created = connectionCreated;
+        }
+        if (created)
+        {
+            listener.onCreate(connection);
+        }
+    }
+
+    @Override
+    public boolean removeConnectionListener(ConnectionListener listener)
+    {
+        return connectionListeners.remove(listener);
+    }
+
+    @Override
+    public void clearConnectionListeners()
+    {
+        connectionListeners.clear();
+    }
+
+    private List<BrokerQueue> route(String exchangeName, String routingKey)
+    {
+        if (DEFAULT_EXCHANGE.equals(exchangeName))
+        {
+            BrokerQueue queue = queues.get(routingKey);
+            return queue == null ? Collections.emptyList() : Collections.singletonList(queue);
+        }
+        BrokerExchange exchange = exchanges.get(exchangeName);
+        if (exchange == null)
+        {
+            return null;
+        }
+        Set<BrokerQueue> targets = new LinkedHashSet<>();
+        for (String[] binding : exchange.bindings)
+        {
+            if (exchange.matches(binding[1], routingKey))
+            {
+                BrokerQueue queue = queues.get(binding[0]);
+                if (queue != null)
+                {
+                    targets.add(queue);
+                }
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    private boolean enqueue(BrokerQueue queue, String exchange, String routingKey, BasicProperties properties, byte[] body)
+    {
+        long ttl = queue.ttl(properties);
+        StoredMessage message = new StoredMessage(exchange, routingKey, properties, body, ttl < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttl);
+        if (queue.isFullWith(message))
+        {
+            String overflow = (String) queue.arguments.get(QueueArguments.X_OVERFLOW);
+            if (QueueArguments.REJECT_PUBLISH.equals(overflow))
+            {
+                return false;
+            }
+            if (QueueArguments.REJECT_PUBLISH_DLX.equals(overflow))
+            {
+                deadLetter(queue, message, MAXLEN);
+                return false;
+            }
+            while (queue.isFullWith(message) && !queue.messages.isEmpty())
+            {
+                deadLetter(queue, queue.poll(), MAXLEN);
+            }
+        }
+        queue.add(message);
+        if (ttl >= 0)
+        {
+            expiryScheduler.schedule(() -> expire(queue), ttl, TimeUnit.MILLISECONDS);
+        }
+        dispatch(queue);
+        return true;
+    }
+
+    private void expire(BrokerQueue queue)
+    {
+        synchronized (lock)
+        {
+            long now = System.currentTimeMillis();
+            // like RabbitMQ only the head of a queue expires
+            while (!queue.messages.isEmpty() && queue.messages.peekFirst().expiresAt <= now)
+            {
+                deadLetter(queue, queue.poll(), EXPIRED);
+            }
+        }
+    }
+
+    private void deadLetter(BrokerQueue queue, StoredMessage message, String reason)
+    {
+        String deadLetterExchange = (String) queue.arguments.get(QueueArguments.X_DEAD_LETTER_EXCHANGE);
+        if (deadLetterExchange == null)
+        {
+            return;
+        }
+        String deadLetterRoutingKey = (String) queue.arguments.get(QueueArguments.X_DEAD_LETTER_ROUTING_KEY);
+        String routingKey = deadLetterRoutingKey == null ? message.routingKey : deadLetterRoutingKey;
+        List<BrokerQueue> targets = route(deadLetterExchange, routingKey);
+        if (targets == null)
+        {
+            return;
+        }
+        BasicProperties properties = withDeath(message, queue.name, reason);
+        for (BrokerQueue target : targets)
+        {
+            enqueue(target, deadLetterExchange, routingKey, properties, message.body);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BasicProperties withDeath(StoredMessage message, String queueName, String reason)
+    {
+        Map<String, Object> headers = message.properties.getHeaders() == null ? new HashMap<>() : new HashMap<>(message.properties.getHeaders());
+        Object existingDeaths = headers.get(X_DEATH);
+        List<Map<String, Object>> deaths = existingDeaths instanceof List ? new ArrayList<>((List<Map<String, Object>>) existingDeaths) : new ArrayList<>();
+        long count = 1;
+        for (Iterator<Map<String, Object>> iterator = deaths.iterator(); iterator.hasNext();)
+        {
+            Map<String, Object> death = iterator.next();
+            if (queueName.equals(String.valueOf(death.get("queue"))) && reason.equals(String.valueOf(death.get("reason"))))
+            {
+                count += ((Number) death.get("count")).longValue();
+                iterator.remove();
+            }
+        }
+        Map<String, Object> death = new LinkedHashMap<>();
+        death.put("count", Long.valueOf(count));
+        death.put("reason", reason);
+        death.put("queue", queueName);
+        death.put("time", new Date());
+        death.put("exchange", message.exchange);
+        death.put("routing-keys", Collections.singletonList(message.routingKey));
+        deaths.add(0, death);
+        headers.put(X_DEATH, deaths);
+        headers.putIfAbsent(X_FIRST_DEATH_QUEUE, queueName);
+        headers.putIfAbsent(X_FIRST_DEATH_REASON, reason);
+        headers.putIfAbsent(X_FIRST_DEATH_EXCHANGE, message.exchange);
+        BasicProperties.Builder builder = message.properties.builder().headers(headers);
+        return (EXPIRED.equals(reason) ? builder.expiration(null) : builder).build();
+    }
+
+    private void dispatch(BrokerQueue queue)
+    {
+        while (!queue.messages.isEmpty())
+        {
+            BrokerConsumer consumer = queue.nextConsumer();
+            if (consumer == null)
+            {
+                return;
+            }
+            StoredMessage message = queue.poll();
+            if (message.expiresAt <= System.currentTimeMillis())
+            {
+                deadLetter(queue, message, EXPIRED);
+            }
+            else
+            {
+                consumer.channel.deliver(consumer, queue, message);
+            }
+        }
+    }
+
+    private static boolean equivalent(Map<String, Object> arguments, Map<String, Object> otherArguments)
+    {
+        if (!arguments.keySet().equals(otherArguments.keySet()))
+        {
+            return false;
+        }
+        for (Map.Entry<String, Object> argument : arguments.entrySet())
+        {
+            Object value = argument.getValue();
+            Object otherValue = otherArguments.get(argument.getKey());
+            boolean equal = value instanceof Number && otherValue instanceof Number ? ((Number) value).longValue() == ((Number) otherValue).longValue()
+                    : String.valueOf(value).equals(String.valueOf(otherValue));
+            if (!equal)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ThreadFactory daemonThreads(String name)
+    {
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class BrokerExchange
+    {
+        private final String type;
+
+        private final boolean durable;
+
+        private final List<String[]> bindings = new ArrayList<>();
+
+        private BrokerExchange(String type, boolean durable)
+        {
+            this.type = type;
+            this.durable = durable;
+        }
+
+        private boolean matches(String bindingKey, String routingKey)
+        {
+            if (BuiltinExchangeType.FANOUT.getType().equals(type))
+            {
+                return true;
+            }
+            if (BuiltinExchangeType.TOPIC.getType().equals(type))
+            {
+                return matches(bindingKey.split("\\.", -1), 0, routingKey.split("\\.", -1), 0);
+            }
+            return bindingKey.equals(routingKey);
+        }
+
+        private static boolean matches(String[] pattern, int patternIndex, String[] words, int wordIndex)
+        {
+            if (patternIndex == pattern.length)
+            {
+                return wordIndex == words.length;
+            }
+            if ("#".equals(pattern[patternIndex]))
+            {
+                for (int i = wordIndex; i <= words.length; i++)
+                {
+                    if (matches(pattern, patternIndex + 1, words, i))
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return wordIndex < words.length && ("*".equals(pattern[patternIndex]) || pattern[patternIndex].equals(words[wordIndex]))
+                    && matches(pattern, patternIndex + 1, words, wordIndex + 1);
+        }
+    }
+
+    private static final class BrokerQueue
+    {
+        private final String name;
+
+        private final boolean durable;
+
+        private final Map<String, Object> arguments;
+
+        private final Deque<StoredMessage> messages = new ArrayDeque<>();
+
+        private final List<BrokerConsumer> consumers = new ArrayList<>();
+
+        private long bytes;
+
+        private int unacked;
+
+        private int nextConsumer;
+
+        private BrokerQueue(String name, boolean durable, Map<String, Object> arguments)
+        {
+            this.name = name;
+            this.durable = durable;
+            this.arguments = arguments;
+        }
+
+        private long ttl(BasicProperties properties)
+        {
+            Object queueTtl = arguments.get(QueueArguments.X_MESSAGE_TTL);
+            long ttl = queueTtl == null ? -1 : ((Number) queueTtl).longValue();
+            if (properties.getExpiration() != null)
+            {
+                long expiration = Long.parseLong(properties.getExpiration());
+                ttl = ttl < 0 ? expiration : Math.min(ttl, expiration);
+            }
+            return ttl;
+        }
+
+        private boolean isFullWith(StoredMessage message)
+        {
+            Object maxLength = arguments.get(QueueArguments.X_MAX_LENGTH);
+            Object maxLengthBytes = arguments.get(QueueArguments.X_MAX_LENGTH_BYTES);
+            return maxLength != null && messages.size() + 1 > ((Number) maxLength).longValue()
+                    || maxLengthBytes != null && bytes + message.body.length > ((Number) maxLengthBytes).longValue();
+        }
+
+        private void add(StoredMessage message)
+        {
+            messages.addLast(message);
+            bytes += message.body.length;
+        }
+
+        private void requeue(StoredMessage message)
+        {
+            message.redelivered = true;
+            messages.addFirst(message);
+            bytes += message.body.length;
+        }
+
+        private StoredMessage poll()
+        {
+            StoredMessage message = messages.pollFirst();
+            bytes -= message.body.length;
+            return message;
+        }
+
+        private BrokerConsumer nextConsumer()
+        {
+            for (int i = 0; i < consumers.size(); i++)
+            {
+                BrokerConsumer consumer = consumers.get((nextConsumer + i) % consumers.size());
+                if (consumer.hasCapacity())
+                {
+                    nextConsumer = (nextConsumer + i + 1) % consumers.size();
+                    return consumer;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class StoredMessage
+    {
+        private final String exchange;
+
+        private final String routingKey;
+
+        private final BasicProperties properties;
+
+        private final byte[] body;
+
+        private final long expiresAt;
+
+        private boolean redelivered;
+
+        private StoredMessage(String exchange, String routingKey, BasicProperties properties, byte[] body, long expiresAt)
+        {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.properties = properties;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class BrokerConsumer
+    {
+        private final String tag;
+
+        private final BrokerChannel channel;
+
+        private final BrokerQueue queue;
+
+        private final Consumer consumer;
+
+        private final boolean autoAck;
+
+        private int unacked;
+
+        private BrokerConsumer(String tag, BrokerChannel channel, BrokerQueue queue, Consumer consumer, boolean autoAck)
+        {
+            this.tag = tag;
+            this.channel = channel;
+            this.queue = queue;
+            this.consumer = consumer;
+            this.autoAck = autoAck;
+        }
+
+        private boolean hasCapacity()
+        {
+            return autoAck || channel.prefetchCount == 0 || unacked < channel.prefetchCount;
+        }
+    }
+
+    private static final class Unacked
+    {
+        private final BrokerQueue queue;
+
+        private final StoredMessage message;
+
+        private final BrokerConsumer consumer;
+
+        private Unacked(BrokerQueue queue, StoredMessage message, BrokerConsumer consumer)
+        {
+            this.queue = queue;
+            this.message = message;
+            this.consumer = consumer;
+        }
+    }
+
+    private class BrokerConnection implements Connection
+    {
+        @Override
+        public Channel createChannel(boolean transactional)
+        {
+            if (transactional)
+            {
+                throw new UnsupportedOperationException("transactional channels are not supported by the in-memory broker");
+            }
+            BrokerChannel channel = new BrokerChannel(channelNumbers.incrementAndGet());
+            return channel.proxy;
+        }
+
+        @Override
+        public void close()
+        {
+            // the connection lives as long as the broker
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public int getLocalPort()
+        {
+            return 0;
+        }
+
+        @Override
+        public void addBlockedListener(BlockedListener listener)
+        {
+            // never blocked
+        }
+
+        @Override
+        public boolean removeBlockedListener(BlockedListener listener)
+        {
+            return false;
+        }
+    }
+
+    private class BrokerChannel implements InvocationHandler
+    {
+        private final int channelNumber;
+
+        private final Channel proxy;
+
+        private final NavigableMap<Long, Unacked> unacked = new TreeMap<>();
+
+        private final Map<String, BrokerConsumer> consumers = new HashMap<>();
+
+        private final List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<>();
+
+        private final List<ReturnListener> returnListeners = new CopyOnWriteArrayList<>();
+
+        private final List<ShutdownListener> shutdownListeners = new CopyOnWriteArrayList<>();
+
+        private final Set<Long> unconfirmed = new TreeSet<>();
+
+        private ExecutorService callbackExecutor;
+
+        private long nextDeliveryTag = 1;
+
+        private long nextPublishSeqNo;
+
+        private int prefetchCount;
+
+        private boolean nacked;
+
+        private volatile ShutdownSignalException closeReason;
+
+        private BrokerChannel(int channelNumber)
+        {
+            this.channelNumber = channelNumber;
+            proxy = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[] { Channel.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxyInstance, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName())
+            {
+                case "hashCode":
+                    return Integer.valueOf(channelNumber);
+                case "equals":
+                    return Boolean.valueOf(args[0] == proxy);
+                case "toString":
+                    return "InMemoryChannel(" + channelNumber + ")";
+                case "getChannelNumber":
+                    return Integer.valueOf(channelNumber);
+                case "isOpen":
+                    return Boolean.valueOf(closeReason == null);
+                case "getCloseReason":
+                    return closeReason;
+                case "close":
+                case "abort":
+                    close(new ShutdownSignalException(false, true, new AMQImpl.Channel.Close(200, "OK", 0, 0), proxy));
+                    return null;
+                case "addShutdownListener":
+                    shutdownListeners.add((ShutdownListener) args[0]);
+                    return null;
+                case "removeShutdownListener":
+                    shutdownListeners.remove(args[0]);
+                    return null;
+                default:
+                    break;
+            }
+            if (closeReason != null)
+            {
+                throw new AlreadyClosedException(closeReason);
+            }
+            try
+            {
+                return invokeOpen(method.getName(), args == null ? new Object[0] : args);
+            }
+            catch (IOException e)
+            {
+                if (e.getCause() instanceof ShutdownSignalException)
+                {
+                    // like RabbitMQ a channel-error closes the channel, without a round-trip the client learns it on its next call only
+                    close((ShutdownSignalException) e.getCause());
+                    if (method.getName().endsWith("NoWait"))
+                    {
+                        return null;
+                    }
+                }
+                throw e;
+            }
+        }
+
+        private Object invokeOpen(String methodName, Object[] args) throws IOException, TimeoutException, InterruptedException
+        {
+            switch (methodName)
+            {
+                case "queueDeclare":
+                    return queueDeclare(args, false);
+                case "queueDeclareNoWait":
+                    return queueDeclare(args, true);
+                case "queueDeclarePassive":
+                    return queueDeclarePassive((String) args[0]);
+                case "queueDelete":
+                    return queueDelete((String) args[0]);
+                case "queuePurge":
+                    return queuePurge((String) args[0]);
+                case "queueBind":
+                    return queueBind((String) args[0], (String) args[1], (String) args[2], false);
+                case "queueBindNoWait":
+                    return queueBind((String) args[0], (String) args[1], (String) args[2], true);
+                case "queueUnbind":
+                    return queueUnbind((String) args[0], (String) args[1], (String) args[2]);
+                case "exchangeDeclare":
+                    return exchangeDeclare(args, false);
+                case "exchangeDeclareNoWait":
+                    return exchangeDeclare(args, true);
+                case "exchangeDeclarePassive":
+                    return exchangeDeclarePassive((String) args[0]);
+                case "exchangeDelete":
+                    return exchangeDelete((String) args[0]);
+                case "messageCount":
+                    return Long.valueOf(queueDeclarePassive((String) args[0]).getMessageCount());
+                case "consumerCount":
+                    return Long.valueOf(queueDeclarePassive((String) args[0]).getConsumerCount());
+                case "basicQos":
+                    prefetchCount = ((Integer) args[args.length == 3 ? 1 : 0]).intValue();
+                    return null;
+                case "basicPublish":
+                    basicPublish(args);
+                    return null;
+                case "basicConsume":
+                    return basicConsume(args);
+                case "basicCancel":
+                    basicCancel((String) args[0]);
+                    return null;
+                case "basicGet":
+                    return basicGet((String) args[0], ((Boolean) args[1]).booleanValue());
+                case "basicAck":
+                    settle(((Long) args[0]).longValue(), ((Boolean) args[1]).booleanValue(), true, false);
+                    return null;
+                case "basicNack":
+                    settle(((Long) args[0]).longValue(), ((Boolean) args[1]).booleanValue(), false, ((Boolean) args[2]).booleanValue());
+                    return null;
+                case "basicReject":
+                    settle(((Long) args[0]).longValue(), false, false, ((Boolean) args[1]).booleanValue());
+                    return null;
+                case "confirmSelect":
+                    synchronized (lock)
+                    {
+                        nextPublishSeqNo = Math.max(nextPublishSeqNo, 1);
+                    }
+                    return new AMQImpl.Confirm.SelectOk();
+                case "getNextPublishSeqNo":
+                    synchronized (lock)
+                    {
+                        return Long.valueOf(nextPublishSeqNo);
+                    }
+                case "waitForConfirms":
+                    return Boolean.valueOf(waitForConfirms(args.length == 0 ? 0 : ((Long) args[0]).longValue()));
+                case "waitForConfirmsOrDie":
+                    waitForConfirmsOrDie(args.length == 0 ? 0 : ((Long) args[0]).longValue());
+                    return null;
+                case "addConfirmListener":
+                    return addConfirmListener(args);
+                case "addReturnListener":
+                    return addReturnListener(args[0]);
+                default:
+                    throw new UnsupportedOperationException(methodName + " is not supported by the in-memory broker");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private AMQImpl.Queue.DeclareOk queueDeclare(Object[] args, boolean noWait) throws IOException
+        {
+            String name = args.length == 0 || ((String) args[0]).isEmpty() ? "amq.gen-" + UUID.randomUUID() : (String) args[0];
+            boolean durable = args.length > 1 && ((Boolean) args[1]).booleanValue();
+            Map<String, Object> arguments = args.length > 4 && args[4] != null ? new HashMap<>((Map<String, Object>) args[4]) : new HashMap<>();
+            synchronized (lock)
+            {
+                BrokerQueue queue = queues.get(name);
+                if (queue == null)
+                {
+                    queue = new BrokerQueue(name, durable, arguments);
+                    queues.put(name, queue);
+                }
+                else if (queue.durable != durable || !equivalent(queue.arguments, arguments))
+                {
+                    throw channelError(PRECONDITION_FAILED, "PRECONDITION_FAILED - inequivalent arg for queue '" + name + "': declared " + queue.arguments
+                            + ", received " + arguments);
+                }
+                return new AMQImpl.Queue.DeclareOk(name, queue.messages.size(), queue.consumers.size());
+            }
+        }
+
+        private AMQImpl.Queue.DeclareOk queueDeclarePassive(String name) throws IOException
+        {
+            synchronized (lock)
+            {
+                BrokerQueue queue = existingQueue(name);
+                return new AMQImpl.Queue.DeclareOk(name, queue.messages.size(), queue.consumers.size());
+            }
+        }
+
+        private AMQImpl.Queue.DeleteOk queueDelete(String name)
+        {
+            synchronized (lock)
+            {
+                BrokerQueue queue = queues.remove(name);
+                if (queue == null)
+                {
+                    return new AMQImpl.Queue.DeleteOk(0);
+                }
+                for (BrokerConsumer consumer : queue.consumers)
+                {
+                    consumer.channel.consumers.remove(consumer.tag);
+                    consumer.channel.callback(() -> consumer.consumer.handleCancel(consumer.tag));
+                }
+                return new AMQImpl.Queue.DeleteOk(queue.messages.size());
+            }
+        }
+
+        private AMQImpl.Queue.PurgeOk queuePurge(String name) throws IOException
+        {
+            synchronized (lock)
+            {
+                BrokerQueue queue = existingQueue(name);
+                int count = queue.messages.size();
+                queue.messages.clear();
+                queue.bytes = 0;
+                return new AMQImpl.Queue.PurgeOk(count);
+            }
+        }
+
+        private AMQImpl.Queue.BindOk queueBind(String queueName, String exchangeName, String routingKey, boolean noWait) throws IOException
+        {
+            synchronized (lock)
+            {
+                if (!queues.containsKey(queueName))
+                {
+                    throw channelError(NOT_FOUND, "NOT_FOUND - no queue '" + queueName + "'");
+                }
+                BrokerExchange exchange = exchanges.get(exchangeName);
+                if (exchange == null)
+                {
+                    throw channelError(NOT_FOUND, "NOT_FOUND - no exchange '" + exchangeName + "'");
+                }
+                for (String[] binding : exchange.bindings)
+                {
+                    if (binding[0].equals(queueName) && binding[1].equals(routingKey))
+                    {
+                        return new AMQImpl.Queue.BindOk();
+                    }
+                }
+                exchange.bindings.add(new String[] { queueName, routingKey });
+                return new AMQImpl.Queue.BindOk();
+            }
+        }
+
+        private AMQImpl.Queue.UnbindOk queueUnbind(String queueName, String exchangeName, String routingKey)
+        {
+            synchronized (lock)
+            {
+                BrokerExchange exchange = exchanges.get(exchangeName);
+                if (exchange != null)
+                {
+                    exchange.bindings.removeIf(binding -> binding[0].equals(queueName) && binding[1].equals(routingKey));
+                }
+                return new AMQImpl.Queue.UnbindOk();
+            }
+        }
+
+        private AMQImpl.Exchange.DeclareOk exchangeDeclare(Object[] args, boolean noWait) throws IOException
+        {
+            String name = (String) args[0];
+            String type = args[1] instanceof BuiltinExchangeType ? ((BuiltinExchangeType) args[1]).getType() : (String) args[1];
+            boolean durable = args.length > 2 && ((Boolean) args[2]).booleanValue();
+            if (BuiltinExchangeType.HEADERS.getType().equals(type) || "x-delayed-message".equals(type))
+            {
+                throw new UnsupportedOperationException("exchange-type '" + type + "' is not supported by the in-memory broker");
+            }
+            synchronized (lock)
+            {
+                BrokerExchange exchange = exchanges.get(name);
+                if (exchange == null)
+                {
+                    exchanges.put(name, new BrokerExchange(type, durable));
+                }
+                else if (!exchange.type.equals(type) || exchange.durable != durable)
+                {
+                    throw channelError(PRECONDITION_FAILED, "PRECONDITION_FAILED - inequivalent arg 'type' or 'durable' for exchange '" + name + "'");
+                }
+                return new AMQImpl.Exchange.DeclareOk();
+            }
+        }
+
+        private AMQImpl.Exchange.DeclareOk exchangeDeclarePassive(String name) throws IOException
+        {
+            synchronized (lock)
+            {
+                if (!exchanges.containsKey(name))
+                {
+                    throw channelError(NOT_FOUND, "NOT_FOUND - no exchange '" + name + "'");
+                }
+                return new AMQImpl.Exchange.DeclareOk();
+            }
+        }
+
+        private AMQImpl.Exchange.DeleteOk exchangeDelete(String name)
+        {
+            synchronized (lock)
+            {
+                exchanges.remove(name);
+                return new AMQImpl.Exchange.DeleteOk();
+            }
+        }
+
+        private void basicPublish(Object[] args) throws IOException
+        {
+            String exchange = (String) args[0];
+            String routingKey = (String) args[1];
+            boolean mandatory = args.length > 4 && ((Boolean) args[2]).booleanValue();
+            BasicProperties properties = args[args.length - 2] == null ? new BasicProperties() : (BasicProperties) args[args.length - 2];
+            byte[] body = (byte[]) args[args.length - 1];
+            long publishSeqNo;
+            boolean routed;
+            boolean accepted = true;
+            synchronized (lock)
+            {
+                List<BrokerQueue> targets = route(exchange, routingKey);
+                if (targets == null)
+                {
+                    throw channelError(NOT_FOUND, "NOT_FOUND - no exchange '" + exchange + "'");
+                }
+                publishSeqNo = nextPublishSeqNo > 0 ? nextPublishSeqNo++ : 0;
+                routed = !targets.isEmpty();
+                for (BrokerQueue target : targets)
+                {
+                    accepted &= enqueue(target, exchange, routingKey, properties, body);
+                }
+            }
+            if (!routed && mandatory)
+            {
+                Return returned = new Return(NO_ROUTE, "NO_ROUTE", exchange, routingKey, properties, body);
+                callback(() ->
+                {
+                    for (ReturnListener listener : returnListeners)
+                    {
+                        listener.handleReturn(returned.getReplyCode(), returned.getReplyText(), exchange, routingKey, properties, body);
+                    }
+                });
+            }
+            if (publishSeqNo > 0)
+            {
+                synchronized (this)
+                {
+                    unconfirmed.add(Long.valueOf(publishSeqNo));
+                }
+                boolean ack = accepted;
+                callback(() -> confirm(publishSeqNo, ack));
+            }
+        }
+
+        private void confirm(long publishSeqNo, boolean ack) throws IOException
+        {
+            for (ConfirmListener listener : confirmListeners)
+            {
+                if (ack)
+                {
+                    listener.handleAck(publishSeqNo, false);
+                }
+                else
+                {
+                    listener.handleNack(publishSeqNo, false);
+                }
+            }
+            synchronized (this)
+            {
+                unconfirmed.remove(Long.valueOf(publishSeqNo));
+                nacked |= !ack;
+                notifyAll();
+            }
+        }
+
+        private boolean waitForConfirms(long timeout) throws InterruptedException, TimeoutException
+        {
+            long deadline = System.currentTimeMillis() + timeout;
+            synchronized (this)
+            {
+                while (!unconfirmed.isEmpty())
+                {
+                    long remaining = timeout == 0 ? 0 : deadline - System.currentTimeMillis();
+                    if (timeout != 0 && remaining <= 0)
+                    {
+                        throw new TimeoutException(unconfirmed.size() + " confirms are outstanding");
+                    }
+                    wait(remaining);
+                }
+                boolean allAcked = !nacked;
+                nacked = false;
+                return allAcked;
+            }
+        }
+
+        private void waitForConfirmsOrDie(long timeout) throws IOException, InterruptedException, TimeoutException
+        {
+            if (!waitForConfirms(timeout))
+            {
+                close(new ShutdownSignalException(false, true, new AMQImpl.Channel.Close(200, "NACKS RECEIVED", 0, 0), proxy));
+                throw new IOException("nacks received");
+            }
+        }
+
+        private ConfirmListener addConfirmListener(Object[] args)
+        {
+            ConfirmListener listener;
+            if (args.length == 2)
+            {
+                ConfirmCallback ackCallback = (ConfirmCallback) args[0];
+                ConfirmCallback nackCallback = (ConfirmCallback) args[1];
+                listener = new ConfirmListener()
+                {
+                    @Override
+                    public void handleAck(long deliveryTag, boolean multiple) throws IOException
+                    {
+                        ackCallback.handle(deliveryTag, multiple);
+                    }
+
+                    @Override
+                    public void handleNack(long deliveryTag, boolean multiple) throws IOException
+                    {
+                        nackCallback.handle(deliveryTag, multiple);
+                    }
+                };
+            }
+            else
+            {
+                listener = (ConfirmListener) args[0];
+            }
+            confirmListeners.add(listener);
+            return listener;
+        }
+
+        private ReturnListener addReturnListener(Object listenerOrCallback)
+        {
+            ReturnListener listener;
+            if (listenerOrCallback instanceof ReturnCallback)
+            {
+                ReturnCallback callback = (ReturnCallback) listenerOrCallback;
+                listener = (replyCode, replyText, exchange, routingKey, properties, body) -> callback
+                    .handle(new Return(replyCode, replyText, exchange, routingKey, properties, body));
+            }
+            else
+            {
+                listener = (ReturnListener) listenerOrCallback;
+            }
+            returnListeners.add(listener);
+            return listener;
+        }
+
+        private String basicConsume(Object[] args) throws IOException
+        {
+            Object callback = args[args.length - 1];
+            if (!(callback instanceof Consumer))
+            {
+                throw new UnsupportedOperationException("basicConsume is only supported with a Consumer by the in-memory broker");
+            }
+            Consumer consumer = (Consumer) callback;
+            String queueName = (String) args[0];
+            boolean autoAck = args.length > 2 && ((Boolean) args[1]).booleanValue();
+            String tag = args.length > 3 && args[2] instanceof String && !((String) args[2]).isEmpty() ? (String) args[2]
+                    : "amq.ctag-" + consumerTags.incrementAndGet();
+            synchronized (lock)
+            {
+                BrokerQueue queue = existingQueue(queueName);
+                BrokerConsumer brokerConsumer = new BrokerConsumer(tag, this, queue, consumer, autoAck);
+                consumers.put(tag, brokerConsumer);
+                callback(() -> consumer.handleConsumeOk(tag));
+                queue.consumers.add(brokerConsumer);
+                dispatch(queue);
+            }
+            return tag;
+        }
+
+        private void basicCancel(String tag)
+        {
+            synchronized (lock)
+            {
+                BrokerConsumer consumer = consumers.remove(tag);
+                if (consumer != null)
+                {
+                    consumer.queue.consumers.remove(consumer);
+                    callback(() -> consumer.consumer.handleCancelOk(tag));
+                }
+            }
+        }
+
+        private GetResponse basicGet(String queueName, boolean autoAck) throws IOException
+        {
+            synchronized (lock)
+            {
+                BrokerQueue queue = existingQueue(queueName);
+                while (!queue.messages.isEmpty())
+                {
+                    StoredMessage message = queue.poll();
+                    if (message.expiresAt <= System.currentTimeMillis())
+                    {
+                        deadLetter(queue, message, EXPIRED);
+                        continue;
+                    }
+                    long deliveryTag = nextDeliveryTag++;
+                    if (!autoAck)
+                    {
+                        unacked.put(Long.valueOf(deliveryTag), new Unacked(queue, message, null));
+                        queue.unacked++;
+                    }
+                    Envelope envelope = new Envelope(deliveryTag, message.redelivered, message.exchange, message.routingKey);
+                    return new GetResponse(envelope, message.properties, message.body, queue.messages.size());
+                }
+                return null;
+            }
+        }
+
+        private void deliver(BrokerConsumer consumer, BrokerQueue queue, StoredMessage message)
+        {
+            long deliveryTag = nextDeliveryTag++;
+            if (!consumer.autoAck)
+            {
+                unacked.put(Long.valueOf(deliveryTag), new Unacked(queue, message, consumer));
+                consumer.unacked++;
+                queue.unacked++;
+            }
+            Envelope envelope = new Envelope(deliveryTag, message.redelivered, message.exchange, message.routingKey);
+            callback(() -> consumer.consumer.handleDelivery(consumer.tag, envelope, message.properties, message.body));
+        }
+
+        private void settle(long deliveryTag, boolean multiple, boolean ack, boolean requeue) throws IOException
+        {
+            synchronized (lock)
+            {
+                // delivery-tag 0 with multiple settles all unacknowledged messages of the channel
+                if (!(multiple && deliveryTag == 0) && !unacked.containsKey(Long.valueOf(deliveryTag)))
+                {
+                    throw channelError(PRECONDITION_FAILED, "PRECONDITION_FAILED - unknown delivery tag " + deliveryTag);
+                }
+                List<Unacked> settledMessages;
+                if (multiple)
+                {
+                    Map<Long, Unacked> settled = unacked.headMap(Long.valueOf(deliveryTag == 0 ? Long.MAX_VALUE : deliveryTag), true);
+                    settledMessages = new ArrayList<>(settled.values());
+                    settled.clear();
+                }
+                else
+                {
+                    settledMessages = Collections.singletonList(unacked.remove(Long.valueOf(deliveryTag)));
+                }
+                settle(settledMessages, ack, requeue);
+            }
+        }
+
+        private void settle(List<Unacked> settledMessages, boolean ack, boolean requeue)
+        {
+            Set<BrokerQueue> affectedQueues = new LinkedHashSet<>();
+            // requeued messages go back to the head of their queue in their original order
+            for (int i = settledMessages.size() - 1; i >= 0; i--)
+            {
+                Unacked settled = settledMessages.get(i);
+                settled.queue.unacked--;
+                if (settled.consumer != null)
+                {
+                    settled.consumer.unacked--;
+                }
+                if (!ack && requeue)
+                {
+                    settled.queue.requeue(settled.message);
+                }
+                affectedQueues.add(settled.queue);
+            }
+            if (!ack && !requeue)
+            {
+                for (Unacked settled : settledMessages)
+                {
+                    deadLetter(settled.queue, settled.message, REJECTED);
+                }
+            }
+            for (BrokerQueue queue : affectedQueues)
+            {
+                dispatch(queue);
+            }
+        }
+
+        private BrokerQueue existingQueue(String name) throws IOException
+        {
+            BrokerQueue queue = queues.get(name);
+            if (queue == null)
+            {
+                throw channelError(NOT_FOUND, "NOT_FOUND - no queue '" + name + "'");
+            }
+            return queue;
+        }
+
+        private IOException channelError(int replyCode, String replyText)
+        {
+            return new IOException(new ShutdownSignalException(false, false, new AMQImpl.Channel.Close(replyCode, replyText, 0, 0), proxy));
+        }
+
+        private void close(ShutdownSignalException reason)
+        {
+            synchronized (lock)
+            {
+                if (closeReason != null)
+                {
+                    return;
+                }
+                closeReason = reason;
+                for (BrokerConsumer consumer : consumers.values())
+                {
+                    consumer.queue.consumers.remove(consumer);
+                    callback(() -> consumer.consumer.handleShutdownSignal(consumer.tag, reason));
+                }
+                consumers.clear();
+                List<Unacked> requeued = new ArrayList<>(unacked.values());
+                unacked.clear();
+                settle(requeued, false, true);
+            }
+            for (ShutdownListener listener : shutdownListeners)
+            {
+                listener.shutdownCompleted(reason);
+            }
+            synchronized (this)
+            {
+                if (callbackExecutor != null)
+                {
+                    callbackExecutor.shutdown();
+                }
+                notifyAll();
+            }
+        }
+
+        private synchronized void callback(Callback callback)
+        {
+            if (callbackExecutor == null)
+            {
+                callbackExecutor = Executors.newSingleThreadExecutor(daemonThreads("in-memory-broker-channel-" + channelNumber));
+            }
+            if (!callbackExecutor.isShutdown())
+            {
+                callbackExecutor.execute(() ->
+                {
+                    try
+                    {
+                        callback.call();
+                    }
+                    catch (Exception e)
+                    {
+                        logger.warn("callback of channel " + channelNumber + " failed", e);
+                    }
+                });
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Callback
+    {
+        void call() throws Exception;
+    }
+}
@@ -0,0 +1,132 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.Channel;
+
+public class InMemoryBrokerTest
+{
+    private InMemoryBroker broker = new InMemoryBroker();
+
+    private RabbitAdmin rabbitAdmin = new RabbitAdmin(broker);
+
+    private RabbitTemplate rabbitTemplate = new RabbitTemplate(broker);
+
+    @After
+    public void after()
+    {
+        broker.shutdown();
+    }
+
+    @Test
+    public void testTopicRouting()
+    {
+        rabbitAdmin.declareExchange(new TopicExchange("anyExchange"));
+        rabbitAdmin.declareQueue(new Queue("anyQueueName"));
+        rabbitAdmin.declareQueue(new Queue("anyOtherQueueName"));
+        rabbitTemplate.execute(channel ->
+        {
+            channel.queueBind("anyQueueName", "anyExchange", "orders.*.created");
+            channel.queueBind("anyOtherQueueName", "anyExchange", "orders.#");
+            return null;
+        });
+
+        rabbitTemplate.send("anyExchange", "orders.eu.created", buildMessage());
+        rabbitTemplate.send("anyExchange", "orders.eu.shipped.late", buildMessage());
+        rabbitTemplate.send("anyExchange", "payments.eu.created", buildMessage());
+
+        assertThat(broker.getMessageCount("anyQueueName")).isEqualTo(1);
+        assertThat(broker.getMessageCount("anyOtherQueueName")).isEqualTo(2);
+    }
+
+    @Test
+    public void testDeadLetterExpiredAndOverflowedMessages() throws InterruptedException
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(2).withArgument(QueueArguments.X_MESSAGE_TTL, Long.valueOf(50)).build();
+        queueWithDlx.getDeclarables().stream().filter(Queue.class::isInstance).map(Queue.class::cast).forEach(rabbitAdmin::declareQueue);
+
+        for (int i = 0; i < 3; i++)
+        {
+            rabbitTemplate.send("anyQueueName", buildMessage());
+        }
+        Message overflowed = rabbitTemplate.receive("anyQueueName.dlx");
+        Thread.sleep(100);
+        Message expired = rabbitTemplate.receive("anyQueueName.dlx");
+
+        assertThat(DeadLetterInfo.of(overflowed).getReason()).isEqualTo("maxlen");
+        assertThat(DeadLetterInfo.of(expired).getReason()).isEqualTo("expired");
+        assertThat(DeadLetterInfo.of(expired).getQueue()).isEqualTo("anyQueueName");
+        assertThat(broker.getMessageCount("anyQueueName")).isZero();
+        assertThat(broker.getMessageCount("anyQueueName.dlx")).isEqualTo(1);
+    }
+
+    @Test
+    public void testRetryTierRoundTrip() throws InterruptedException
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withRetryTiers(Duration.ofMillis(10)).build();
+        queueWithDlx.getDeclarables().stream().filter(Queue.class::isInstance).map(Queue.class::cast).forEach(rabbitAdmin::declareQueue);
+
+        rabbitTemplate.send("anyQueueName.retry.10ms", buildMessage());
+        Thread.sleep(100);
+        Message retried = rabbitTemplate.receive("anyQueueName");
+
+        assertThat(DeadLetterInfo.of(retried).getDeathCount("anyQueueName.retry.10ms")).isEqualTo(1);
+        assertThat(DeadLetterInfo.of(retried).getReason()).isEqualTo("expired");
+    }
+
+    @Test
+    public void testPublisherConfirmsAndReturns() throws Exception
+    {
+        rabbitAdmin.declareQueue(new Queue("anyQueueName", true, false, false,
+                Collections.singletonMap(QueueArguments.X_MAX_LENGTH, Integer.valueOf(1))));
+        Map<String, Object> rejectingArguments = new HashMap<>();
+        rejectingArguments.put(QueueArguments.X_MAX_LENGTH, Integer.valueOf(0));
+        rejectingArguments.put(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH);
+        rabbitAdmin.declareQueue(new Queue("anyRejectingQueueName", true, false, false, rejectingArguments));
+        Channel channel = broker.createConnection().createChannel(false);
+        StringBuilder returnedRoutingKeys = new StringBuilder();
+        channel.addReturnListener(returned -> returnedRoutingKeys.append(returned.getRoutingKey()));
+        channel.confirmSelect();
+
+        channel.basicPublish("", "anyQueueName", true, null, new byte[0]);
+        assertThat(channel.waitForConfirms(1000)).isTrue();
+        channel.basicPublish("", "anyUnknownQueueName", true, null, new byte[0]);
+        assertThat(channel.waitForConfirms(1000)).isTrue();
+        assertThat(returnedRoutingKeys.toString()).isEqualTo("anyUnknownQueueName");
+        channel.basicPublish("", "anyRejectingQueueName", true, null, new byte[0]);
+        assertThat(channel.waitForConfirms(1000)).isFalse();
+        channel.close();
+    }
+
+    @Test
+    public void testUnknownDeliveryTagClosesChannel() throws IOException
+    {
+        Channel channel = broker.createConnection().createChannel(false);
+
+        assertThatThrownBy(() -> channel.basicAck(1, false)).isInstanceOf(IOException.class).hasStackTraceContaining("unknown delivery tag 1");
+        assertThat(channel.isOpen()).isFalse();
+        assertThatThrownBy(() -> channel.basicQos(1)).isInstanceOf(AlreadyClosedException.class);
+    }
+
+    private static Message buildMessage()
+    {
+        return MessageBuilder.withBody(new byte[0]).build();
+    }
+}
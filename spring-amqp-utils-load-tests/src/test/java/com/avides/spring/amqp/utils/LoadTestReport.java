@@ -0,0 +1,66 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Pacing of the load and reporting of throughput and latency-percentiles of
+ * the load-tests
+ */
+final class LoadTestReport
+{
+    private LoadTestReport()
+    {
+        // private constructor to hide the public one
+    }
+
+    /**
+     * @return a {@link Histogram} of latencies in nanoseconds up to one minute
+     *         with 3 significant digits
+     */
+    static Histogram newLatencyHistogram()
+    {
+        return new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+    }
+
+    /**
+     * Waits until the given message may be sent to keep the given rate. The
+     * returned intended send-time is the start of its latency, so a stalled
+     * publisher shows up in the latencies instead of hiding them (coordinated
+     * omission)
+     *
+     * @return the intended send-time of the message in nanoseconds
+     */
+    static long pace(long start, long messageIndex, int messagesPerSecond)
+    {
+        long sendAt = start + messageIndex * TimeUnit.SECONDS.toNanos(1) / messagesPerSecond;
+        long delay = sendAt - System.nanoTime();
+        while (delay > 0)
+        {
+            LockSupport.parkNanos(delay);
+            delay = sendAt - System.nanoTime();
+        }
+        return sendAt;
+    }
+
+    static void printThroughput(String scenario, long operations, long durationNanos)
+    {
+        System.out.println(String.format(Locale.ROOT, "%s: %d operations in %d ms (%.0f ops/s)", scenario, Long.valueOf(operations),
+                Long.valueOf(TimeUnit.NANOSECONDS.toMillis(durationNanos)), Double.valueOf(operations * 1e9 / durationNanos)));
+    }
+
+    static void printLatencies(String scenario, Histogram latencies)
+    {
+        System.out.println(String.format(Locale.ROOT, "%s: latency p50=%.3f ms, p99=%.3f ms, p99.9=%.3f ms, max=%.3f ms (%d messages)", scenario,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()), Long.valueOf(latencies.getTotalCount())));
+    }
+
+    private static Double millis(long nanos)
+    {
+        return Double.valueOf(nanos / 1e6);
+    }
+}
@@ -0,0 +1,336 @@
+package com.avides.spring.amqp.utils.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Annotation-processor reading the '@DlxQueue'-annotations of
+ * spring-amqp-utils at compile-time. The topology is validated (names,
+ * queue-types, priorities, retry-tiers and unique queue-names across the
+ * compilation), violations fail the build. For each annotated class a class
+ * '&lt;ClassName&gt;Topology' is generated next to it, whose static method
+ * 'declarables(Object...)' builds the declared QueueWithDlx-instances with the
+ * QueueWithDlxBuilder (retry-tiers are parsed at compile-time already), so
+ * the application needs neither classpath-scanning nor reflection at startup
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DlxQueueProcessor extends AbstractProcessor
+{
+    static final String DLX_QUEUE = "com.avides.spring.amqp.utils.DlxQueue";
+
+    static final String DLX_QUEUES = "com.avides.spring.amqp.utils.DlxQueues";
+
+    static final String TOPOLOGY_SUFFIX = "Topology";
+
+    private static final int MAX_PRIORITY_LIMIT = 255;
+
+    private static final Pattern SHORT_DURATION = Pattern.compile("(\\d+)(ms|s|m|h|d)");
+
+    private final Map<String, String> declaringClassesByQueueName = new HashMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        return new HashSet<>(Arrays.asList(DLX_QUEUE, DLX_QUEUES));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        Set<TypeElement> annotatedClasses = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations)
+        {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+            {
+                annotatedClasses.add((TypeElement) element);
+            }
+        }
+        for (TypeElement annotatedClass : annotatedClasses)
+        {
+            List<QueueDefinition> definitions = readDefinitions(annotatedClass);
+            if (definitions != null)
+            {
+                writeTopology(annotatedClass, definitions);
+            }
+        }
+        return true;
+    }
+
+    private List<QueueDefinition> readDefinitions(TypeElement annotatedClass)
+    {
+        List<QueueDefinition> definitions = new ArrayList<>();
+        boolean valid = true;
+        for (AnnotationMirror mirror : collectDlxQueueMirrors(annotatedClass))
+        {
+            QueueDefinition definition = readDefinition(annotatedClass, mirror);
+            if (definition == null)
+            {
+                valid = false;
+            }
+            else
+            {
+                definitions.add(definition);
+            }
+        }
+        return valid ? definitions : null;
+    }
+
+    private static List<AnnotationMirror> collectDlxQueueMirrors(TypeElement annotatedClass)
+    {
+        List<AnnotationMirror> mirrors = new ArrayList<>();
+        for (AnnotationMirror mirror : annotatedClass.getAnnotationMirrors())
+        {
+            String annotationName = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (DLX_QUEUE.equals(annotationName))
+            {
+                mirrors.add(mirror);
+            }
+            else if (DLX_QUEUES.equals(annotationName))
+            {
+                for (Object value : (List<?>) getValue(mirror, "value", Collections.emptyList()))
+                {
+                    mirrors.add((AnnotationMirror) ((AnnotationValue) value).getValue());
+                }
+            }
+        }
+        return mirrors;
+    }
+
+    private QueueDefinition readDefinition(TypeElement annotatedClass, AnnotationMirror mirror)
+    {
+        QueueDefinition definition = new QueueDefinition();
+        definition.name = (String) getValue(mirror, "name", "");
+        definition.durable = ((Boolean) getValue(mirror, "durable", Boolean.TRUE)).booleanValue();
+        definition.quorum = ((Boolean) getValue(mirror, "quorum", Boolean.FALSE)).booleanValue();
+        definition.maxPriority = ((Integer) getValue(mirror, "maxPriority", Integer.valueOf(0))).intValue();
+        definition.exchange = (String) getValue(mirror, "exchange", "");
+        definition.routingKeys = getStrings(mirror, "routingKeys");
+
+        List<String> errors = new ArrayList<>();
+        if (definition.name.trim().isEmpty())
+        {
+            errors.add("name must not be empty");
+        }
+        else
+        {
+            String declaringClass = declaringClassesByQueueName.putIfAbsent(definition.name, annotatedClass.getQualifiedName().toString());
+            if (declaringClass != null)
+            {
+                errors.add("queue '" + definition.name + "' is already declared by " + declaringClass);
+            }
+        }
+        if (definition.quorum && !definition.durable)
+        {
+            errors.add("quorum-queue '" + definition.name + "' must be durable");
+        }
+        if (definition.maxPriority != 0 && (definition.quorum || definition.maxPriority < 0 || definition.maxPriority > MAX_PRIORITY_LIMIT))
+        {
+            errors.add("maxPriority=" + definition.maxPriority + " of queue '" + definition.name + "' must be between 1 and " + MAX_PRIORITY_LIMIT
+                    + " and is supported by classic-queues only");
+        }
+        if (definition.exchange.isEmpty() && !definition.routingKeys.isEmpty())
+        {
+            errors.add("routingKeys of queue '" + definition.name + "' require an exchange");
+        }
+        for (String retryTier : getStrings(mirror, "retryTiers"))
+        {
+            Duration delay = parseDuration(retryTier);
+            if (delay == null || delay.isNegative() || delay.isZero())
+            {
+                errors.add("retry-tier '" + retryTier + "' of queue '" + definition.name + "' must be a positive duration, e.g. '10s' or 'PT10S'");
+            }
+            else if (definition.retryDelays.contains(delay))
+            {
+                errors.add("retry-tier '" + retryTier + "' of queue '" + definition.name + "' is not unique");
+            }
+            else
+            {
+                definition.retryDelays.add(delay);
+            }
+        }
+
+        for (String error : errors)
+        {
+            processingEnv.getMessager().printMessage(Kind.ERROR, error, annotatedClass, mirror);
+        }
+        return errors.isEmpty() ? definition : null;
+    }
+
+    private void writeTopology(TypeElement annotatedClass, List<QueueDefinition> definitions)
+    {
+        String packageName = processingEnv.getElementUtils().getPackageOf(annotatedClass).getQualifiedName().toString();
+        String qualifiedName = annotatedClass.getQualifiedName().toString();
+        String simpleName = (packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1)).replace('.', '_') + TOPOLOGY_SUFFIX;
+        try (Writer writer = processingEnv.getFiler()
+            .createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, annotatedClass)
+            .openWriter())
+        {
+            writer.write(generateTopology(packageName, simpleName, qualifiedName, definitions));
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "generating " + simpleName + " failed: " + e.getMessage(), annotatedClass);
+        }
+    }
+
+    static String generateTopology(String packageName, String simpleName, String annotatedClassName, List<QueueDefinition> definitions)
+    {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n");
+        source.append(" * Generated by ").append(DlxQueueProcessor.class.getName()).append(" from the DlxQueue-annotations of\n");
+        source.append(" * ").append(annotatedClassName).append(", do not edit\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName).append("\n{\n");
+        source.append("    private ").append(simpleName).append("()\n    {\n        // private constructor to hide the public one\n    }\n\n");
+        source.append("    public static org.springframework.amqp.core.Declarables declarables(Object... adminsThatShouldDeclare)\n    {\n");
+        source.append("        java.util.List<org.springframework.amqp.core.Declarable> declarables = new java.util.ArrayList<>();\n");
+        for (QueueDefinition definition : definitions)
+        {
+            source.append("        declarables.addAll(com.avides.spring.amqp.utils.QueueWithDlxBuilder.");
+            source.append(definition.quorum ? "quorum" : definition.durable ? "durable" : "nonDurable").append('(').append(literal(definition.name)).append(")\n");
+            source.append("            .declaredBy(null, adminsThatShouldDeclare)\n");
+            if (!definition.exchange.isEmpty())
+            {
+                for (String routingKey : definition.routingKeys.isEmpty() ? Collections.singletonList(definition.name) : definition.routingKeys)
+                {
+                    source.append("            .boundTo(").append(literal(definition.exchange)).append(", ").append(literal(routingKey)).append(")\n");
+                }
+            }
+            if (definition.maxPriority > 0)
+            {
+                source.append("            .withMaxPriority(").append(definition.maxPriority).append(")\n");
+            }
+            if (!definition.retryDelays.isEmpty())
+            {
+                source.append("            .withRetryTiers(");
+                for (int i = 0; i < definition.retryDelays.size(); i++)
+                {
+                    source.append(i == 0 ? "" : ", ").append("java.time.Duration.ofMillis(").append(definition.retryDelays.get(i).toMillis()).append("L)");
+                }
+                source.append(")\n");
+            }
+            source.append("            .build()\n");
+            source.append("            .getDeclarables());\n");
+        }
+        source.append("        return new org.springframework.amqp.core.Declarables(declarables);\n");
+        source.append("    }\n}\n");
+        return source.toString();
+    }
+
+    static Duration parseDuration(String value)
+    {
+        Matcher matcher = SHORT_DURATION.matcher(value);
+        if (matcher.matches())
+        {
+            long amount = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2))
+            {
+                case "ms":
+                    return Duration.ofMillis(amount);
+                case "s":
+                    return Duration.ofSeconds(amount);
+                case "m":
+                    return Duration.ofMinutes(amount);
+                case "h":
+                    return Duration.ofHours(amount);
+                default:
+                    return Duration.ofDays(amount);
+            }
+        }
+        try
+        {
+            return Duration.parse(value);
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+    }
+
+    private static Object getValue(AnnotationMirror mirror, String name, Object defaultValue)
+    {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet())
+        {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+            {
+                return entry.getValue().getValue();
+            }
+        }
+        return defaultValue;
+    }
+
+    private static List<String> getStrings(AnnotationMirror mirror, String name)
+    {
+        List<String> strings = new ArrayList<>();
+        for (Object value : (List<?>) getValue(mirror, name, Collections.emptyList()))
+        {
+            strings.add((String) ((AnnotationValue) value).getValue());
+        }
+        return strings;
+    }
+
+    private static String literal(String value)
+    {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray())
+        {
+            if (c == '"' || c == '\\')
+            {
+                literal.append('\\');
+            }
+            literal.append(c);
+        }
+        return literal.append('"').toString();
+    }
+
+    static final class QueueDefinition
+    {
+        String name;
+
+        boolean durable;
+
+        boolean quorum;
+
+        int maxPriority;
+
+        String exchange;
+
+        List<String> routingKeys;
+
+        final List<Duration> retryDelays = new ArrayList<>();
+    }
+}
@@ -0,0 +1,131 @@
+package com.avides.spring.amqp.utils.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+
+public class DlxQueueProcessorTest
+{
+    private Path directory;
+
+    private DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    @Before
+    public void before() throws IOException
+    {
+        directory = Files.createTempDirectory("dlx-queue-processor");
+    }
+
+    @After
+    public void after() throws IOException
+    {
+        try (java.util.stream.Stream<Path> paths = Files.walk(directory))
+        {
+            paths.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testGenerateTopology() throws Exception
+    {
+        boolean compiled = compile("com.example.OrderListener", "package com.example;\n"
+                + "@com.avides.spring.amqp.utils.DlxQueue(name = \"orders\", retryTiers = { \"10s\", \"PT1M\" }, maxPriority = 10, exchange = \"orders.exchange\")\n"
+                + "@com.avides.spring.amqp.utils.DlxQueue(name = \"payments\", quorum = true)\n"
+                + "public class OrderListener {}\n");
+
+        assertThat(compiled).as(diagnostics.getDiagnostics().toString()).isTrue();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, getClass().getClassLoader()))
+        {
+            Declarables declarables = (Declarables) classLoader.loadClass("com.example.OrderListenerTopology")
+                .getMethod("declarables", Object[].class)
+                .invoke(null, new Object[] { new Object[0] });
+            List<String> queueNames = declarables.getDeclarables()
+                .stream()
+                .filter(Queue.class::isInstance)
+                .map(declarable -> ((Queue) declarable).getName())
+                .collect(Collectors.toList());
+            assertThat(queueNames).containsExactlyInAnyOrder("orders", "orders.dlx", "orders.retry.10s", "orders.retry.60s", "payments", "payments.dlx");
+            assertThat(declarables.getDeclarables()).hasSize(7);
+        }
+    }
+
+    @Test
+    public void testInvalidTopology() throws Exception
+    {
+        boolean compiled = compile("com.example.OrderListener", "package com.example;\n"
+                + "@com.avides.spring.amqp.utils.DlxQueue(name = \"orders\", quorum = true, durable = false, maxPriority = 10, retryTiers = { \"10s\", \"10000ms\", \"soon\" })\n"
+                + "@com.avides.spring.amqp.utils.DlxQueue(name = \"orders\", routingKeys = \"orders\")\n"
+                + "public class OrderListener {}\n");
+
+        assertThat(compiled).isFalse();
+        assertThat(errors()).containsExactlyInAnyOrder("quorum-queue 'orders' must be durable",
+                "maxPriority=10 of queue 'orders' must be between 1 and 255 and is supported by classic-queues only",
+                "retry-tier '10000ms' of queue 'orders' is not unique",
+                "retry-tier 'soon' of queue 'orders' must be a positive duration, e.g. '10s' or 'PT10S'",
+                "queue 'orders' is already declared by com.example.OrderListener",
+                "routingKeys of queue 'orders' require an exchange");
+        assertThat(directory.resolve("com/example/OrderListenerTopology.java")).doesNotExist();
+    }
+
+    @Test
+    public void testParseDuration()
+    {
+        assertThat(DlxQueueProcessor.parseDuration("500ms")).isEqualTo(Duration.ofMillis(500));
+        assertThat(DlxQueueProcessor.parseDuration("5m")).isEqualTo(Duration.ofMinutes(5));
+        assertThat(DlxQueueProcessor.parseDuration("1d")).isEqualTo(Duration.ofDays(1));
+        assertThat(DlxQueueProcessor.parseDuration("PT2H")).isEqualTo(Duration.ofHours(2));
+        assertThat(DlxQueueProcessor.parseDuration("10 s")).isNull();
+    }
+
+    private boolean compile(String className, String source) throws IOException
+    {
+        Path sourceFile = directory.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))
+        {
+            List<String> options = new ArrayList<>(Arrays.asList("-d", directory.toString(), "-s", directory.toString()));
+            options.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(sourceFile.toFile()));
+            task.setProcessors(Collections.singletonList(new DlxQueueProcessor()));
+            return task.call().booleanValue();
+        }
+    }
+
+    private List<String> errors()
+    {
+        return diagnostics.getDiagnostics()
+            .stream()
+            .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+            .map(diagnostic -> diagnostic.getMessage(null))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * Advice for the advice-chain of a listener-container, adapting the prefetch
+ * to the observed time until a message is acknowledged (the duration of the
+ * listener, averaged exponentially). A prefetched message waits for all
+ * messages before it, so the prefetch is the target-latency divided by the
+ * average duration, between the minimum and maximum prefetch: slow listeners
+ * buffer few messages (which other consumers can take meanwhile), fast
+ * listeners buffer up to the maximum. The prefetch is applied as
+ * channel-wide limit ('basic.qos' with global=true) in addition to the
+ * per-consumer prefetch the listener-container set on the channel. The broker
+ * enforces the lower one of both limits, so the adaptive prefetch can only
+ * lower the prefetch below the one of the listener-container, never raise it
+ * above. Quorum- and stream-queues do not support the channel-wide limit, so
+ * the {@link AdaptivePrefetch} is built with
+ * {@link ConsumerProfile#buildAdaptivePrefetch(Duration)}, which rejects them
+ *
+ * @see ConsumerProfile#buildAdaptivePrefetch(Duration)
+ * @since 1.1.0.RELEASE
+ */
+public class AdaptivePrefetch implements MethodInterceptor
+{
+    private static final double SMOOTHING = 0.2;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final Map<Channel, Integer> appliedPrefetchCounts = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int minPrefetch;
+
+    private final int maxPrefetch;
+
+    private final long targetLatencyNanos;
+
+    private double averageDurationNanos = -1;
+
+    private volatile int prefetchCount;
+
+    /**
+     * @param minPrefetch
+     *            the minimum prefetch
+     * @param maxPrefetch
+     *            the maximum prefetch, the prefetch of the
+     *            listener-container
+     * @param targetLatency
+     *            the maximum time a message should wait in the
+     *            prefetch-buffer of a consumer
+     */
+    AdaptivePrefetch(int minPrefetch, int maxPrefetch, Duration targetLatency)
+    {
+        Assert.isTrue(minPrefetch > 0, "minPrefetch must be positive");
+        Assert.isTrue(maxPrefetch >= minPrefetch, "maxPrefetch must not be less than minPrefetch");
+        Assert.isTrue(!targetLatency.isNegative() && !targetLatency.isZero(), "targetLatency must be positive");
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+        targetLatencyNanos = targetLatency.toNanos();
+        prefetchCount = maxPrefetch;
+    }
+
+    /**
+     * @return the current prefetch
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getPrefetchCount()
+    {
+        return prefetchCount;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return invocation.proceed();
+        }
+        finally
+        {
+            record(System.nanoTime() - start);
+            // the listener-container invokes its listener with the channel of the consumer as first argument
+            Object[] arguments = invocation.getArguments();
+            if (arguments.length > 0 && arguments[0] instanceof Channel)
+            {
+                apply((Channel) arguments[0]);
+            }
+        }
+    }
+
+    private synchronized void record(long durationNanos)
+    {
+        averageDurationNanos = averageDurationNanos < 0 ? durationNanos : averageDurationNanos + SMOOTHING * (durationNanos - averageDurationNanos);
+        double prefetch = targetLatencyNanos / Math.max(averageDurationNanos, 1);
+        prefetchCount = (int) Math.max(minPrefetch, Math.min(maxPrefetch, prefetch));
+    }
+
+    private void apply(Channel channel)
+    {
+        int currentPrefetchCount = prefetchCount;
+        Integer appliedPrefetchCount = appliedPrefetchCounts.get(channel);
+        if (appliedPrefetchCount == null || appliedPrefetchCount.intValue() != currentPrefetchCount)
+        {
+            try
+            {
+                channel.basicQos(currentPrefetchCount, true);
+                appliedPrefetchCounts.put(channel, Integer.valueOf(currentPrefetchCount));
+            }
+            catch (IOException e)
+            {
+                logger.warn("applying prefetch " + currentPrefetchCount + " failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,1070 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.CustomExchange;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.util.Assert;
+
+/**
+ * Utility-class for simple amqp-funcionality. So far it is useful for creating
+ * DLX-{@link Queue}s
+ *
+ * @author Martin Schumacher
+ * @since 1.0.0.RELEASE
+ */
+public abstract class AmqpUtils
+{
+    static final String DLX_NAME_SUFFIX = ".dlx";
+
+    private static final String INDEX_NAME_SEPARATOR = ".";
+
+    private static final String PARTITION_BINDING_WEIGHT = "1";
+
+    private static final String STREAM_NAME_SUFFIX = ".stream";
+
+    private static final List<String> INHERITED_ARGUMENTS = Arrays.asList(QueueArguments.X_MAX_PRIORITY, QueueArguments.X_QUEUE_LEADER_LOCATOR,
+            QueueArguments.X_QUEUE_MASTER_LOCATOR);
+
+    private AmqpUtils()
+    {
+        // private constructor to hide the public one
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging durable DLX-{@link Queue} for it
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} that has a belonging DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableQueueWithDlx(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildDurableQueueWithDlx(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging durable DLX-{@link Queue} for it
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} that has a belonging DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableQueueWithDlx(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueueWithDlx(queueName, true, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildDurableQueueWithDlxArguments(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueueWithDlxArguments(queueName, true, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a durable DLX-{@link Queue} for the given {@link Queue}. The name
+     * of the created DLX-{@link Queue} is the name of the given {@link Queue}
+     * suffixed with '.dlx'. A priority-{@link Queue} ('x-max-priority') gets a
+     * DLX-{@link Queue} with the same priorities, the placement-strategy
+     * ('x-queue-leader-locator', 'x-queue-master-locator') is inherited too
+     *
+     * @param queue
+     *            the {@link Queue} to build a DLX-{@link Queue} for
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableDlxQueueFor(Queue queue)
+    {
+        return buildQueue(buildDlxQueueName(queue.getName()), true, buildDlxQueueArguments(QueueArguments.CLASSIC, queue), queue.getDeclaringAdmins().toArray());
+    }
+
+    /**
+     * Builds a durable DLX-{@link Queue} for the given queueName. The name of
+     * the created DLX-{@link Queue} is the given queueName suffixed with '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableDlxQueueFor(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildDurableDlxQueueFor(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable DLX-{@link Queue} for the given queueName. The name of
+     * the created DLX-{@link Queue} is the given queueName suffixed with '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            DLX-{@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDurableDlxQueueFor(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildDlxQueueFor(queueName, true, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging non-durable DLX-{@link Queue} for it
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} that has a belonging DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableQueueWithDlx(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildNonDurableQueueWithDlx(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging non-durable DLX-{@link Queue} for it
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} that has a belonging DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableQueueWithDlx(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueueWithDlx(queueName, false, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildNonDurableQueueWithDlxArguments(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueueWithDlxArguments(queueName, false, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a non-durable DLX-{@link Queue} for the given {@link Queue}. The
+     * name of the created DLX-{@link Queue} is the name of the given
+     * {@link Queue} suffixed with '.dlx'. A priority-{@link Queue}
+     * ('x-max-priority') gets a DLX-{@link Queue} with the same priorities,
+     * the placement-strategy ('x-queue-leader-locator',
+     * 'x-queue-master-locator') is inherited too
+     *
+     * @param queue
+     *            the {@link Queue} to build a DLX-{@link Queue} for
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableDlxQueueFor(Queue queue)
+    {
+        return buildQueue(buildDlxQueueName(queue.getName()), false, buildDlxQueueArguments(QueueArguments.CLASSIC, queue), queue.getDeclaringAdmins().toArray());
+    }
+
+    /**
+     * Builds a non-durable DLX-{@link Queue} for the given queueName. The name
+     * of the created DLX-{@link Queue} is the given queueName suffixed with
+     * '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableDlxQueueFor(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildNonDurableDlxQueueFor(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable DLX-{@link Queue} for the given queueName. The name
+     * of the created DLX-{@link Queue} is the given queueName suffixed with
+     * '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            DLX-{@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildNonDurableDlxQueueFor(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildDlxQueueFor(queueName, false, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a DLX-{@link Queue} for the given {@link Queue}. If the given
+     * {@link Queue} is durable, the DLX-{@link Queue} will also be durable, If
+     * the given {@link Queue} is non-durable, the DLX-{@link Queue} will also
+     * be non-durable. If the given {@link Queue} is a quorum-{@link Queue},
+     * the DLX-{@link Queue} will also be a quorum-{@link Queue}. If the given
+     * {@link Queue} is a priority-{@link Queue}, the DLX-{@link Queue} will
+     * have the same priorities. The placement-strategy
+     * ('x-queue-leader-locator', 'x-queue-master-locator') is inherited. The
+     * name of the created DLX-{@link Queue} is the name of the given
+     * {@link Queue} suffixed with '.dlx'
+     *
+     * @param queue
+     *            the {@link Queue} to build a DLX-{@link Queue} for
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.0.0.RELEASE
+     */
+    public static Queue buildDlxQueueFor(Queue queue)
+    {
+        if (QueueArguments.QUORUM.equals(queue.getArguments().get(QueueArguments.X_QUEUE_TYPE)))
+        {
+            return buildQuorumDlxQueueFor(queue);
+        }
+        return queue.isDurable() ? buildDurableDlxQueueFor(queue) : buildNonDurableDlxQueueFor(queue);
+    }
+
+    /**
+     * Builds a DLX-{@link Queue} for the given {@link Queue} like
+     * {@link #buildDlxQueueFor(Queue)}, whose storage is bounded by the given
+     * {@link DlxRetentionPolicy}
+     *
+     * @param queue
+     *            the {@link Queue} to build a DLX-{@link Queue} for
+     * @param retentionPolicy
+     *            the {@link DlxRetentionPolicy} for the DLX-{@link Queue}
+     * @return the DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildDlxQueueFor(Queue queue, DlxRetentionPolicy retentionPolicy)
+    {
+        Map<String, Object> arguments = buildDlxQueueArguments((String) queue.getArguments().get(QueueArguments.X_QUEUE_TYPE), queue);
+        arguments.putAll(retentionPolicy.toArguments());
+        return buildQueue(buildDlxQueueName(queue.getName()), queue.isDurable(), arguments, queue.getDeclaringAdmins().toArray());
+    }
+
+    /**
+     * Builds a quorum-{@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately.
+     * Quorum-{@link Queue}s are always durable
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the quorum-{@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildQuorumQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildQuorumQueueWithDlxArguments(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a quorum-{@link Queue} with the given name that has necessary
+     * arguments to use a DLX-{@link Queue}, which must be created separately.
+     * Quorum-{@link Queue}s are always durable
+     *
+     * @param queueName
+     *            the name for the {@link Queue}
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the quorum-{@link Queue} with necessary DLX-arguments
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildQuorumQueueWithDlxArguments(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        Map<String, Object> arguments = buildDlxArguments(queueName);
+        arguments.put(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+        return buildQueue(queueName, true, arguments, merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray());
+    }
+
+    /**
+     * Builds a quorum-DLX-{@link Queue} for the given {@link Queue}. The name
+     * of the created DLX-{@link Queue} is the name of the given {@link Queue}
+     * suffixed with '.dlx', the placement-strategy ('x-queue-leader-locator')
+     * is inherited
+     *
+     * @param queue
+     *            the {@link Queue} to build a DLX-{@link Queue} for
+     * @return the quorum-DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildQuorumDlxQueueFor(Queue queue)
+    {
+        return buildQueue(buildDlxQueueName(queue.getName()), true, buildDlxQueueArguments(QueueArguments.QUORUM, queue), queue.getDeclaringAdmins().toArray());
+    }
+
+    /**
+     * Builds a quorum-DLX-{@link Queue} for the given queueName. The name of
+     * the created DLX-{@link Queue} is the given queueName suffixed with '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the quorum-DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildQuorumDlxQueueFor(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildQuorumDlxQueueFor(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a quorum-DLX-{@link Queue} for the given queueName. The name of
+     * the created DLX-{@link Queue} is the given queueName suffixed with '.dlx'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to build a DLX-{@link Queue} for
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            DLX-{@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the quorum-DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Queue buildQuorumDlxQueueFor(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueue(buildDlxQueueName(queueName), true, buildDlxQueueArguments(QueueArguments.QUORUM),
+                merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray());
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging durable DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the {@link Queue} and the
+     *         DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildDurableQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildDurableQueueWithDlxDeclarables(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging durable DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the {@link Queue} and the
+     *         DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildDurableQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return QueueWithDlxBuilder.durable(queueName).declaredBy(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).build();
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging non-durable DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the {@link Queue} and the
+     *         DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildNonDurableQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildNonDurableQueueWithDlxDeclarables(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable {@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging non-durable DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the {@link Queue} and the
+     *         DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildNonDurableQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return QueueWithDlxBuilder.nonDurable(queueName).declaredBy(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).build();
+    }
+
+    /**
+     * Builds a quorum-{@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging quorum-DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the quorum-{@link Queue} and
+     *         the quorum-DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildQuorumQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare)
+    {
+        return buildQuorumQueueWithDlxDeclarables(queueName, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a quorum-{@link Queue} with the given queueName and necessary
+     * DLX-arguments and a belonging quorum-DLX-{@link Queue} for it, both
+     * contained in one {@link QueueWithDlx}, so that they can be registered
+     * and declared together
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the quorum-{@link Queue} and
+     *         the quorum-DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildQuorumQueueWithDlxDeclarables(String queueName, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return QueueWithDlxBuilder.quorum(queueName).declaredBy(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).build();
+    }
+
+    /**
+     * Builds a durable consistent-hash-{@link Exchange} with the given name
+     * and the given number of durable partition-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;partitions - 1&gt;', each with
+     * necessary DLX-arguments, a belonging durable DLX-{@link Queue} and a
+     * {@link Binding} to the {@link Exchange}. Messages published to the
+     * {@link Exchange} are distributed to the partitions by the hash of their
+     * routing-key
+     *
+     * @param name
+     *            the name for the {@link Exchange} and the prefix for the
+     *            partition-{@link Queue}s
+     * @param partitions
+     *            the number of partition-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Exchange},
+     *            the {@link Queue}s and the {@link Binding}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link PartitionedQueueWithDlx} containing the
+     *         {@link Exchange} and the partitions
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static PartitionedQueueWithDlx buildDurablePartitionedQueueWithDlx(String name, int partitions, Object adminThatShouldDeclare)
+    {
+        return buildDurablePartitionedQueueWithDlx(name, partitions, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable consistent-hash-{@link Exchange} with the given name
+     * and the given number of durable partition-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;partitions - 1&gt;', each with
+     * necessary DLX-arguments, a belonging durable DLX-{@link Queue} and a
+     * {@link Binding} to the {@link Exchange}. Messages published to the
+     * {@link Exchange} are distributed to the partitions by the hash of their
+     * routing-key
+     *
+     * @param name
+     *            the name for the {@link Exchange} and the prefix for the
+     *            partition-{@link Queue}s
+     * @param partitions
+     *            the number of partition-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Exchange},
+     *            the {@link Queue}s and the {@link Binding}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Exchange}, the {@link Queue}s and the {@link Binding}s
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link PartitionedQueueWithDlx} containing the
+     *         {@link Exchange} and the partitions
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static PartitionedQueueWithDlx buildDurablePartitionedQueueWithDlx(String name, int partitions, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildPartitionedQueueWithDlx(name, partitions, true, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a non-durable consistent-hash-{@link Exchange} with the given name
+     * and the given number of non-durable partition-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;partitions - 1&gt;', each with
+     * necessary DLX-arguments, a belonging non-durable DLX-{@link Queue} and a
+     * {@link Binding} to the {@link Exchange}. Messages published to the
+     * {@link Exchange} are distributed to the partitions by the hash of their
+     * routing-key
+     *
+     * @param name
+     *            the name for the {@link Exchange} and the prefix for the
+     *            partition-{@link Queue}s
+     * @param partitions
+     *            the number of partition-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Exchange},
+     *            the {@link Queue}s and the {@link Binding}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link PartitionedQueueWithDlx} containing the
+     *         {@link Exchange} and the partitions
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static PartitionedQueueWithDlx buildNonDurablePartitionedQueueWithDlx(String name, int partitions, Object adminThatShouldDeclare)
+    {
+        return buildNonDurablePartitionedQueueWithDlx(name, partitions, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable consistent-hash-{@link Exchange} with the given name
+     * and the given number of non-durable partition-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;partitions - 1&gt;', each with
+     * necessary DLX-arguments, a belonging non-durable DLX-{@link Queue} and a
+     * {@link Binding} to the {@link Exchange}. Messages published to the
+     * {@link Exchange} are distributed to the partitions by the hash of their
+     * routing-key
+     *
+     * @param name
+     *            the name for the {@link Exchange} and the prefix for the
+     *            partition-{@link Queue}s
+     * @param partitions
+     *            the number of partition-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Exchange},
+     *            the {@link Queue}s and the {@link Binding}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Exchange}, the {@link Queue}s and the {@link Binding}s
+     *            (see {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link PartitionedQueueWithDlx} containing the
+     *         {@link Exchange} and the partitions
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static PartitionedQueueWithDlx buildNonDurablePartitionedQueueWithDlx(String name, int partitions, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildPartitionedQueueWithDlx(name, partitions, false, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a durable shared DLX-{@link TopicExchange} with the given name and
+     * the given number of durable shared DLX-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;queues - 1&gt;', which can be used
+     * by many {@link Queue}s instead of one DLX-{@link Queue} per
+     * {@link Queue} (see {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)})
+     *
+     * @param name
+     *            the name for the {@link TopicExchange} and the prefix for the
+     *            shared DLX-{@link Queue}s
+     * @param queues
+     *            the number of shared DLX-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link SharedDlx} containing the {@link TopicExchange} and
+     *         the shared DLX-{@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static SharedDlx buildDurableSharedDlx(String name, int queues, Object adminThatShouldDeclare)
+    {
+        return buildDurableSharedDlx(name, queues, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a durable shared DLX-{@link TopicExchange} with the given name and
+     * the given number of durable shared DLX-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;queues - 1&gt;', which can be used
+     * by many {@link Queue}s instead of one DLX-{@link Queue} per
+     * {@link Queue} (see {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)})
+     *
+     * @param name
+     *            the name for the {@link TopicExchange} and the prefix for the
+     *            shared DLX-{@link Queue}s
+     * @param queues
+     *            the number of shared DLX-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link SharedDlx} containing the {@link TopicExchange} and
+     *         the shared DLX-{@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static SharedDlx buildDurableSharedDlx(String name, int queues, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildSharedDlx(name, queues, true, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a non-durable shared DLX-{@link TopicExchange} with the given name and
+     * the given number of non-durable shared DLX-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;queues - 1&gt;', which can be used
+     * by many {@link Queue}s instead of one DLX-{@link Queue} per
+     * {@link Queue} (see {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)})
+     *
+     * @param name
+     *            the name for the {@link TopicExchange} and the prefix for the
+     *            shared DLX-{@link Queue}s
+     * @param queues
+     *            the number of shared DLX-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link SharedDlx} containing the {@link TopicExchange} and
+     *         the shared DLX-{@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static SharedDlx buildNonDurableSharedDlx(String name, int queues, Object adminThatShouldDeclare)
+    {
+        return buildNonDurableSharedDlx(name, queues, adminThatShouldDeclare, new Object[0]);
+    }
+
+    /**
+     * Builds a non-durable shared DLX-{@link TopicExchange} with the given name and
+     * the given number of non-durable shared DLX-{@link Queue}s named
+     * '&lt;name&gt;.0' to '&lt;name&gt;.&lt;queues - 1&gt;', which can be used
+     * by many {@link Queue}s instead of one DLX-{@link Queue} per
+     * {@link Queue} (see {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)})
+     *
+     * @param name
+     *            the name for the {@link TopicExchange} and the prefix for the
+     *            shared DLX-{@link Queue}s
+     * @param queues
+     *            the number of shared DLX-{@link Queue}s
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link TopicExchange} and the {@link Queue}s (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link SharedDlx} containing the {@link TopicExchange} and
+     *         the shared DLX-{@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static SharedDlx buildNonDurableSharedDlx(String name, int queues, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildSharedDlx(name, queues, false, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+    }
+
+    /**
+     * Builds a dead-letter-archive: a {@link SharedDlx} whose only
+     * DLX-{@link Queue} is a stream-{@link Queue} named '&lt;name&gt;.stream'
+     * bounded by the given retention ('x-max-age', 'x-max-length-bytes').
+     * {@link Queue}s dead-letter into it like into any {@link SharedDlx} (see
+     * {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)}), but reading the
+     * archive does not consume it, so dead letters can be inspected and
+     * replayed repeatedly from an offset or a timestamp (see
+     * {@link DlxArchiveReader})
+     *
+     * @param name
+     *            the name for the {@link TopicExchange} and the prefix for the
+     *            stream-{@link Queue}
+     * @param maxAge
+     *            the maximum age of the archived messages (at least one
+     *            second), older segments are deleted
+     * @param maxLengthBytes
+     *            the maximum size of the archive in bytes, the oldest segments
+     *            are deleted first
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the
+     *            {@link TopicExchange} and the stream-{@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link TopicExchange} and the stream-{@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link SharedDlx} containing the {@link TopicExchange} and
+     *         the stream-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static SharedDlx buildStreamDlxArchive(String name, Duration maxAge, long maxLengthBytes, Object adminThatShouldDeclare,
+            Object... furtherAdminsThatShouldDeclare)
+    {
+        Assert.isTrue(maxAge.getSeconds() > 0, "maxAge must be at least one second");
+        Assert.isTrue(maxLengthBytes > 0, "maxLengthBytes must be positive");
+        Object[] declaringAdmins = merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray();
+        TopicExchange exchange = new TopicExchange(name, true, false);
+        exchange.setAdminsThatShouldDeclare(declaringAdmins);
+
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put(QueueArguments.X_QUEUE_TYPE, QueueArguments.STREAM);
+        arguments.put(QueueArguments.X_MAX_AGE, maxAge.getSeconds() + "s");
+        arguments.put(QueueArguments.X_MAX_LENGTH_BYTES, Long.valueOf(maxLengthBytes));
+        Queue streamQueue = buildQueue(name + STREAM_NAME_SUFFIX, true, arguments, declaringAdmins);
+        return new SharedDlx(exchange, Collections.singletonList(streamQueue));
+    }
+
+    /**
+     * Builds an ephemeral, non-durable {@link Queue} of one
+     * application-instance (e.g. for replies or broadcasts) with a generated
+     * unique name, which the broker deletes after it was unused for the given
+     * time ('x-expires') and which dead-letters into the given
+     * {@link SharedDlx} instead of an own DLX-{@link Queue} (see
+     * {@link QueueWithDlxBuilder#ephemeral(String, Duration)})
+     *
+     * @param namePrefix
+     *            the prefix of the generated name
+     * @param expires
+     *            the time the {@link Queue} may be unused before the broker
+     *            deletes it
+     * @param sharedDlx
+     *            the {@link SharedDlx} to dead-letter into, must be registered
+     *            separately
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            {@link Queue} (see
+     *            {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     * @return the {@link QueueWithDlx} containing the ephemeral {@link Queue}
+     *         and its {@link Binding} to the {@link SharedDlx}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildEphemeralQueueWithSharedDlx(String namePrefix, Duration expires, SharedDlx sharedDlx, Object adminThatShouldDeclare,
+            Object... furtherAdminsThatShouldDeclare)
+    {
+        return QueueWithDlxBuilder.ephemeral(namePrefix, expires).declaredBy(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).withSharedDlx(sharedDlx).build();
+    }
+
+    private static Queue buildQueueWithDlx(String queueName, boolean durable, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        Queue queue = buildQueueWithDlxArguments(queueName, durable, adminThatShouldDeclare, furtherAdminsThatShouldDeclare);
+        buildDlxQueueFor(queue);
+        return queue;
+    }
+
+    private static Queue buildQueueWithDlxArguments(String queueName, boolean durable, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueue(queueName, durable, buildDlxArguments(queueName), merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray());
+    }
+
+    private static Queue buildDlxQueueFor(String queueName, boolean durable, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        return buildQueue(buildDlxQueueName(queueName), durable, buildDlxQueueArguments(QueueArguments.CLASSIC),
+                merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray());
+    }
+
+    private static PartitionedQueueWithDlx buildPartitionedQueueWithDlx(String name, int partitions, boolean durable, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        Assert.isTrue(partitions > 0, "partitions must be positive");
+        Object[] declaringAdmins = merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray();
+        CustomExchange exchange = new CustomExchange(name, PartitionedQueueWithDlx.CONSISTENT_HASH_EXCHANGE_TYPE, durable, false);
+        exchange.setAdminsThatShouldDeclare(declaringAdmins);
+
+        List<QueueWithDlx> partitionQueues = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++)
+        {
+            String partitionName = name + INDEX_NAME_SEPARATOR + i;
+            QueueWithDlxBuilder builder = durable ? QueueWithDlxBuilder.durable(partitionName) : QueueWithDlxBuilder.nonDurable(partitionName);
+            partitionQueues.add(builder.declaredBy(null, declaringAdmins).boundTo(exchange, PARTITION_BINDING_WEIGHT).build());
+        }
+        return new PartitionedQueueWithDlx(exchange, partitionQueues);
+    }
+
+    private static SharedDlx buildSharedDlx(String name, int queues, boolean durable, Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        Assert.isTrue(queues > 0, "queues must be positive");
+        Object[] declaringAdmins = merge(adminThatShouldDeclare, furtherAdminsThatShouldDeclare).toArray();
+        TopicExchange exchange = new TopicExchange(name, durable, false);
+        exchange.setAdminsThatShouldDeclare(declaringAdmins);
+
+        List<Queue> sharedQueues = new ArrayList<>(queues);
+        for (int i = 0; i < queues; i++)
+        {
+            sharedQueues.add(buildQueue(name + INDEX_NAME_SEPARATOR + i, durable, buildDlxQueueArguments(QueueArguments.CLASSIC), declaringAdmins));
+        }
+        return new SharedDlx(exchange, sharedQueues);
+    }
+
+    static Map<String, Object> buildDlxArguments(String queueName)
+    {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put(QueueArguments.X_DEAD_LETTER_EXCHANGE, "");
+        arguments.put(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, buildDlxQueueName(queueName));
+        return arguments;
+    }
+
+    static Map<String, Object> buildDlxQueueArguments(String queueType)
+    {
+        Map<String, Object> arguments = new HashMap<>();
+        if (queueType == null || QueueArguments.CLASSIC.equals(queueType))
+        {
+            arguments.put(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+        }
+        else
+        {
+            arguments.put(QueueArguments.X_QUEUE_TYPE, queueType);
+        }
+        return arguments;
+    }
+
+    static Map<String, Object> buildDlxQueueArguments(String queueType, Queue queue)
+    {
+        Map<String, Object> arguments = buildDlxQueueArguments(queueType);
+        copyInheritedArguments(queue.getArguments(), arguments);
+        return arguments;
+    }
+
+    /**
+     * Copies the arguments a DLX-{@link Queue} inherits from its
+     * {@link Queue}: the priorities ('x-max-priority'), as a {@link Queue}
+     * without priorities would deliver dead letters (and so replay them)
+     * regardless of their priority, and the placement-strategies
+     * ('x-queue-leader-locator', 'x-queue-master-locator'). Retry-{@link Queue}s
+     * only keep the placement-strategies
+     */
+    static void copyInheritedArguments(Map<String, Object> source, Map<String, Object> target)
+    {
+        for (String key : INHERITED_ARGUMENTS)
+        {
+            if (source.containsKey(key))
+            {
+                target.put(key, source.get(key));
+            }
+        }
+    }
+
+    static String buildDlxQueueName(String queueName)
+    {
+        return queueName + DLX_NAME_SUFFIX;
+    }
+
+    static Queue buildQueue(String name, boolean durable, Map<String, Object> arguments, Object[] adminsThatShouldDeclare)
+    {
+        return buildQueue(name, durable, false, false, arguments, adminsThatShouldDeclare);
+    }
+
+    static Queue buildQueue(String name, boolean durable, boolean exclusive, boolean autoDelete, Map<String, Object> arguments, Object[] adminsThatShouldDeclare)
+    {
+        QueueBuilder queueBuilder = durable ? QueueBuilder.durable(name) : QueueBuilder.nonDurable(name);
+        if (exclusive)
+        {
+            queueBuilder.exclusive();
+        }
+        if (autoDelete)
+        {
+            queueBuilder.autoDelete();
+        }
+        Queue queue = queueBuilder.withArguments(arguments).build();
+        queue.setAdminsThatShouldDeclare(adminsThatShouldDeclare);
+        QueueArguments.validate(queue);
+        return queue;
+    }
+
+    private static <T> List<T> merge(T value, T[] array)
+    {
+        List<T> list = new ArrayList<>(Arrays.asList(array));
+        if (value != null)
+        {
+            list.add(value);
+        }
+        return list;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.avides.spring.amqp.utils;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration registering the {@link Queue}s specified by the
+ * {@link AmqpUtilsProperties} (see {@link AmqpUtilsTopologyRegistrar})
+ *
+ * @since 1.1.0.RELEASE
+ */
+@Configuration
+@ConditionalOnClass(RabbitAdmin.class)
+public class AmqpUtilsAutoConfiguration
+{
+    /**
+     * @return the {@link AmqpUtilsTopologyRegistrar}, static as it is a
+     *         BeanDefinitionRegistryPostProcessor
+     *
+     * @since 1.1.0.RELEASE
+     */
+    @Bean
+    public static AmqpUtilsTopologyRegistrar amqpUtilsTopologyRegistrar()
+    {
+        return new AmqpUtilsTopologyRegistrar();
+    }
+}
@@ -0,0 +1,301 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * Properties ('amqp-utils') describing a topology of {@link Queue}s, which is
+ * registered by the {@link AmqpUtilsAutoConfiguration} without any
+ * bean-methods, e.g.:
+ *
+ * <pre>
+ * amqp-utils:
+ *   queues:
+ *     - name: queue.name
+ *       bindings:
+ *         - exchange: exchange.name
+ *           routing-key: routing.key
+ *       admins: rabbitAdmin
+ *     - name: other.queue.name
+ *       quorum: true
+ *       retry-tiers: 10s, 1m
+ *     - name: priority.queue.name
+ *       max-priority: 10
+ * </pre>
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class AmqpUtilsProperties
+{
+    /**
+     * Prefix of the properties
+     */
+    public static final String PREFIX = "amqp-utils";
+
+    private List<QueueSpec> queues = new ArrayList<>();
+
+    /**
+     * @return the {@link QueueSpec}s of the {@link Queue}s to register
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<QueueSpec> getQueues()
+    {
+        return queues;
+    }
+
+    /**
+     * @param queues
+     *            the {@link QueueSpec}s of the {@link Queue}s to register
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setQueues(List<QueueSpec> queues)
+    {
+        this.queues = queues;
+    }
+
+    /**
+     * Specification of a {@link Queue}, registered as {@link QueueWithDlx} (or,
+     * without DLX, as {@link Queue} and its {@link Binding}s) under the name of
+     * the {@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static class QueueSpec
+    {
+        private String name;
+
+        private boolean durable = true;
+
+        private boolean quorum;
+
+        private boolean dlx = true;
+
+        private Integer maxPriority;
+
+        private String leaderLocator;
+
+        private List<BindingSpec> bindings = new ArrayList<>();
+
+        private List<String> admins = new ArrayList<>();
+
+        private List<Duration> retryTiers = new ArrayList<>();
+
+        /**
+         * @return the name of the {@link Queue}
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @param name
+         *            the name of the {@link Queue}
+         */
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * @return whether the {@link Queue} is durable (default true)
+         */
+        public boolean isDurable()
+        {
+            return durable;
+        }
+
+        /**
+         * @param durable
+         *            whether the {@link Queue} is durable
+         */
+        public void setDurable(boolean durable)
+        {
+            this.durable = durable;
+        }
+
+        /**
+         * @return whether the {@link Queue} is a quorum-{@link Queue} (default
+         *         false)
+         */
+        public boolean isQuorum()
+        {
+            return quorum;
+        }
+
+        /**
+         * @param quorum
+         *            whether the {@link Queue} is a quorum-{@link Queue}
+         */
+        public void setQuorum(boolean quorum)
+        {
+            this.quorum = quorum;
+        }
+
+        /**
+         * @return the highest priority of the {@link Queue} and its
+         *         DLX-{@link Queue} (default null, no priority-{@link Queue})
+         */
+        public Integer getMaxPriority()
+        {
+            return maxPriority;
+        }
+
+        /**
+         * @param maxPriority
+         *            the highest priority of the {@link Queue} and its
+         *            DLX-{@link Queue}
+         */
+        public void setMaxPriority(Integer maxPriority)
+        {
+            this.maxPriority = maxPriority;
+        }
+
+        /**
+         * @return the strategy choosing the cluster-node of the {@link Queue}
+         *         and its DLX-{@link Queue} ('x-queue-leader-locator', default
+         *         null, the broker's default)
+         */
+        public String getLeaderLocator()
+        {
+            return leaderLocator;
+        }
+
+        /**
+         * @param leaderLocator
+         *            the strategy choosing the cluster-node of the
+         *            {@link Queue} and its DLX-{@link Queue}
+         */
+        public void setLeaderLocator(String leaderLocator)
+        {
+            this.leaderLocator = leaderLocator;
+        }
+
+        /**
+         * @return whether the {@link Queue} gets a DLX-{@link Queue} (default
+         *         true)
+         */
+        public boolean isDlx()
+        {
+            return dlx;
+        }
+
+        /**
+         * @param dlx
+         *            whether the {@link Queue} gets a DLX-{@link Queue}
+         */
+        public void setDlx(boolean dlx)
+        {
+            this.dlx = dlx;
+        }
+
+        /**
+         * @return the {@link Binding}s of the {@link Queue}
+         */
+        public List<BindingSpec> getBindings()
+        {
+            return bindings;
+        }
+
+        /**
+         * @param bindings
+         *            the {@link Binding}s of the {@link Queue}
+         */
+        public void setBindings(List<BindingSpec> bindings)
+        {
+            this.bindings = bindings;
+        }
+
+        /**
+         * @return the bean-names of the {@link AmqpAdmin}s that should declare
+         *         the {@link Queue}, all {@link AmqpAdmin}s if empty
+         */
+        public List<String> getAdmins()
+        {
+            return admins;
+        }
+
+        /**
+         * @param admins
+         *            the bean-names of the {@link AmqpAdmin}s that should
+         *            declare the {@link Queue}
+         */
+        public void setAdmins(List<String> admins)
+        {
+            this.admins = admins;
+        }
+
+        /**
+         * @return the delays of the retry-tiers (see
+         *         {@link QueueWithDlxBuilder#withRetryTiers(Duration, Duration...)})
+         */
+        public List<Duration> getRetryTiers()
+        {
+            return retryTiers;
+        }
+
+        /**
+         * @param retryTiers
+         *            the delays of the retry-tiers
+         */
+        public void setRetryTiers(List<Duration> retryTiers)
+        {
+            this.retryTiers = retryTiers;
+        }
+    }
+
+    /**
+     * Specification of a {@link Binding} of a {@link Queue} to an existing
+     * {@link Exchange}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static class BindingSpec
+    {
+        private String exchange;
+
+        private String routingKey = "";
+
+        /**
+         * @return the name of the {@link Exchange}
+         */
+        public String getExchange()
+        {
+            return exchange;
+        }
+
+        /**
+         * @param exchange
+         *            the name of the {@link Exchange}
+         */
+        public void setExchange(String exchange)
+        {
+            this.exchange = exchange;
+        }
+
+        /**
+         * @return the routing-key (default '')
+         */
+        public String getRoutingKey()
+        {
+            return routingKey;
+        }
+
+        /**
+         * @param routingKey
+         *            the routing-key
+         */
+        public void setRoutingKey(String routingKey)
+        {
+            this.routingKey = routingKey;
+        }
+    }
+}
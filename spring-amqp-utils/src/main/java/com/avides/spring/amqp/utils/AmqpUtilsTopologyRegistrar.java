@@ -0,0 +1,150 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.util.Assert;
+
+import com.avides.spring.amqp.utils.AmqpUtilsProperties.BindingSpec;
+import com.avides.spring.amqp.utils.AmqpUtilsProperties.QueueSpec;
+
+/**
+ * Registers the {@link Queue}s specified by the {@link AmqpUtilsProperties}
+ * directly as bean-definitions. All specifications are bound in one pass
+ * before any bean is created, each {@link Queue} is registered under its name
+ * with an instance-supplier, so neither bean-methods nor reflection are
+ * involved
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class AmqpUtilsTopologyRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware
+{
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment)
+    {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry)
+    {
+        AmqpUtilsProperties properties = Binder.get(environment).bind(AmqpUtilsProperties.PREFIX, AmqpUtilsProperties.class).orElseGet(AmqpUtilsProperties::new);
+        for (QueueSpec spec : properties.getQueues())
+        {
+            Assert.hasText(spec.getName(), "name of queue must not be empty");
+            Assert.isTrue(!registry.containsBeanDefinition(spec.getName()), "bean with name '" + spec.getName() + "' already exists");
+            if (spec.isDlx())
+            {
+                registry.registerBeanDefinition(spec.getName(), new RootBeanDefinition(QueueWithDlx.class, () -> buildQueueWithDlx(spec)));
+            }
+            else
+            {
+                Assert.isTrue(spec.getRetryTiers().isEmpty(), "retry-tiers of queue '" + spec.getName() + "' require a DLX");
+                registry.registerBeanDefinition(spec.getName(), new RootBeanDefinition(Declarables.class, () -> buildDeclarables(spec)));
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+    {
+        // all bean-definitions are registered in postProcessBeanDefinitionRegistry
+    }
+
+    /**
+     * Builds the {@link QueueWithDlx} of the given {@link QueueSpec}
+     *
+     * @param spec
+     *            the {@link QueueSpec}
+     * @return the {@link QueueWithDlx}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlx buildQueueWithDlx(QueueSpec spec)
+    {
+        QueueWithDlxBuilder builder;
+        if (spec.isQuorum())
+        {
+            builder = QueueWithDlxBuilder.quorum(spec.getName());
+        }
+        else
+        {
+            builder = spec.isDurable() ? QueueWithDlxBuilder.durable(spec.getName()) : QueueWithDlxBuilder.nonDurable(spec.getName());
+        }
+        builder.declaredBy(null, spec.getAdmins().toArray());
+        for (BindingSpec binding : spec.getBindings())
+        {
+            builder.boundTo(binding.getExchange(), binding.getRoutingKey());
+        }
+        if (spec.getMaxPriority() != null)
+        {
+            builder.withMaxPriority(spec.getMaxPriority().intValue());
+        }
+        if (spec.getLeaderLocator() != null)
+        {
+            builder.withLeaderLocator(spec.getLeaderLocator());
+        }
+        if (!spec.getRetryTiers().isEmpty())
+        {
+            List<Duration> retryTiers = spec.getRetryTiers();
+            builder.withRetryTiers(retryTiers.get(0), retryTiers.subList(1, retryTiers.size()).toArray(new Duration[retryTiers.size() - 1]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the {@link Queue} of the given {@link QueueSpec} without DLX and
+     * its {@link Binding}s
+     *
+     * @param spec
+     *            the {@link QueueSpec}
+     * @return the {@link Declarables} containing the {@link Queue} and its
+     *         {@link Binding}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static Declarables buildDeclarables(QueueSpec spec)
+    {
+        Object[] declaringAdmins = spec.getAdmins().toArray();
+        List<Declarable> declarables = new ArrayList<>(1 + spec.getBindings().size());
+        Map<String, Object> arguments = new HashMap<>();
+        if (spec.isQuorum())
+        {
+            arguments.put(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+        }
+        if (spec.getMaxPriority() != null)
+        {
+            arguments.put(QueueArguments.X_MAX_PRIORITY, spec.getMaxPriority());
+        }
+        if (spec.getLeaderLocator() != null)
+        {
+            arguments.put(QueueArguments.X_QUEUE_LEADER_LOCATOR, spec.getLeaderLocator());
+        }
+        declarables.add(AmqpUtils.buildQueue(spec.getName(), spec.isDurable() || spec.isQuorum(), arguments, declaringAdmins));
+        for (BindingSpec bindingSpec : spec.getBindings())
+        {
+            Binding binding = new Binding(spec.getName(), DestinationType.QUEUE, bindingSpec.getExchange(), bindingSpec.getRoutingKey(), Collections.emptyMap());
+            binding.setAdminsThatShouldDeclare(declaringAdmins);
+            declarables.add(binding);
+        }
+        return new Declarables(declarables);
+    }
+}
@@ -0,0 +1,356 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Listener-container handing batches of messages of a {@link QueueWithDlx} to
+ * a {@link BatchListener}. The messages the {@link BatchListener} reports as
+ * failed are rejected one by one into the DLX-{@link Queue}, all others are
+ * acknowledged with one multiple-ack, so a batch without failures costs one
+ * ack-frame and one poison-message does not dead-letter the whole batch
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class BatchDlxListenerContainer implements SmartLifecycle
+{
+    /**
+     * Listener for a batch of messages
+     *
+     * @since 1.1.0.RELEASE
+     */
+    @FunctionalInterface
+    public interface BatchListener
+    {
+        /**
+         * @param messages
+         *            the batch of messages in delivery-order
+         * @return the messages that failed and are rejected into the
+         *         DLX-{@link Queue}, null or empty if all succeeded
+         * @throws Exception
+         *             if the whole batch failed, it is rejected according to
+         *             {@link BatchDlxListenerContainer#setDefaultRequeueRejected(boolean)}
+         */
+        Collection<Message> onMessages(List<Message> messages) throws Exception;
+    }
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final ConnectionFactory connectionFactory;
+
+    private final String queueName;
+
+    private final BatchListener batchListener;
+
+    private int batchSize = 500;
+
+    private long receiveTimeout = 1000;
+
+    private long recoveryInterval = 5000;
+
+    private boolean defaultRequeueRejected = true;
+
+    private volatile boolean running;
+
+    private Thread consumerThread;
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to consume with
+     * @param queueWithDlx
+     *            the {@link QueueWithDlx} whose {@link Queue} is consumed
+     * @param batchListener
+     *            the {@link BatchListener}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public BatchDlxListenerContainer(ConnectionFactory connectionFactory, QueueWithDlx queueWithDlx, BatchListener batchListener)
+    {
+        this(connectionFactory, queueWithDlx.getQueue().getName(), batchListener);
+    }
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to consume with
+     * @param queueName
+     *            the name of the {@link Queue} to consume, should have a
+     *            DLX-{@link Queue} (see
+     *            {@link AmqpUtils#buildDurableQueueWithDlx(String, Object)})
+     * @param batchListener
+     *            the {@link BatchListener}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public BatchDlxListenerContainer(ConnectionFactory connectionFactory, String queueName, BatchListener batchListener)
+    {
+        Assert.notNull(connectionFactory, "connectionFactory must not be null");
+        Assert.hasText(queueName, "queueName must not be empty");
+        Assert.notNull(batchListener, "batchListener must not be null");
+        this.connectionFactory = connectionFactory;
+        this.queueName = queueName;
+        this.batchListener = batchListener;
+    }
+
+    /**
+     * @param batchSize
+     *            the maximum number of messages of a batch (default 500), the
+     *            prefetch is twice as high, so the next batch arrives while
+     *            the current one is processed
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setBatchSize(int batchSize)
+    {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param receiveTimeout
+     *            the maximum time in milliseconds to wait for the first
+     *            message of a batch, a batch is handed over as soon as no
+     *            further message is prefetched (default 1000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setReceiveTimeout(long receiveTimeout)
+    {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    /**
+     * @param recoveryInterval
+     *            the time in milliseconds to wait before consuming again after
+     *            the connection or channel failed (default 5000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setRecoveryInterval(long recoveryInterval)
+    {
+        this.recoveryInterval = recoveryInterval;
+    }
+
+    /**
+     * @param defaultRequeueRejected
+     *            whether a batch whose {@link BatchListener} throws is
+     *            requeued (default) or rejected into the DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setDefaultRequeueRejected(boolean defaultRequeueRejected)
+    {
+        this.defaultRequeueRejected = defaultRequeueRejected;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if (!running)
+        {
+            running = true;
+            consumerThread = new Thread(this::run, "batch-dlx-listener-" + queueName);
+            consumerThread.setDaemon(true);
+            consumerThread.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        if (running)
+        {
+            running = false;
+            try
+            {
+                consumerThread.join(receiveTimeout + recoveryInterval);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            consumerThread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup()
+    {
+        return true;
+    }
+
+    @Override
+    public void stop(Runnable callback)
+    {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public int getPhase()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    private void run()
+    {
+        while (running)
+        {
+            try
+            {
+                consume();
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    logger.warn("consuming '" + queueName + "' failed, retrying in " + recoveryInterval + "ms", e);
+                    sleep(recoveryInterval);
+                }
+            }
+        }
+    }
+
+    private void consume() throws Exception
+    {
+        Connection connection = connectionFactory.createConnection();
+        Channel channel = connection.createChannel(false);
+        try
+        {
+            BlockingQueue<Message> deliveries = new LinkedBlockingQueue<>();
+            channel.basicQos(batchSize * 2);
+            channel.basicConsume(queueName, false, new DefaultConsumer(channel)
+            {
+                @Override
+                public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body)
+                {
+                    Message message = new Message(body, messagePropertiesConverter.toMessageProperties(properties, envelope, "UTF-8"));
+                    message.getMessageProperties().setConsumerTag(consumerTag);
+                    message.getMessageProperties().setConsumerQueue(queueName);
+                    deliveries.add(message);
+                }
+            });
+
+            List<Message> batch = new ArrayList<>(batchSize);
+            while (running && channel.isOpen())
+            {
+                batch.clear();
+                Message message = deliveries.poll(receiveTimeout, TimeUnit.MILLISECONDS);
+                while (message != null)
+                {
+                    batch.add(message);
+                    message = batch.size() < batchSize ? deliveries.poll() : null;
+                }
+                if (!batch.isEmpty())
+                {
+                    process(channel, batch);
+                }
+            }
+        }
+        finally
+        {
+            // unacknowledged prefetched messages are requeued by the broker
+            RabbitUtils.setPhysicalCloseRequired(channel, true);
+            RabbitUtils.closeChannel(channel);
+            RabbitUtils.closeConnection(connection);
+        }
+    }
+
+    private void process(Channel channel, List<Message> batch) throws IOException
+    {
+        long lastDeliveryTag = batch.get(batch.size() - 1).getMessageProperties().getDeliveryTag();
+        Collection<Message> failedMessages;
+        try
+        {
+            failedMessages = batchListener.onMessages(new ArrayList<>(batch));
+        }
+        catch (Exception e)
+        {
+            logger.warn("listener of '" + queueName + "' failed for a batch of " + batch.size() + " messages", e);
+            channel.basicNack(lastDeliveryTag, true, defaultRequeueRejected);
+            return;
+        }
+        Set<Long> failedDeliveryTags = new HashSet<>();
+        if (failedMessages != null)
+        {
+            for (Message failedMessage : failedMessages)
+            {
+                failedDeliveryTags.add(Long.valueOf(failedMessage.getMessageProperties().getDeliveryTag()));
+            }
+        }
+        List<Long> deliveryTags = new ArrayList<>(batch.size());
+        for (Message message : batch)
+        {
+            deliveryTags.add(Long.valueOf(message.getMessageProperties().getDeliveryTag()));
+        }
+        acknowledge(channel, deliveryTags, failedDeliveryTags);
+    }
+
+    /**
+     * Rejects the failed delivery-tags one by one without requeue and then
+     * acknowledges all others with one multiple-ack up to the highest
+     * succeeded delivery-tag
+     */
+    static void acknowledge(Channel channel, List<Long> deliveryTags, Set<Long> failedDeliveryTags) throws IOException
+    {
+        long highestSucceededDeliveryTag = -1;
+        for (Long deliveryTag : deliveryTags)
+        {
+            if (failedDeliveryTags.contains(deliveryTag))
+            {
+                channel.basicReject(deliveryTag.longValue(), false);
+            }
+            else
+            {
+                highestSucceededDeliveryTag = Math.max(highestSucceededDeliveryTag, deliveryTag.longValue());
+            }
+        }
+        if (highestSucceededDeliveryTag >= 0)
+        {
+            channel.basicAck(highestSucceededDeliveryTag, true);
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Publisher for {@link Queue}s with DLX-{@link Queue}s that pipelines
+ * publisher-confirms instead of waiting for each of them: up to
+ * {@link #setWindowSize(int)} messages may be unconfirmed on the one
+ * publish-channel, each publish returns a {@link CompletableFuture} completed
+ * by the confirm. The outstanding messages are kept sorted by delivery-tag per
+ * publish-channel (the delivery-tags restart with each channel), so a
+ * multiple-ack confirms all messages up to its delivery-tag with one
+ * range-removal. Messages the broker nacks or returns (e.g. because the
+ * {@link Queue} is full with 'x-overflow'='reject-publish') are republished to
+ * the DLX-{@link Queue} of their {@link Queue} ('&lt;queueName&gt;.dlx'), so
+ * they are parked instead of lost
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class ConfirmPipeliningPublisher implements DisposableBean
+{
+    /**
+     * @since 1.1.0.RELEASE
+     */
+    public enum Outcome
+    {
+        /**
+         * the message was confirmed by its {@link Queue}
+         */
+        CONFIRMED,
+
+        /**
+         * the message was nacked or returned and confirmed by the
+         * DLX-{@link Queue} of its {@link Queue}
+         */
+        DEAD_LETTERED
+    }
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final ConnectionFactory connectionFactory;
+
+    private final ExecutorService deadLetterExecutor;
+
+    private final Object publishMonitor = new Object();
+
+    private int windowSize = 1000;
+
+    private long publishTimeout = 10000;
+
+    private volatile Semaphore window = new Semaphore(windowSize);
+
+    private Connection connection;
+
+    private Channel channel;
+
+    private ConcurrentNavigableMap<Long, PendingConfirm> pendingConfirms;
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to create the publish-channel
+     *            with
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public ConfirmPipeliningPublisher(ConnectionFactory connectionFactory)
+    {
+        Assert.notNull(connectionFactory, "connectionFactory must not be null");
+        this.connectionFactory = connectionFactory;
+        deadLetterExecutor = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "confirm-pipelining-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param windowSize
+     *            the maximum number of unconfirmed messages (default 1000), a
+     *            publish blocks while the window is full
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setWindowSize(int windowSize)
+    {
+        Assert.isTrue(windowSize > 0, "windowSize must be positive");
+        synchronized (publishMonitor)
+        {
+            Assert.state(channel == null, "windowSize must be set before the first publish");
+            this.windowSize = windowSize;
+            window = new Semaphore(windowSize);
+        }
+    }
+
+    /**
+     * @param publishTimeout
+     *            the maximum time in milliseconds a publish waits for a free
+     *            slot in the window (default 10000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setPublishTimeout(long publishTimeout)
+    {
+        this.publishTimeout = publishTimeout;
+    }
+
+    /**
+     * @return the number of published messages whose confirm is outstanding
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getOutstandingConfirms()
+    {
+        return windowSize - window.availablePermits();
+    }
+
+    /**
+     * Publishes the given message to the {@link Queue} of the given
+     * {@link QueueWithDlx}
+     *
+     * @param queueWithDlx
+     *            the {@link QueueWithDlx} to publish to
+     * @param message
+     *            the message to publish
+     * @return the {@link CompletableFuture} completed with the
+     *         {@link Outcome} or exceptionally if neither the {@link Queue}
+     *         nor its DLX-{@link Queue} confirmed the message
+     * @throws AmqpException
+     *             if the window stayed full for the publish-timeout or the
+     *             publish failed
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public CompletableFuture<Outcome> publish(QueueWithDlx queueWithDlx, Message message)
+    {
+        return publish(queueWithDlx.getQueue().getName(), message);
+    }
+
+    /**
+     * Publishes the given message to the {@link Queue} with the given name
+     * (via the default-exchange)
+     *
+     * @param queueName
+     *            the name of the {@link Queue} to publish to, its
+     *            DLX-{@link Queue} must be named '&lt;queueName&gt;.dlx'
+     * @param message
+     *            the message to publish
+     * @return the {@link CompletableFuture} completed with the
+     *         {@link Outcome} or exceptionally if neither the {@link Queue}
+     *         nor its DLX-{@link Queue} confirmed the message
+     * @throws AmqpException
+     *             if the window stayed full for the publish-timeout or the
+     *             publish failed
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public CompletableFuture<Outcome> publish(String queueName, Message message)
+    {
+        Semaphore currentWindow = window;
+        try
+        {
+            if (!currentWindow.tryAcquire(publishTimeout, TimeUnit.MILLISECONDS))
+            {
+                throw new AmqpException("publish to '" + queueName + "' timed out, " + getOutstandingConfirms() + " confirms are outstanding");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("publish to '" + queueName + "' interrupted", e);
+        }
+        BasicProperties properties = messagePropertiesConverter.fromMessageProperties(message.getMessageProperties(), "UTF-8");
+        PendingConfirm pendingConfirm = new PendingConfirm(queueName, properties, message.getBody(), new CompletableFuture<>(), currentWindow, false);
+        try
+        {
+            send(pendingConfirm);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            currentWindow.release();
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+        return pendingConfirm.future;
+    }
+
+    private void send(PendingConfirm pendingConfirm) throws IOException
+    {
+        synchronized (publishMonitor)
+        {
+            Channel publishChannel = obtainChannel();
+            long deliveryTag = publishChannel.getNextPublishSeqNo();
+            pendingConfirms.put(Long.valueOf(deliveryTag), pendingConfirm);
+            String routingKey = pendingConfirm.deadLetter ? AmqpUtils.buildDlxQueueName(pendingConfirm.queueName) : pendingConfirm.queueName;
+            try
+            {
+                publishChannel.basicPublish("", routingKey, true, withCorrelation(pendingConfirm.properties, deliveryTag), pendingConfirm.body);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                pendingConfirms.remove(Long.valueOf(deliveryTag));
+                throw e;
+            }
+        }
+    }
+
+    private Channel obtainChannel() throws IOException
+    {
+        if (channel == null || !channel.isOpen())
+        {
+            connection = connectionFactory.createConnection();
+            Channel newChannel = connection.createChannel(false);
+            // the listeners of a channel only see its own confirms, the shutdown of an old channel must not fail the confirms of the new one
+            ConcurrentNavigableMap<Long, PendingConfirm> channelPendingConfirms = new ConcurrentSkipListMap<>();
+            newChannel.confirmSelect();
+            newChannel.addConfirmListener((deliveryTag, multiple) -> confirm(channelPendingConfirms, deliveryTag, multiple, true),
+                    (deliveryTag, multiple) -> confirm(channelPendingConfirms, deliveryTag, multiple, false));
+            newChannel.addReturnListener(returned -> returned(channelPendingConfirms, returned));
+            newChannel.addShutdownListener(cause -> shutdown(channelPendingConfirms, cause));
+            channel = newChannel;
+            pendingConfirms = channelPendingConfirms;
+        }
+        return channel;
+    }
+
+    private static BasicProperties withCorrelation(BasicProperties properties, long deliveryTag)
+    {
+        Map<String, Object> headers = properties.getHeaders() == null ? new HashMap<>() : new HashMap<>(properties.getHeaders());
+        headers.put(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY, Long.toString(deliveryTag));
+        return properties.builder().headers(headers).build();
+    }
+
+    private void confirm(ConcurrentNavigableMap<Long, PendingConfirm> pendingConfirms, long deliveryTag, boolean multiple, boolean ack)
+    {
+        if (multiple)
+        {
+            ConcurrentNavigableMap<Long, PendingConfirm> confirmed = pendingConfirms.headMap(Long.valueOf(deliveryTag), true);
+            for (PendingConfirm pendingConfirm : confirmed.values())
+            {
+                complete(pendingConfirm, ack);
+            }
+            confirmed.clear();
+        }
+        else
+        {
+            PendingConfirm pendingConfirm = pendingConfirms.remove(Long.valueOf(deliveryTag));
+            if (pendingConfirm != null)
+            {
+                complete(pendingConfirm, ack);
+            }
+        }
+    }
+
+    private static void returned(ConcurrentNavigableMap<Long, PendingConfirm> pendingConfirms, Return returned)
+    {
+        Object correlation = returned.getProperties().getHeaders() == null ? null
+                : returned.getProperties().getHeaders().get(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY);
+        if (correlation != null)
+        {
+            // the return of a message always arrives before its ack
+            PendingConfirm pendingConfirm = pendingConfirms.get(Long.valueOf(correlation.toString()));
+            if (pendingConfirm != null)
+            {
+                pendingConfirm.returned = true;
+            }
+        }
+    }
+
+    private void complete(PendingConfirm pendingConfirm, boolean ack)
+    {
+        if (ack && !pendingConfirm.returned)
+        {
+            pendingConfirm.window.release();
+            pendingConfirm.future.complete(pendingConfirm.deadLetter ? Outcome.DEAD_LETTERED : Outcome.CONFIRMED);
+        }
+        else if (pendingConfirm.deadLetter)
+        {
+            fail(pendingConfirm, new AmqpException("message to '" + pendingConfirm.queueName + "' was rejected by its DLX-queue too"));
+        }
+        else
+        {
+            // publishing from the connection-thread delivering the confirms could block it
+            PendingConfirm deadLetter = new PendingConfirm(pendingConfirm.queueName, pendingConfirm.properties, pendingConfirm.body, pendingConfirm.future,
+                    pendingConfirm.window, true);
+            deadLetterExecutor.execute(() -> sendDeadLetter(deadLetter));
+        }
+    }
+
+    private void sendDeadLetter(PendingConfirm deadLetter)
+    {
+        try
+        {
+            send(deadLetter);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            fail(deadLetter, RabbitExceptionTranslator.convertRabbitAccessException(e));
+        }
+    }
+
+    private void shutdown(ConcurrentNavigableMap<Long, PendingConfirm> pendingConfirms, ShutdownSignalException cause)
+    {
+        if (!cause.isInitiatedByApplication())
+        {
+            logger.warn("publish-channel closed, failing " + pendingConfirms.size() + " outstanding confirms", cause);
+        }
+        for (Long deliveryTag : pendingConfirms.keySet())
+        {
+            PendingConfirm pendingConfirm = pendingConfirms.remove(deliveryTag);
+            if (pendingConfirm != null)
+            {
+                fail(pendingConfirm, new AmqpException("publish-channel closed before the message to '" + pendingConfirm.queueName + "' was confirmed", cause));
+            }
+        }
+    }
+
+    private static void fail(PendingConfirm pendingConfirm, RuntimeException exception)
+    {
+        pendingConfirm.window.release();
+        pendingConfirm.future.completeExceptionally(exception);
+    }
+
+    @Override
+    public void destroy()
+    {
+        synchronized (publishMonitor)
+        {
+            if (channel != null)
+            {
+                RabbitUtils.setPhysicalCloseRequired(channel, true);
+                RabbitUtils.closeChannel(channel);
+                RabbitUtils.closeConnection(connection);
+                channel = null;
+            }
+        }
+        deadLetterExecutor.shutdown();
+    }
+
+    private static final class PendingConfirm
+    {
+        private final String queueName;
+
+        private final BasicProperties properties;
+
+        private final byte[] body;
+
+        private final CompletableFuture<Outcome> future;
+
+        private final Semaphore window;
+
+        private final boolean deadLetter;
+
+        private volatile boolean returned;
+
+        private PendingConfirm(String queueName, BasicProperties properties, byte[] body, CompletableFuture<Outcome> future, Semaphore window, boolean deadLetter)
+        {
+            this.queueName = queueName;
+            this.properties = properties;
+            this.body = body;
+            this.future = future;
+            this.window = window;
+            this.deadLetter = deadLetter;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Listener-container settings derived from the arguments of a {@link Queue}
+ * built by {@link AmqpUtils} or {@link QueueWithDlxBuilder}, so prefetch,
+ * concurrency and acknowledgement cannot drift away from the {@link Queue}
+ * they consume. Starting from the {@link Preset}, the prefetch is capped for
+ * bounded {@link Queue}s ('x-max-length', a quarter of the bound is shared by
+ * all consumers, so rejected messages are not cycled into the DLX by the
+ * overflow) and for priority-{@link Queue}s (prefetched messages bypass the
+ * priorities), and rejected messages are not requeued if the {@link Queue}
+ * has a DLX-{@link Queue}
+ *
+ * @since 1.1.0.RELEASE
+ */
+public final class ConsumerProfile
+{
+    /**
+     * @since 1.1.0.RELEASE
+     */
+    public enum Preset
+    {
+        /**
+         * high prefetch and batched acknowledgements on few consumers
+         */
+        THROUGHPUT(250, 25, 1, 4),
+
+        /**
+         * low prefetch and one acknowledgement per message on more consumers,
+         * so no message waits behind a long prefetch-buffer
+         */
+        LATENCY(5, 1, 4, 8);
+
+        private final int prefetchCount;
+
+        private final int txSize;
+
+        private final int concurrentConsumers;
+
+        private final int maxConcurrentConsumers;
+
+        Preset(int prefetchCount, int txSize, int concurrentConsumers, int maxConcurrentConsumers)
+        {
+            this.prefetchCount = prefetchCount;
+            this.txSize = txSize;
+            this.concurrentConsumers = concurrentConsumers;
+            this.maxConcurrentConsumers = maxConcurrentConsumers;
+        }
+    }
+
+    static final int PRIORITY_PREFETCH_LIMIT = 10;
+
+    private static final int MAX_LENGTH_SHARE = 4;
+
+    private final Queue queue;
+
+    private final Preset preset;
+
+    private final int concurrentConsumers;
+
+    private final int maxConcurrentConsumers;
+
+    private final int prefetchCount;
+
+    private final int txSize;
+
+    private final boolean defaultRequeueRejected;
+
+    private ConsumerProfile(Queue queue, Preset preset, int concurrentConsumers, int maxConcurrentConsumers)
+    {
+        Map<String, Object> arguments = queue.getArguments();
+        Assert.isTrue(!QueueArguments.STREAM.equals(arguments.get(QueueArguments.X_QUEUE_TYPE)),
+                () -> "stream-queue '" + queue.getName() + "' is not consumed by listener-containers, read it with the DlxArchiveReader");
+        this.queue = queue;
+        this.preset = preset;
+        this.concurrentConsumers = concurrentConsumers;
+        this.maxConcurrentConsumers = maxConcurrentConsumers;
+
+        int prefetch = preset.prefetchCount;
+        if (arguments.get(QueueArguments.X_MAX_LENGTH) instanceof Number)
+        {
+            long maxLength = ((Number) arguments.get(QueueArguments.X_MAX_LENGTH)).longValue();
+            prefetch = (int) Math.min(prefetch, Math.max(1, maxLength / (MAX_LENGTH_SHARE * maxConcurrentConsumers)));
+        }
+        if (arguments.containsKey(QueueArguments.X_MAX_PRIORITY))
+        {
+            prefetch = Math.min(prefetch, PRIORITY_PREFETCH_LIMIT);
+        }
+        prefetchCount = prefetch;
+        txSize = Math.min(preset.txSize, prefetch);
+        defaultRequeueRejected = !arguments.containsKey(QueueArguments.X_DEAD_LETTER_EXCHANGE);
+    }
+
+    /**
+     * @param queue
+     *            the {@link Queue} to consume
+     * @param preset
+     *            the {@link Preset} to start from
+     * @return the {@link ConsumerProfile} of the {@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static ConsumerProfile of(Queue queue, Preset preset)
+    {
+        Assert.notNull(queue, "queue must not be null");
+        Assert.notNull(preset, "preset must not be null");
+        return new ConsumerProfile(queue, preset, preset.concurrentConsumers, preset.maxConcurrentConsumers);
+    }
+
+    /**
+     * @param queueWithDlx
+     *            the {@link QueueWithDlx} whose {@link Queue} to consume
+     * @param preset
+     *            the {@link Preset} to start from
+     * @return the {@link ConsumerProfile} of the {@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static ConsumerProfile of(QueueWithDlx queueWithDlx, Preset preset)
+    {
+        return of(queueWithDlx.getQueue(), preset);
+    }
+
+    /**
+     * @param concurrentConsumers
+     *            the number of consumers to start with
+     * @param maxConcurrentConsumers
+     *            the maximum number of consumers, the prefetch of bounded
+     *            {@link Queue}s is derived from it
+     * @return a copy of this {@link ConsumerProfile} with the given
+     *         concurrency instead of the one of the {@link Preset}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public ConsumerProfile withConcurrency(int concurrentConsumers, int maxConcurrentConsumers)
+    {
+        Assert.isTrue(concurrentConsumers > 0, "concurrentConsumers must be positive");
+        Assert.isTrue(maxConcurrentConsumers >= concurrentConsumers, "maxConcurrentConsumers must not be less than concurrentConsumers");
+        return new ConsumerProfile(queue, preset, concurrentConsumers, maxConcurrentConsumers);
+    }
+
+    /**
+     * Applies prefetch, concurrency, acknowledgements and requeueing of this
+     * {@link ConsumerProfile} to the given factory
+     *
+     * @param factory
+     *            the {@link SimpleRabbitListenerContainerFactory} to
+     *            configure
+     * @return the given factory
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public SimpleRabbitListenerContainerFactory configure(SimpleRabbitListenerContainerFactory factory)
+    {
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setPrefetchCount(Integer.valueOf(prefetchCount));
+        factory.setTxSize(Integer.valueOf(txSize));
+        factory.setConcurrentConsumers(Integer.valueOf(concurrentConsumers));
+        factory.setMaxConcurrentConsumers(Integer.valueOf(maxConcurrentConsumers));
+        factory.setDefaultRequeueRejected(Boolean.valueOf(defaultRequeueRejected));
+        return factory;
+    }
+
+    /**
+     * Applies prefetch, concurrency (the consumers per {@link Queue} are
+     * fixed, so concurrentConsumers), acknowledgements and requeueing of this
+     * {@link ConsumerProfile} to the given factory
+     *
+     * @param factory
+     *            the {@link DirectRabbitListenerContainerFactory} to
+     *            configure
+     * @return the given factory
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DirectRabbitListenerContainerFactory configure(DirectRabbitListenerContainerFactory factory)
+    {
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setPrefetchCount(Integer.valueOf(prefetchCount));
+        factory.setConsumersPerQueue(Integer.valueOf(concurrentConsumers));
+        factory.setDefaultRequeueRejected(Boolean.valueOf(defaultRequeueRejected));
+        return factory;
+    }
+
+    /**
+     * Builds an {@link AdaptivePrefetch} between 1 and the prefetch of this
+     * {@link ConsumerProfile}, add it to the advice-chain of the
+     * listener-containers
+     *
+     * @param targetLatency
+     *            the maximum time a message should wait in the
+     *            prefetch-buffer of a consumer
+     * @return the {@link AdaptivePrefetch}
+     * @throws IllegalArgumentException
+     *             if the {@link Queue} is a quorum-queue, which does not
+     *             support the channel-wide prefetch (stream-queues are
+     *             already rejected by {@link #of(Queue, Preset)})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public AdaptivePrefetch buildAdaptivePrefetch(Duration targetLatency)
+    {
+        Assert.isTrue(!QueueArguments.QUORUM.equals(queue.getArguments().get(QueueArguments.X_QUEUE_TYPE)),
+                () -> "adaptive prefetch is not supported by quorum-queue '" + queue.getName() + "'");
+        return new AdaptivePrefetch(1, prefetchCount, targetLatency);
+    }
+
+    /**
+     * @return the prefetch per consumer
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getPrefetchCount()
+    {
+        return prefetchCount;
+    }
+
+    /**
+     * @return the number of messages acknowledged with one multiple-ack
+     *         (SimpleMessageListenerContainer only)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getTxSize()
+    {
+        return txSize;
+    }
+
+    /**
+     * @return the number of consumers to start with
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getConcurrentConsumers()
+    {
+        return concurrentConsumers;
+    }
+
+    /**
+     * @return the maximum number of consumers
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public int getMaxConcurrentConsumers()
+    {
+        return maxConcurrentConsumers;
+    }
+
+    /**
+     * @return false if rejected messages are dead-lettered instead of
+     *         requeued
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isDefaultRequeueRejected()
+    {
+        return defaultRequeueRejected;
+    }
+}
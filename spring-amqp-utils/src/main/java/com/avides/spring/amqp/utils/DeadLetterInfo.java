@@ -0,0 +1,338 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * Typed view on the 'x-death'-header of a dead-lettered message. The header
+ * is not copied, the entries are decoded lazily when they are accessed, so
+ * building a {@link DeadLetterInfo} costs one small object per message (none
+ * for messages that were never dead-lettered). The 'latest' death is the first
+ * entry of the 'x-death'-header, as RabbitMQ moves the entry of the most
+ * recent dead-lettering to the front. Works with the headers converted by
+ * Spring AMQP as well as with the raw headers of the RabbitMQ-client
+ *
+ * @since 1.1.0.RELEASE
+ */
+public final class DeadLetterInfo
+{
+    private static final String X_DEATH = "x-death";
+
+    private static final String X_FIRST_DEATH_QUEUE = "x-first-death-queue";
+
+    private static final String X_FIRST_DEATH_REASON = "x-first-death-reason";
+
+    private static final String X_FIRST_DEATH_EXCHANGE = "x-first-death-exchange";
+
+    private static final String QUEUE = "queue";
+
+    private static final String REASON = "reason";
+
+    private static final String EXCHANGE = "exchange";
+
+    private static final String ROUTING_KEYS = "routing-keys";
+
+    private static final String COUNT = "count";
+
+    private static final String TIME = "time";
+
+    private static final DeadLetterInfo NONE = new DeadLetterInfo(Collections.emptyMap(), Collections.emptyList());
+
+    private final Map<String, ?> headers;
+
+    private final List<?> deaths;
+
+    private long deathCount = -1;
+
+    private DeadLetterInfo(Map<String, ?> headers, List<?> deaths)
+    {
+        this.headers = headers;
+        this.deaths = deaths;
+    }
+
+    /**
+     * @param message
+     *            the consumed message
+     * @return the {@link DeadLetterInfo} of the message
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static DeadLetterInfo of(Message message)
+    {
+        return of(message.getMessageProperties());
+    }
+
+    /**
+     * @param messageProperties
+     *            the {@link MessageProperties} of the consumed message
+     * @return the {@link DeadLetterInfo} of the message
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static DeadLetterInfo of(MessageProperties messageProperties)
+    {
+        return of(messageProperties.getHeaders());
+    }
+
+    /**
+     * @param headers
+     *            the headers of the consumed message, may be null
+     * @return the {@link DeadLetterInfo} of the message
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static DeadLetterInfo of(Map<String, ?> headers)
+    {
+        Object xDeath = headers == null ? null : headers.get(X_DEATH);
+        if (xDeath instanceof List && !((List<?>) xDeath).isEmpty())
+        {
+            return new DeadLetterInfo(headers, (List<?>) xDeath);
+        }
+        return NONE;
+    }
+
+    /**
+     * @return true if the message was dead-lettered at least once
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isDeadLettered()
+    {
+        return !deaths.isEmpty();
+    }
+
+    /**
+     * @return how often the message was dead-lettered, summed up over all
+     *         {@link Queue}s and reasons
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long getDeathCount()
+    {
+        if (deathCount < 0)
+        {
+            long count = 0;
+            for (int i = 0; i < deaths.size(); i++)
+            {
+                count += count(deaths.get(i));
+            }
+            deathCount = count;
+        }
+        return deathCount;
+    }
+
+    /**
+     * @param queueName
+     *            the name of the {@link Queue}
+     * @return how often the message was dead-lettered by the {@link Queue}
+     *         with the given name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long getDeathCount(String queueName)
+    {
+        long count = 0;
+        for (int i = 0; i < deaths.size(); i++)
+        {
+            Object death = deaths.get(i);
+            if (matches(get(death, QUEUE), queueName))
+            {
+                count += count(death);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param queueNames
+     *            the names of the {@link Queue}s
+     * @return how often the message was dead-lettered by the {@link Queue}s
+     *         with the given names
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long getDeathCount(List<String> queueNames)
+    {
+        long count = 0;
+        for (int i = 0; i < queueNames.size(); i++)
+        {
+            count += getDeathCount(queueNames.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * @return the reason of the latest dead-lettering ('rejected', 'expired',
+     *         'maxlen' or 'delivery_limit'), null if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getReason()
+    {
+        return getLatest(REASON);
+    }
+
+    /**
+     * @return the name of the {@link Queue} that dead-lettered the message
+     *         latest, null if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getQueue()
+    {
+        return getLatest(QUEUE);
+    }
+
+    /**
+     * @return the exchange the message was published to before the latest
+     *         dead-lettering, null if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getExchange()
+    {
+        return getLatest(EXCHANGE);
+    }
+
+    /**
+     * @return the routing-keys the message was published with before the
+     *         latest dead-lettering, empty if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getRoutingKeys()
+    {
+        Object routingKeys = deaths.isEmpty() ? null : get(deaths.get(0), ROUTING_KEYS);
+        if (!(routingKeys instanceof List))
+        {
+            return Collections.emptyList();
+        }
+        List<?> keys = (List<?>) routingKeys;
+        for (int i = 0; i < keys.size(); i++)
+        {
+            if (!(keys.get(i) instanceof String))
+            {
+                List<String> decoded = new ArrayList<>(keys.size());
+                for (Object key : keys)
+                {
+                    decoded.add(String.valueOf(key));
+                }
+                return decoded;
+            }
+        }
+        return (List<String>) keys;
+    }
+
+    /**
+     * @return the time of the latest dead-lettering, null if never
+     *         dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Date getTime()
+    {
+        Object time = deaths.isEmpty() ? null : get(deaths.get(0), TIME);
+        return time instanceof Date ? (Date) time : null;
+    }
+
+    /**
+     * @return the name of the {@link Queue} that dead-lettered the message
+     *         first, null if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getFirstDeathQueue()
+    {
+        return getFirst(X_FIRST_DEATH_QUEUE, QUEUE);
+    }
+
+    /**
+     * @return the reason of the first dead-lettering, null if never
+     *         dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getFirstDeathReason()
+    {
+        return getFirst(X_FIRST_DEATH_REASON, REASON);
+    }
+
+    /**
+     * @return the exchange the message was published to before the first
+     *         dead-lettering, null if never dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getFirstDeathExchange()
+    {
+        return getFirst(X_FIRST_DEATH_EXCHANGE, EXCHANGE);
+    }
+
+    /**
+     * @return the time of the first dead-lettering, null if never
+     *         dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Date getFirstDeathTime()
+    {
+        Date firstDeathTime = null;
+        for (int i = 0; i < deaths.size(); i++)
+        {
+            Object time = get(deaths.get(i), TIME);
+            if (time instanceof Date && (firstDeathTime == null || ((Date) time).before(firstDeathTime)))
+            {
+                firstDeathTime = (Date) time;
+            }
+        }
+        return firstDeathTime;
+    }
+
+    private String getLatest(String key)
+    {
+        return deaths.isEmpty() ? null : toString(get(deaths.get(0), key));
+    }
+
+    private String getFirst(String header, String key)
+    {
+        Object value = headers.get(header);
+        if (value != null)
+        {
+            return toString(value);
+        }
+        return deaths.isEmpty() ? null : toString(get(deaths.get(deaths.size() - 1), key));
+    }
+
+    private static Object get(Object death, String key)
+    {
+        return death instanceof Map ? ((Map<?, ?>) death).get(key) : null;
+    }
+
+    private static long count(Object death)
+    {
+        Object count = get(death, COUNT);
+        return count instanceof Number ? ((Number) count).longValue() : 0;
+    }
+
+    private static boolean matches(Object value, String expected)
+    {
+        if (value instanceof String)
+        {
+            return value.equals(expected);
+        }
+        return value != null && value.toString().equals(expected);
+    }
+
+    private static String toString(Object value)
+    {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,263 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.Queue;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer-metrics for dead-lettering, only available with micrometer-core
+ * on the classpath:
+ * <ul>
+ * <li><code>amqp.queue.depth</code>: ready messages of every {@link Queue} of
+ * the {@link QueueDepthMonitor} (including the DLX-{@link Queue}s and the
+ * ones monitored after {@link #bindTo(MeterRegistry)}), read from its
+ * cache</li>
+ * <li><code>amqp.dead.letters</code>: dead-lettered messages by origin
+ * {@link Queue} and <code>x-death</code> reason, counted by
+ * {@link #deadLetterCounter()}</li>
+ * <li><code>amqp.listener.rejections</code>: messages rejected by a listener,
+ * counted by {@link #rejectionCounter()}</li>
+ * </ul>
+ * The counters are {@link LongAdder}s, so concurrent consumers do not contend
+ * on them
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DeadLetterMetrics implements MeterBinder
+{
+    private static final String UNKNOWN = "unknown";
+
+    private final QueueDepthMonitor queueDepthMonitor;
+
+    private final Map<Tags, LongAdder> deadLetters = new ConcurrentHashMap<>();
+
+    private final Map<Tags, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    /**
+     * Without <code>amqp.queue.depth</code>-gauges
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DeadLetterMetrics()
+    {
+        this.queueDepthMonitor = null;
+    }
+
+    /**
+     * @param queueDepthMonitor
+     *            the {@link QueueDepthMonitor} whose {@link Queue}s get a
+     *            <code>amqp.queue.depth</code>-gauge
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DeadLetterMetrics(QueueDepthMonitor queueDepthMonitor)
+    {
+        Assert.notNull(queueDepthMonitor, "queueDepthMonitor must not be null");
+        this.queueDepthMonitor = queueDepthMonitor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry)
+    {
+        if (queueDepthMonitor != null)
+        {
+            // registered first, so no queue monitored meanwhile is missed (registering a gauge twice returns the existing one)
+            queueDepthMonitor.addMonitorListener(queueName -> registerQueueDepthGauge(meterRegistry, queueName));
+            for (String queueName : queueDepthMonitor.getQueueNames())
+            {
+                registerQueueDepthGauge(meterRegistry, queueName);
+            }
+        }
+        registry = meterRegistry;
+        for (Entry<Tags, LongAdder> entry : deadLetters.entrySet())
+        {
+            registerDeadLetterCounter(meterRegistry, entry.getKey(), entry.getValue());
+        }
+        for (Entry<Tags, LongAdder> entry : rejections.entrySet())
+        {
+            registerRejectionCounter(meterRegistry, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Counts a dead-lettered message by the origin {@link Queue} and the reason
+     * of its last <code>x-death</code> entry, messages that were never
+     * dead-lettered are ignored
+     *
+     * @param message
+     *            the received message
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void recordDeadLetter(Message message)
+    {
+        DeadLetterInfo deadLetterInfo = DeadLetterInfo.of(message);
+        if (deadLetterInfo.isDeadLettered())
+        {
+            Tags tags = Tags.of("queue", valueOrUnknown(deadLetterInfo.getQueue()), "reason", valueOrUnknown(deadLetterInfo.getReason()));
+            LongAdder counter = deadLetters.get(tags);
+            if (counter == null)
+            {
+                counter = deadLetters.computeIfAbsent(tags, key -> registerDeadLetterCounter(registry, key, new LongAdder()));
+            }
+            counter.increment();
+        }
+    }
+
+    /**
+     * Counts a message rejected by a listener of the given {@link Queue}
+     *
+     * @param queueName
+     *            the name of the {@link Queue} the message was consumed from
+     * @param requeue
+     *            whether the message was requeued instead of being
+     *            dead-lettered
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void recordRejection(String queueName, boolean requeue)
+    {
+        Tags tags = Tags.of("queue", valueOrUnknown(queueName), "requeue", Boolean.toString(requeue));
+        LongAdder counter = rejections.get(tags);
+        if (counter == null)
+        {
+            counter = rejections.computeIfAbsent(tags, key -> registerRejectionCounter(registry, key, new LongAdder()));
+        }
+        counter.increment();
+    }
+
+    /**
+     * {@link MessagePostProcessor} for the after-receive-post-processors of
+     * the listener-containers consuming the DLX-{@link Queue}s (or the
+     * {@link Queue}s behind retry-tiers), calling
+     * {@link #recordDeadLetter(Message)} for every received message
+     *
+     * @return the {@link MessagePostProcessor}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public MessagePostProcessor deadLetterCounter()
+    {
+        return message ->
+        {
+            recordDeadLetter(message);
+            return message;
+        };
+    }
+
+    /**
+     * Advice for the advice-chain of a listener-container, calling
+     * {@link #recordRejection(String, boolean)} for every message whose
+     * listener throws. The message counts as requeued unless an
+     * {@link AmqpRejectAndDontRequeueException} is thrown or the container
+     * does not requeue rejected messages at all
+     *
+     * @param defaultRequeueRejected
+     *            the defaultRequeueRejected-flag of the listener-container
+     * @return the advice
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public MethodInterceptor rejectionCounter(boolean defaultRequeueRejected)
+    {
+        return invocation ->
+        {
+            try
+            {
+                return invocation.proceed();
+            }
+            catch (Throwable e)
+            {
+                Message message = Arrays.stream(invocation.getArguments()).filter(Message.class::isInstance).map(Message.class::cast).findFirst().orElse(null);
+                String queueName = message == null ? null : message.getMessageProperties().getConsumerQueue();
+                recordRejection(queueName, defaultRequeueRejected && !isRejectAndDontRequeue(e));
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #rejectionCounter(boolean)} for listener-containers
+     * requeuing rejected messages (the default)
+     *
+     * @return the advice
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public MethodInterceptor rejectionCounter()
+    {
+        return rejectionCounter(true);
+    }
+
+    private static boolean isRejectAndDontRequeue(Throwable throwable)
+    {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof AmqpRejectAndDontRequeueException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LongAdder registerDeadLetterCounter(MeterRegistry meterRegistry, Tags tags, LongAdder counter)
+    {
+        if (meterRegistry != null)
+        {
+            FunctionCounter.builder("amqp.dead.letters", counter, LongAdder::doubleValue)
+                    .tags(tags)
+                    .description("dead-lettered messages by origin queue and x-death reason")
+                    .register(meterRegistry);
+        }
+        return counter;
+    }
+
+    private static LongAdder registerRejectionCounter(MeterRegistry meterRegistry, Tags tags, LongAdder counter)
+    {
+        if (meterRegistry != null)
+        {
+            FunctionCounter.builder("amqp.listener.rejections", counter, LongAdder::doubleValue)
+                    .tags(tags)
+                    .description("messages rejected by a listener")
+                    .register(meterRegistry);
+        }
+        return counter;
+    }
+
+    private void registerQueueDepthGauge(MeterRegistry meterRegistry, String queueName)
+    {
+        Gauge.builder("amqp.queue.depth", queueDepthMonitor, monitor -> getMessageCount(monitor, queueName))
+                .tag("queue", queueName)
+                .description("ready messages at the last poll")
+                .register(meterRegistry);
+    }
+
+    private static double getMessageCount(QueueDepthMonitor queueDepthMonitor, String queueName)
+    {
+        QueueDepthMonitor.QueueDepth depth = queueDepthMonitor.getDepth(queueName);
+        return depth == null ? Double.NaN : depth.getMessageCount();
+    }
+
+    private static String valueOrUnknown(String value)
+    {
+        return value == null ? UNKNOWN : value;
+    }
+}
@@ -0,0 +1,554 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Declares {@link Declarable}s concurrently with all {@link RabbitAdmin}s that
+ * should declare them, instead of one {@link RabbitAdmin} after another. Each
+ * {@link RabbitAdmin} declares on one channel without waiting for the
+ * declare-ok of every single declaration, a failure is detected with one
+ * synchronous round-trip at the end. A failing {@link RabbitAdmin} does not
+ * abort the others, the outcome of each {@link RabbitAdmin} is reported as
+ * {@link DeclarationResult}. To replace the declaration of the
+ * {@link RabbitAdmin}s, disable it with
+ * {@link RabbitAdmin#setAutoStartup(boolean)} and declare with
+ * {@link #declareAndRedeclareOnReconnect(Supplier)}, which also takes over
+ * the re-declaration after a re-connect
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DeclarationCoordinator
+{
+    private static final String DELAYED_MESSAGE_EXCHANGE_TYPE = "x-delayed-message";
+
+    private static final String X_DELAYED_TYPE = "x-delayed-type";
+
+    private final List<RabbitAdmin> admins;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private int maxConcurrency = 4;
+
+    private DeclarationFingerprintStore fingerprintStore;
+
+    /**
+     * @param admins
+     *            the {@link RabbitAdmin}s to declare with, each
+     *            {@link Declarable} is only declared by the
+     *            {@link RabbitAdmin}s that should declare it (see
+     *            {@link Declarable#getDeclaringAdmins()})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DeclarationCoordinator(Collection<RabbitAdmin> admins)
+    {
+        Assert.notEmpty(admins, "admins must not be empty");
+        this.admins = new ArrayList<>(admins);
+    }
+
+    /**
+     * @param maxConcurrency
+     *            the maximum number of {@link RabbitAdmin}s declaring at the
+     *            same time (default 4)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @param fingerprintStore
+     *            the {@link DeclarationFingerprintStore} to skip the
+     *            {@link Declarable}s with, which are unchanged since their last
+     *            successful declaration (default none). If a declaration
+     *            with skipped {@link Declarable}s fails, the fingerprints of
+     *            the {@link RabbitAdmin} are forgotten and all of its
+     *            {@link Declarable}s are declared again
+     * @throws IllegalArgumentException
+     *             if one of the {@link RabbitAdmin}s has no bean-name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setFingerprintStore(DeclarationFingerprintStore fingerprintStore)
+    {
+        if (fingerprintStore != null)
+        {
+            admins.forEach(admin -> Assert.notNull(admin.getBeanName(), "admins must have a bean-name to store fingerprints"));
+        }
+        this.fingerprintStore = fingerprintStore;
+    }
+
+    /**
+     * Declares the given {@link Declarable}s with all {@link RabbitAdmin}s and
+     * waits until all of them are finished
+     *
+     * @param declarables
+     *            {@link Declarable}s and {@link Declarables} (e.g.
+     *            {@link QueueWithDlx}) to declare
+     * @return one {@link DeclarationResult} per {@link RabbitAdmin}, in the
+     *         order of the {@link RabbitAdmin}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<DeclarationResult> declare(Collection<?> declarables)
+    {
+        List<Declarable> flattened = flatten(declarables);
+        boolean verify = fingerprintStore != null && fingerprintStore.isVerificationDue();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(admins.size(), maxConcurrency));
+        try
+        {
+            List<Future<DeclarationResult>> futures = new ArrayList<>(admins.size());
+            for (RabbitAdmin admin : admins)
+            {
+                futures.add(executor.submit(() -> declare(admin, flattened, verify, true)));
+            }
+            List<DeclarationResult> results = new ArrayList<>(admins.size());
+            for (Future<DeclarationResult> future : futures)
+            {
+                results.add(future.get());
+            }
+            if (fingerprintStore != null)
+            {
+                saveFingerprints(verify, results);
+            }
+            return results;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("declaration interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new AmqpException("declaration failed", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Declares the given {@link Declarable}s like {@link #declare(Collection)}
+     * and declares them again with a {@link RabbitAdmin} whenever its
+     * connection-factory re-connects (e.g. after a restart of the broker),
+     * like a {@link RabbitAdmin} with auto-startup does. A re-declaration
+     * runs on the thread creating the new connection, skips nothing (the
+     * broker may have lost its {@link Queue}s) and is logged if it fails.
+     * Call it once, each call adds its own connection-listeners
+     *
+     * @param declarables
+     *            supplies the {@link Declarable}s and {@link Declarables} to
+     *            declare (e.g. {@link #collectDeclarables(ListableBeanFactory)}),
+     *            asked again on every re-connect
+     * @return one {@link DeclarationResult} per {@link RabbitAdmin} of the
+     *         initial declaration, in the order of the {@link RabbitAdmin}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<DeclarationResult> declareAndRedeclareOnReconnect(Supplier<? extends Collection<?>> declarables)
+    {
+        Assert.notNull(declarables, "declarables must not be null");
+        for (RabbitAdmin admin : admins)
+        {
+            admin.getRabbitTemplate().getConnectionFactory().addConnectionListener(new RedeclaringConnectionListener(admin, declarables));
+        }
+        return declare(declarables.get());
+    }
+
+    /**
+     * Collects all {@link Declarable}- and {@link Declarables}-beans (e.g.
+     * {@link QueueWithDlx}), which a {@link RabbitAdmin} with auto-startup
+     * would declare
+     *
+     * @param beanFactory
+     *            the {@link ListableBeanFactory}, e.g. the application-context
+     * @return the {@link Declarable}s and {@link Declarables}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static List<Object> collectDeclarables(ListableBeanFactory beanFactory)
+    {
+        List<Object> declarables = new ArrayList<>(beanFactory.getBeansOfType(Declarable.class).values());
+        declarables.addAll(beanFactory.getBeansOfType(Declarables.class).values());
+        return declarables;
+    }
+
+    private void redeclare(RabbitAdmin admin, Collection<?> declarables)
+    {
+        // runs while the connection-factory holds its connection-monitor, so it must not wait for other threads
+        DeclarationResult result = declare(admin, flatten(declarables), false, false);
+        if (!result.isSuccessful())
+        {
+            logger.error("re-declaration with '" + admin.getBeanName() + "' failed", result.getFailure());
+        }
+        else if (fingerprintStore != null)
+        {
+            saveFingerprints(false, Collections.singletonList(result));
+        }
+    }
+
+    private DeclarationResult declare(RabbitAdmin admin, List<Declarable> declarables, boolean verify, boolean skipUnchanged)
+    {
+        List<Declarable> declaredByAdmin = new ArrayList<>();
+        List<Declarable> toDeclare = new ArrayList<>();
+        List<Declarable> unchanged = new ArrayList<>();
+        for (Declarable declarable : declarables)
+        {
+            if (isDeclaredBy(declarable, admin))
+            {
+                declaredByAdmin.add(declarable);
+                (skipUnchanged && fingerprintStore != null && fingerprintStore.isUnchanged(admin, declarable) ? unchanged : toDeclare).add(declarable);
+            }
+        }
+        int skipped = unchanged.size();
+        if (verify)
+        {
+            List<Declarable> missing = findMissing(admin, unchanged);
+            toDeclare.addAll(missing);
+            skipped -= missing.size();
+        }
+
+        RuntimeException failure = tryDeclare(admin, toDeclare);
+        if (failure != null && skipped > 0)
+        {
+            // a skipped queue or exchange may be gone on the broker, e.g. a binding to a deleted queue failed
+            logger.warn("declaration with '" + admin.getBeanName() + "' failed, declaring the " + skipped + " skipped declarables again", failure);
+            fingerprintStore.forget(admin);
+            toDeclare = declaredByAdmin;
+            skipped = 0;
+            failure = tryDeclare(admin, toDeclare);
+        }
+        if (failure == null && fingerprintStore != null)
+        {
+            fingerprintStore.update(admin, toDeclare);
+            fingerprintStore.retain(admin, declaredByAdmin);
+        }
+        return new DeclarationResult(admin, toDeclare.size(), skipped, failure);
+    }
+
+    private static RuntimeException tryDeclare(RabbitAdmin admin, List<Declarable> declarables)
+    {
+        List<Exchange> exchanges = new ArrayList<>();
+        List<Queue> queues = new ArrayList<>();
+        List<Binding> bindings = new ArrayList<>();
+        for (Declarable declarable : declarables)
+        {
+            if (declarable instanceof Exchange)
+            {
+                exchanges.add((Exchange) declarable);
+            }
+            else if (declarable instanceof Queue)
+            {
+                queues.add((Queue) declarable);
+            }
+            else
+            {
+                bindings.add((Binding) declarable);
+            }
+        }
+        try
+        {
+            if (!declarables.isEmpty())
+            {
+                admin.getRabbitTemplate().execute(channel ->
+                {
+                    declareExchanges(channel, exchanges);
+                    declareQueues(channel, queues);
+                    declareBindings(channel, bindings);
+                    // synchronous round-trip, fails if the broker closed the channel because of a failed declaration
+                    channel.basicQos(0);
+                    return null;
+                });
+            }
+            return null;
+        }
+        catch (RuntimeException e)
+        {
+            return e;
+        }
+    }
+
+    private static List<Declarable> findMissing(RabbitAdmin admin, List<Declarable> declarables)
+    {
+        Set<String> missingNames = new HashSet<>();
+        for (Declarable declarable : declarables)
+        {
+            if (declarable instanceof Queue && admin.getQueueProperties(((Queue) declarable).getName()) == null)
+            {
+                missingNames.add(((Queue) declarable).getName());
+            }
+            else if (declarable instanceof Exchange && !exchangeExists(admin, ((Exchange) declarable).getName()))
+            {
+                missingNames.add(((Exchange) declarable).getName());
+            }
+        }
+        // bindings are never skipped, so they are declared again anyway
+        List<Declarable> missing = new ArrayList<>();
+        for (Declarable declarable : declarables)
+        {
+            String name = declarable instanceof Queue ? ((Queue) declarable).getName() : ((Exchange) declarable).getName();
+            if (missingNames.contains(name))
+            {
+                missing.add(declarable);
+            }
+        }
+        return missing;
+    }
+
+    private static boolean exchangeExists(RabbitAdmin admin, String exchangeName)
+    {
+        try
+        {
+            admin.getRabbitTemplate().execute(channel -> channel.exchangeDeclarePassive(exchangeName));
+            return true;
+        }
+        catch (AmqpException e)
+        {
+            return false;
+        }
+    }
+
+    private static void declareExchanges(Channel channel, List<Exchange> exchanges) throws IOException
+    {
+        for (Exchange exchange : exchanges)
+        {
+            if (RabbitAdmin.DEFAULT_EXCHANGE_NAME.equals(exchange.getName()))
+            {
+                continue;
+            }
+            String type = exchange.getType();
+            Map<String, Object> arguments = exchange.getArguments();
+            if (exchange.isDelayed())
+            {
+                arguments = new HashMap<>(arguments);
+                arguments.put(X_DELAYED_TYPE, type);
+                type = DELAYED_MESSAGE_EXCHANGE_TYPE;
+            }
+            channel.exchangeDeclareNoWait(exchange.getName(), type, exchange.isDurable(), exchange.isAutoDelete(), exchange.isInternal(), arguments);
+        }
+    }
+
+    private static void declareQueues(Channel channel, List<Queue> queues) throws IOException
+    {
+        for (Queue queue : queues)
+        {
+            if (queue.getName().isEmpty())
+            {
+                // the broker generates the name, which is only known from the declare-ok
+                queue.setActualName(channel.queueDeclare("", queue.isDurable(), queue.isExclusive(), queue.isAutoDelete(), queue.getArguments()).getQueue());
+            }
+            else
+            {
+                channel.queueDeclareNoWait(queue.getName(), queue.isDurable(), queue.isExclusive(), queue.isAutoDelete(), queue.getArguments());
+            }
+        }
+    }
+
+    private static void declareBindings(Channel channel, List<Binding> bindings) throws IOException
+    {
+        for (Binding binding : bindings)
+        {
+            if (RabbitAdmin.DEFAULT_EXCHANGE_NAME.equals(binding.getExchange()))
+            {
+                continue;
+            }
+            if (binding.getDestinationType() == DestinationType.QUEUE)
+            {
+                channel.queueBindNoWait(binding.getDestination(), binding.getExchange(), binding.getRoutingKey(), binding.getArguments());
+            }
+            else
+            {
+                channel.exchangeBindNoWait(binding.getDestination(), binding.getExchange(), binding.getRoutingKey(), binding.getArguments());
+            }
+        }
+    }
+
+    private static boolean isDeclaredBy(Declarable declarable, RabbitAdmin admin)
+    {
+        if (!declarable.shouldDeclare() || !(declarable instanceof Exchange || declarable instanceof Queue || declarable instanceof Binding))
+        {
+            return false;
+        }
+        Collection<?> declaringAdmins = declarable.getDeclaringAdmins();
+        return declaringAdmins.isEmpty() || declaringAdmins.contains(admin) || (admin.getBeanName() != null && declaringAdmins.contains(admin.getBeanName()));
+    }
+
+    private void saveFingerprints(boolean verified, List<DeclarationResult> results)
+    {
+        if (verified && results.stream().allMatch(DeclarationResult::isSuccessful))
+        {
+            fingerprintStore.markVerified();
+        }
+        try
+        {
+            fingerprintStore.save();
+        }
+        catch (IOException e)
+        {
+            // the fingerprints are an optimization, the next start declares everything again
+            logger.warn("fingerprints of declarations could not be saved", e);
+        }
+    }
+
+    private static List<Declarable> flatten(Collection<?> declarables)
+    {
+        List<Declarable> flattened = new ArrayList<>(declarables.size());
+        for (Object declarable : declarables)
+        {
+            if (declarable instanceof Declarables)
+            {
+                flattened.addAll(((Declarables) declarable).getDeclarables());
+            }
+            else
+            {
+                Assert.isInstanceOf(Declarable.class, declarable);
+                flattened.add((Declarable) declarable);
+            }
+        }
+        // a Queue can be a bean of its own and part of a Declarables-bean (e.g. a QueueWithDlx) at the same time
+        Set<Declarable> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        flattened.removeIf(declarable -> !distinct.add(declarable));
+        return flattened;
+    }
+
+    private final class RedeclaringConnectionListener implements ConnectionListener
+    {
+        private final RabbitAdmin admin;
+
+        private final Supplier<? extends Collection<?>> declarables;
+
+        private volatile boolean lost;
+
+        RedeclaringConnectionListener(RabbitAdmin admin, Supplier<? extends Collection<?>> declarables)
+        {
+            this.admin = admin;
+            this.declarables = declarables;
+        }
+
+        @Override
+        public void onCreate(Connection connection)
+        {
+            // the first connection is declared by declareAndRedeclareOnReconnect, only re-connects are declared here
+            if (lost)
+            {
+                lost = false;
+                redeclare(admin, declarables.get());
+            }
+        }
+
+        @Override
+        public void onClose(Connection connection)
+        {
+            lost = true;
+        }
+
+        @Override
+        public void onShutDown(ShutdownSignalException signal)
+        {
+            lost = true;
+        }
+    }
+
+    /**
+     * Outcome of the declaration with one {@link RabbitAdmin}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static class DeclarationResult
+    {
+        private final RabbitAdmin admin;
+
+        private final int declarations;
+
+        private final int skipped;
+
+        private final Exception failure;
+
+        DeclarationResult(RabbitAdmin admin, int declarations, int skipped, Exception failure)
+        {
+            this.admin = admin;
+            this.declarations = declarations;
+            this.skipped = skipped;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the {@link RabbitAdmin}
+         */
+        public RabbitAdmin getAdmin()
+        {
+            return admin;
+        }
+
+        /**
+         * @return the number of {@link Declarable}s the {@link RabbitAdmin}
+         *         declared
+         */
+        public int getDeclarations()
+        {
+            return declarations;
+        }
+
+        /**
+         * @return the number of {@link Declarable}s the {@link RabbitAdmin}
+         *         skipped as they are unchanged (see
+         *         {@link DeclarationFingerprintStore})
+         */
+        public int getSkipped()
+        {
+            return skipped;
+        }
+
+        /**
+         * @return the failure of the declaration, null if successful
+         */
+        public Exception getFailure()
+        {
+            return failure;
+        }
+
+        /**
+         * @return true if all {@link Declarable}s were declared
+         */
+        public boolean isSuccessful()
+        {
+            return failure == null;
+        }
+    }
+}
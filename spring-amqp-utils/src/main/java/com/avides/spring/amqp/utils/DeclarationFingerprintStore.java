@@ -0,0 +1,344 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.util.Assert;
+
+/**
+ * Local file storing a fingerprint of every {@link Declarable} that was
+ * declared successfully, so the {@link DeclarationCoordinator} can skip the
+ * {@link Declarable}s that are unchanged since the last declaration (see
+ * {@link DeclarationCoordinator#setFingerprintStore(DeclarationFingerprintStore)}).
+ * The fingerprint covers the name, the flags (durable, exclusive,
+ * auto-delete, ...) and the arguments. Only durable {@link Queue}s and
+ * {@link Exchange}s that are neither exclusive nor auto-delete are skipped,
+ * all others do not survive a restart of the broker or the application.
+ * {@link Binding}s are always declared again, they are gone with a
+ * {@link Queue} that was deleted and declared again on the broker. As
+ * {@link Queue}s and {@link Exchange}s may be deleted on the broker, all
+ * skipped ones are verified passively once per verification-interval and
+ * declared again if they are missing. In between, a failed declaration (e.g.
+ * a {@link Binding} to a deleted {@link Queue}) makes the
+ * {@link DeclarationCoordinator} forget all fingerprints of the
+ * {@link RabbitAdmin} and declare everything again. The fingerprints are
+ * stored per broker (host, port and vhost of the connection-factory) and
+ * bean-name of the {@link RabbitAdmin}, so each {@link RabbitAdmin} needs a
+ * bean-name
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DeclarationFingerprintStore
+{
+    private static final String LAST_VERIFICATION_KEY = "last-verification";
+
+    private static final String KEY_SEPARATOR = "/";
+
+    private final Path file;
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private Duration verificationInterval = Duration.ofHours(24);
+
+    private long lastVerification;
+
+    /**
+     * @param file
+     *            the file to store the fingerprints in, loaded if it exists
+     * @throws IOException
+     *             if the existing file cannot be read
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DeclarationFingerprintStore(Path file) throws IOException
+    {
+        Assert.notNull(file, "file must not be null");
+        this.file = file;
+        if (Files.exists(file))
+        {
+            Properties properties = new Properties();
+            try (InputStream inputStream = Files.newInputStream(file))
+            {
+                properties.load(inputStream);
+            }
+            for (String key : properties.stringPropertyNames())
+            {
+                if (LAST_VERIFICATION_KEY.equals(key))
+                {
+                    lastVerification = Long.parseLong(properties.getProperty(key));
+                }
+                else
+                {
+                    fingerprints.put(key, properties.getProperty(key));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param verificationInterval
+     *            the interval after which all skipped {@link Queue}s and
+     *            {@link Exchange}s are verified passively on the broker
+     *            (default 24 hours)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setVerificationInterval(Duration verificationInterval)
+    {
+        this.verificationInterval = verificationInterval;
+    }
+
+    /**
+     * @param admin
+     *            the {@link RabbitAdmin} that should declare the
+     *            {@link Declarable}
+     * @param declarable
+     *            the {@link Declarable}
+     * @return true if the {@link Declarable} survives restarts and was
+     *         declared by the {@link RabbitAdmin} with the same fingerprint
+     *         before
+     * @throws IllegalArgumentException
+     *             if the {@link RabbitAdmin} has no bean-name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isUnchanged(RabbitAdmin admin, Declarable declarable)
+    {
+        String key = buildKey(admin, declarable);
+        return isSkippable(declarable) && fingerprint(declarable).equals(fingerprints.get(key));
+    }
+
+    /**
+     * Stores the fingerprints of the {@link Declarable}s that were declared by
+     * the {@link RabbitAdmin}
+     *
+     * @param admin
+     *            the {@link RabbitAdmin} that declared the {@link Declarable}s
+     * @param declarables
+     *            the declared {@link Declarable}s
+     * @throws IllegalArgumentException
+     *             if the {@link RabbitAdmin} has no bean-name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void update(RabbitAdmin admin, Collection<? extends Declarable> declarables)
+    {
+        for (Declarable declarable : declarables)
+        {
+            if (isSkippable(declarable))
+            {
+                fingerprints.put(buildKey(admin, declarable), fingerprint(declarable));
+            }
+        }
+    }
+
+    /**
+     * Removes the fingerprints of the {@link RabbitAdmin} of all
+     * {@link Declarable}s that are not declared by it anymore, so the file
+     * does not grow with removed {@link Queue}s and {@link Exchange}s
+     *
+     * @param admin
+     *            the {@link RabbitAdmin}
+     * @param declarables
+     *            all {@link Declarable}s the {@link RabbitAdmin} declares
+     * @throws IllegalArgumentException
+     *             if the {@link RabbitAdmin} has no bean-name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void retain(RabbitAdmin admin, Collection<? extends Declarable> declarables)
+    {
+        Set<String> keys = new HashSet<>();
+        for (Declarable declarable : declarables)
+        {
+            keys.add(buildKey(admin, declarable));
+        }
+        String prefix = buildKeyPrefix(admin);
+        fingerprints.keySet().removeIf(key -> key.startsWith(prefix) && !keys.contains(key));
+    }
+
+    /**
+     * Removes all fingerprints of the {@link RabbitAdmin}, so it declares all
+     * of its {@link Declarable}s again
+     *
+     * @param admin
+     *            the {@link RabbitAdmin}
+     * @throws IllegalArgumentException
+     *             if the {@link RabbitAdmin} has no bean-name
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void forget(RabbitAdmin admin)
+    {
+        String prefix = buildKeyPrefix(admin);
+        fingerprints.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * @return true if the verification-interval elapsed since the last
+     *         verification
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isVerificationDue()
+    {
+        return System.currentTimeMillis() - lastVerification >= verificationInterval.toMillis();
+    }
+
+    /**
+     * Records that all skipped {@link Queue}s and {@link Exchange}s were
+     * verified now
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void markVerified()
+    {
+        lastVerification = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes the fingerprints to the file, replacing it atomically
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void save() throws IOException
+    {
+        Properties properties = new Properties();
+        properties.putAll(fingerprints);
+        properties.setProperty(LAST_VERIFICATION_KEY, Long.toString(lastVerification));
+        Path absoluteFile = file.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        Path tempFile = Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tempFile))
+        {
+            properties.store(outputStream, "fingerprints of declared queues, exchanges and bindings");
+        }
+        Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Builds the fingerprint of the given {@link Declarable}
+     *
+     * @param declarable
+     *            the {@link Declarable}
+     * @return the Base64-encoded SHA-256-hash of the name, the flags and the
+     *         arguments
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static String fingerprint(Declarable declarable)
+    {
+        StringBuilder builder = new StringBuilder(buildName(declarable));
+        Map<String, Object> arguments = null;
+        if (declarable instanceof Queue)
+        {
+            Queue queue = (Queue) declarable;
+            builder.append(queue.isDurable()).append(queue.isExclusive()).append(queue.isAutoDelete());
+            arguments = queue.getArguments();
+        }
+        else if (declarable instanceof Exchange)
+        {
+            Exchange exchange = (Exchange) declarable;
+            builder.append(exchange.getType()).append(exchange.isDurable()).append(exchange.isAutoDelete()).append(exchange.isInternal()).append(exchange.isDelayed());
+            arguments = exchange.getArguments();
+        }
+        else if (declarable instanceof Binding)
+        {
+            arguments = ((Binding) declarable).getArguments();
+        }
+        if (arguments != null)
+        {
+            for (Entry<String, Object> argument : new TreeMap<>(arguments).entrySet())
+            {
+                Object value = argument.getValue();
+                builder.append(argument.getKey()).append('=').append(value).append(':').append(value == null ? null : value.getClass().getSimpleName()).append(';');
+            }
+        }
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is available in every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isSkippable(Declarable declarable)
+    {
+        if (declarable instanceof Queue)
+        {
+            Queue queue = (Queue) declarable;
+            return queue.isDurable() && !queue.isExclusive() && !queue.isAutoDelete();
+        }
+        if (declarable instanceof Exchange)
+        {
+            Exchange exchange = (Exchange) declarable;
+            return exchange.isDurable() && !exchange.isAutoDelete();
+        }
+        return false;
+    }
+
+    private static String buildKeyPrefix(RabbitAdmin admin)
+    {
+        // the broker separates the fingerprints of different brokers and vhosts, the bean-name those of RabbitAdmins on the same vhost
+        // (which declare different Declarables, so retain() of one would remove the fingerprints of the other)
+        Assert.notNull(admin.getBeanName(), "admin must have a bean-name to store fingerprints");
+        ConnectionFactory connectionFactory = admin.getRabbitTemplate().getConnectionFactory();
+        return connectionFactory.getHost() + ":" + connectionFactory.getPort() + KEY_SEPARATOR + connectionFactory.getVirtualHost() + KEY_SEPARATOR
+                + admin.getBeanName() + KEY_SEPARATOR;
+    }
+
+    private static String buildKey(RabbitAdmin admin, Declarable declarable)
+    {
+        String kind = declarable instanceof Queue ? "queue" : declarable instanceof Exchange ? "exchange" : "binding";
+        return buildKeyPrefix(admin) + kind + KEY_SEPARATOR + buildName(declarable);
+    }
+
+    private static String buildName(Declarable declarable)
+    {
+        if (declarable instanceof Queue)
+        {
+            return ((Queue) declarable).getName();
+        }
+        if (declarable instanceof Exchange)
+        {
+            return ((Exchange) declarable).getName();
+        }
+        if (declarable instanceof Binding)
+        {
+            Binding binding = (Binding) declarable;
+            return binding.getExchange() + KEY_SEPARATOR + binding.getDestinationType() + KEY_SEPARATOR + binding.getDestination() + KEY_SEPARATOR
+                    + binding.getRoutingKey();
+        }
+        return declarable.toString();
+    }
+}
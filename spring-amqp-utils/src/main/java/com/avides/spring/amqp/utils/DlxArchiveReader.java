@@ -0,0 +1,344 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Reads and replays the dead letters of a stream-{@link Queue} built by
+ * {@link AmqpUtils#buildStreamDlxArchive(String, java.time.Duration, long, Object, Object...)}
+ * starting at an offset or a timestamp. Reading a stream does not consume it,
+ * so the same dead letters can be read and replayed any number of times until
+ * the retention of the archive deletes them. The messages can be filtered by
+ * the {@link Queue} they were dead-lettered from (see
+ * {@link DeadLetterInfo#getQueue()}, the {@link Queue} a retry-{@link Queue}
+ * belongs to for messages parked after their retry-tiers), the offset of a read message is its
+ * 'x-stream-offset'-header. Reading stops after {@link #setReceiveTimeout(long)}
+ * without any further message, i.e. at the end of the archive
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DlxArchiveReader
+{
+    /**
+     * The header carrying the offset of a message read from a stream
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static final String X_STREAM_OFFSET = "x-stream-offset";
+
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final ConnectionFactory connectionFactory;
+
+    private int batchSize = 100;
+
+    private long confirmTimeout = 10000;
+
+    private long receiveTimeout = 1000;
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to create the read-channel with,
+     *            the channel is closed physically after each read
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxArchiveReader(ConnectionFactory connectionFactory)
+    {
+        Assert.notNull(connectionFactory, "connectionFactory must not be null");
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @param batchSize
+     *            the number of messages that are prefetched and acknowledged
+     *            (and, when replaying, confirmed) together (default 100)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setBatchSize(int batchSize)
+    {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param confirmTimeout
+     *            the maximum time in milliseconds to wait for the
+     *            publisher-confirms of a replayed batch (default 10000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setConfirmTimeout(long confirmTimeout)
+    {
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    /**
+     * @param receiveTimeout
+     *            the time in milliseconds without any received message after
+     *            which the end of the archive is regarded as reached (default
+     *            1000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setReceiveTimeout(long receiveTimeout)
+    {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    /**
+     * Reads the dead letters of the given archive starting at the given offset
+     *
+     * @param archiveQueueName
+     *            the name of the stream-{@link Queue} of the archive
+     * @param offset
+     *            the offset of the first message to read (0 for the first
+     *            retained message)
+     * @param originQueueName
+     *            the name of the {@link Queue} whose dead letters are read,
+     *            null for all
+     * @param maxMessages
+     *            the maximum number of messages to read, negative for all
+     * @param handler
+     *            the handler of the read messages
+     * @return the number of read messages
+     * @throws AmqpException
+     *             if the read fails
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long read(String archiveQueueName, long offset, String originQueueName, long maxMessages, Consumer<Message> handler)
+    {
+        return consume(archiveQueueName, Long.valueOf(offset), originQueueName, maxMessages, false, (channel, batch) -> handle(batch, handler));
+    }
+
+    /**
+     * Reads the dead letters of the given archive that were archived since the
+     * given timestamp
+     *
+     * @param archiveQueueName
+     *            the name of the stream-{@link Queue} of the archive
+     * @param timestamp
+     *            the timestamp to start at, the broker starts at the beginning
+     *            of the segment containing it, so some earlier messages may be
+     *            read as well
+     * @param originQueueName
+     *            the name of the {@link Queue} whose dead letters are read,
+     *            null for all
+     * @param maxMessages
+     *            the maximum number of messages to read, negative for all
+     * @param handler
+     *            the handler of the read messages
+     * @return the number of read messages
+     * @throws AmqpException
+     *             if the read fails
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long read(String archiveQueueName, Date timestamp, String originQueueName, long maxMessages, Consumer<Message> handler)
+    {
+        return consume(archiveQueueName, timestamp, originQueueName, maxMessages, false, (channel, batch) -> handle(batch, handler));
+    }
+
+    /**
+     * Republishes the dead letters of the given archive starting at the given
+     * offset to the {@link Queue}s they were dead-lettered from. The archive
+     * keeps the messages, so a replay can be repeated
+     *
+     * @param archiveQueueName
+     *            the name of the stream-{@link Queue} of the archive
+     * @param offset
+     *            the offset of the first message to replay
+     * @param originQueueName
+     *            the name of the {@link Queue} whose dead letters are
+     *            replayed, null for all
+     * @param maxMessages
+     *            the maximum number of messages to replay, negative for all
+     * @return the number of replayed messages
+     * @throws AmqpException
+     *             if the replay fails, e.g. because the origin-{@link Queue}
+     *             of a message cannot be determined or does not exist
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long replay(String archiveQueueName, long offset, String originQueueName, long maxMessages)
+    {
+        return consume(archiveQueueName, Long.valueOf(offset), originQueueName, maxMessages, true, this::republish);
+    }
+
+    /**
+     * Republishes the dead letters of the given archive that were archived
+     * since the given timestamp to the {@link Queue}s they were dead-lettered
+     * from
+     *
+     * @param archiveQueueName
+     *            the name of the stream-{@link Queue} of the archive
+     * @param timestamp
+     *            the timestamp to start at
+     * @param originQueueName
+     *            the name of the {@link Queue} whose dead letters are
+     *            replayed, null for all
+     * @param maxMessages
+     *            the maximum number of messages to replay, negative for all
+     * @return the number of replayed messages
+     * @throws AmqpException
+     *             if the replay fails, e.g. because the origin-{@link Queue}
+     *             of a message cannot be determined or does not exist
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long replay(String archiveQueueName, Date timestamp, String originQueueName, long maxMessages)
+    {
+        return consume(archiveQueueName, timestamp, originQueueName, maxMessages, true, this::republish);
+    }
+
+    private long consume(String archiveQueueName, Object offset, String originQueueName, long maxMessages, boolean confirms, BatchHandler batchHandler)
+    {
+        Connection connection = connectionFactory.createConnection();
+        Channel channel = connection.createChannel(false);
+        try
+        {
+            return consume(channel, archiveQueueName, offset, originQueueName, maxMessages < 0 ? Long.MAX_VALUE : maxMessages, confirms, batchHandler);
+        }
+        catch (IOException | TimeoutException e)
+        {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("read of '" + archiveQueueName + "' interrupted", e);
+        }
+        finally
+        {
+            RabbitUtils.setPhysicalCloseRequired(channel, true);
+            RabbitUtils.closeChannel(channel);
+            RabbitUtils.closeConnection(connection);
+        }
+    }
+
+    private long consume(Channel channel, String archiveQueueName, Object offset, String originQueueName, long limit, boolean confirms, BatchHandler batchHandler)
+            throws IOException, TimeoutException, InterruptedException
+    {
+        BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+        if (confirms)
+        {
+            channel.confirmSelect();
+        }
+        // streams can only be consumed with manual acknowledgements and a prefetch
+        channel.basicQos(batchSize);
+        channel.basicConsume(archiveQueueName, false, Collections.singletonMap(X_STREAM_OFFSET, offset), new DefaultConsumer(channel)
+        {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body)
+            {
+                deliveries.add(new Delivery(envelope, properties, body));
+            }
+        });
+
+        long read = 0;
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        while (read < limit)
+        {
+            batch.clear();
+            Delivery delivery = deliveries.poll(receiveTimeout, TimeUnit.MILLISECONDS);
+            if (delivery == null)
+            {
+                break;
+            }
+            long lastDeliveryTag = 0;
+            while (delivery != null)
+            {
+                lastDeliveryTag = delivery.getEnvelope().getDeliveryTag();
+                if (originQueueName == null || originQueueName.equals(determineOriginQueueName(delivery.getProperties().getHeaders())))
+                {
+                    batch.add(delivery);
+                }
+                delivery = batch.size() < batchSize && read + batch.size() < limit ? deliveries.poll() : null;
+            }
+            if (!batch.isEmpty())
+            {
+                batchHandler.handle(channel, batch);
+                read += batch.size();
+            }
+            // acknowledging only releases the prefetch, the archive keeps the messages
+            channel.basicAck(lastDeliveryTag, true);
+        }
+        return read;
+    }
+
+    private void handle(List<Delivery> batch, Consumer<Message> handler)
+    {
+        for (Delivery delivery : batch)
+        {
+            handler.accept(new Message(delivery.getBody(), messagePropertiesConverter.toMessageProperties(delivery.getProperties(), delivery.getEnvelope(), "UTF-8")));
+        }
+    }
+
+    private void republish(Channel channel, List<Delivery> batch) throws IOException, TimeoutException, InterruptedException
+    {
+        Set<String> returnedRoutingKeys = ConcurrentHashMap.newKeySet();
+        channel.clearReturnListeners();
+        channel.addReturnListener(returned -> returnedRoutingKeys.add(returned.getRoutingKey()));
+        List<String> undeterminedOrigins = new ArrayList<>();
+        for (Delivery delivery : batch)
+        {
+            Map<String, Object> headers = delivery.getProperties().getHeaders();
+            String originQueueName = determineOriginQueueName(headers);
+            if (originQueueName == null)
+            {
+                undeterminedOrigins.add(String.valueOf(headers == null ? null : headers.get(X_STREAM_OFFSET)));
+                continue;
+            }
+            channel.basicPublish("", originQueueName, true, delivery.getProperties(), delivery.getBody());
+        }
+        channel.waitForConfirmsOrDie(confirmTimeout);
+        if (!undeterminedOrigins.isEmpty() || !returnedRoutingKeys.isEmpty())
+        {
+            throw new AmqpException("replay stopped, origin-queues of offsets " + undeterminedOrigins + " could not be determined, origin-queues "
+                    + returnedRoutingKeys + " do not exist");
+        }
+    }
+
+    private static String determineOriginQueueName(Map<String, Object> headers)
+    {
+        String queueName = DeadLetterInfo.of(headers).getQueue();
+        // a message parked by the RetryTierMessageRecoverer was dead-lettered last by a retry-queue
+        return queueName == null ? null : RetryTierMessageRecoverer.determineRetriedQueueName(queueName);
+    }
+
+    @FunctionalInterface
+    private interface BatchHandler
+    {
+        void handle(Channel channel, List<Delivery> batch) throws IOException, TimeoutException, InterruptedException;
+    }
+}
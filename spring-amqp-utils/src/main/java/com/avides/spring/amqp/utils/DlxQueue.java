@@ -0,0 +1,88 @@
+package com.avides.spring.amqp.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * Declares a {@link QueueWithDlx} on a (listener-)class. The annotation is
+ * only read at compile-time by the annotation-processor of
+ * 'spring-amqp-utils-processor', which validates the topology and generates a
+ * class '&lt;ClassName&gt;Topology' next to the annotated class. Its static
+ * method 'declarables(Object...)' returns the {@link Declarables} of all
+ * {@link DlxQueue}s of the class, built with {@link QueueWithDlxBuilder}, so
+ * no classpath-scanning or reflection is needed at startup
+ *
+ * @since 1.1.0.RELEASE
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@Repeatable(DlxQueues.class)
+public @interface DlxQueue
+{
+    /**
+     * @return the name of the {@link Queue}, the DLX-{@link Queue} is suffixed
+     *         with '.dlx'
+     *
+     * @since 1.1.0.RELEASE
+     */
+    String name();
+
+    /**
+     * @return whether the {@link Queue} and its DLX-{@link Queue} are durable
+     *         (default true)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    boolean durable() default true;
+
+    /**
+     * @return whether the {@link Queue} and its DLX-{@link Queue} are
+     *         quorum-{@link Queue}s (default false), requires durable
+     *
+     * @since 1.1.0.RELEASE
+     */
+    boolean quorum() default false;
+
+    /**
+     * @return the delays of the retry-tiers in the order they should be
+     *         passed, e.g. '10s', '500ms', '5m', '1h' or ISO-8601 ('PT10S')
+     *         (default none, see
+     *         {@link QueueWithDlxBuilder#withRetryTiers(java.time.Duration, java.time.Duration...)})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    String[] retryTiers() default {};
+
+    /**
+     * @return the highest priority of the {@link Queue} (default 0, no
+     *         priority-{@link Queue}, see
+     *         {@link QueueWithDlxBuilder#withMaxPriority(int)})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    int maxPriority() default 0;
+
+    /**
+     * @return the name of the exchange to bind the {@link Queue} to (default
+     *         none)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    String exchange() default "";
+
+    /**
+     * @return the routing-keys of the {@link org.springframework.amqp.core.Binding}s
+     *         to {@link #exchange()} (default the name of the {@link Queue})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    String[] routingKeys() default {};
+}
@@ -0,0 +1,25 @@
+package com.avides.spring.amqp.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Container of repeated {@link DlxQueue}s
+ *
+ * @since 1.1.0.RELEASE
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface DlxQueues
+{
+    /**
+     * @return the {@link DlxQueue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    DlxQueue[] value();
+}
@@ -0,0 +1,304 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+
+/**
+ * Replays the messages of a DLX-{@link Queue} to the {@link Queue}s they were
+ * dead-lettered from. The origin-{@link Queue} of a message is taken from its
+ * 'x-death'-header or, if absent, from the name of the DLX-{@link Queue}
+ * ('&lt;queueName&gt;.dlx'). The messages are consumed with a prefetch of
+ * {@link #setBatchSize(int)} and republished with publisher-confirms, a batch
+ * is acknowledged with one multiple-ack after all of its confirms arrived.
+ * Messages whose origin-{@link Queue} cannot be determined or does not exist
+ * stay in the DLX-{@link Queue}. The messages keep their properties including
+ * their priority, the DLX-{@link Queue} of a priority-{@link Queue} has the
+ * same priorities (see {@link QueueWithDlxBuilder#withMaxPriority(int)}), so
+ * messages with a higher priority are replayed first
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class DlxReplayer
+{
+    private final ConnectionFactory connectionFactory;
+
+    private int batchSize = 100;
+
+    private int maxMessagesPerSecond;
+
+    private long confirmTimeout = 10000;
+
+    private long receiveTimeout = 1000;
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to create the replay-channel
+     *            with, the channel is closed physically after each replay
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxReplayer(ConnectionFactory connectionFactory)
+    {
+        Assert.notNull(connectionFactory, "connectionFactory must not be null");
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @param batchSize
+     *            the number of messages that are prefetched, republished and
+     *            acknowledged together (default 100)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setBatchSize(int batchSize)
+    {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param maxMessagesPerSecond
+     *            the maximum number of messages replayed per second, so the
+     *            consumers of the origin-{@link Queue}s are not overloaded (0
+     *            for no limit, default)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setMaxMessagesPerSecond(int maxMessagesPerSecond)
+    {
+        Assert.isTrue(maxMessagesPerSecond >= 0, "maxMessagesPerSecond must not be negative");
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    /**
+     * @param confirmTimeout
+     *            the maximum time in milliseconds to wait for the
+     *            publisher-confirms of a batch (default 10000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setConfirmTimeout(long confirmTimeout)
+    {
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    /**
+     * @param receiveTimeout
+     *            the time in milliseconds without any received message after
+     *            which the DLX-{@link Queue} is regarded as drained (default
+     *            1000)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setReceiveTimeout(long receiveTimeout)
+    {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    /**
+     * Replays the messages that are in the given DLX-{@link Queue} when the
+     * replay starts. Messages that are dead-lettered again during the replay
+     * are not replayed a second time
+     *
+     * @param dlxQueueName
+     *            the name of the DLX-{@link Queue} to replay
+     * @return the number of replayed messages
+     * @throws AmqpException
+     *             if the replay fails, e.g. because the origin-{@link Queue}
+     *             of a message cannot be determined or does not exist
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long replay(String dlxQueueName)
+    {
+        return replay(dlxQueueName, -1);
+    }
+
+    /**
+     * Replays at most the given number of messages of the given
+     * DLX-{@link Queue}
+     *
+     * @param dlxQueueName
+     *            the name of the DLX-{@link Queue} to replay
+     * @param maxMessages
+     *            the maximum number of messages to replay
+     * @return the number of replayed messages
+     * @throws AmqpException
+     *             if the replay fails, e.g. because the origin-{@link Queue}
+     *             of a message cannot be determined or does not exist
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public long replay(String dlxQueueName, long maxMessages)
+    {
+        Connection connection = connectionFactory.createConnection();
+        Channel channel = connection.createChannel(false);
+        try
+        {
+            long limit = maxMessages < 0 ? channel.queueDeclarePassive(dlxQueueName).getMessageCount() : maxMessages;
+            return limit > 0 ? replay(channel, dlxQueueName, limit) : 0;
+        }
+        catch (IOException | TimeoutException e)
+        {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("replay of '" + dlxQueueName + "' interrupted", e);
+        }
+        finally
+        {
+            RabbitUtils.setPhysicalCloseRequired(channel, true);
+            RabbitUtils.closeChannel(channel);
+            RabbitUtils.closeConnection(connection);
+        }
+    }
+
+    private long replay(Channel channel, String dlxQueueName, long limit) throws IOException, TimeoutException, InterruptedException
+    {
+        BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+        Set<String> returnedRoutingKeys = ConcurrentHashMap.newKeySet();
+        channel.addReturnListener(returned -> returnedRoutingKeys.add(returned.getRoutingKey()));
+        channel.confirmSelect();
+        channel.basicQos(batchSize);
+        channel.basicConsume(dlxQueueName, false, new DefaultConsumer(channel)
+        {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body)
+            {
+                deliveries.add(new Delivery(envelope, properties, body));
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        long replayed = 0;
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        List<String> originQueueNames = new ArrayList<>(batchSize);
+        while (replayed < limit)
+        {
+            batch.clear();
+            originQueueNames.clear();
+            returnedRoutingKeys.clear();
+            Delivery delivery = deliveries.poll(receiveTimeout, TimeUnit.MILLISECONDS);
+            while (delivery != null)
+            {
+                batch.add(delivery);
+                delivery = batch.size() < batchSize && replayed + batch.size() < limit ? deliveries.poll() : null;
+            }
+            if (batch.isEmpty())
+            {
+                break;
+            }
+
+            for (Delivery message : batch)
+            {
+                String originQueueName = determineOriginQueueName(dlxQueueName, message.getProperties().getHeaders());
+                originQueueNames.add(originQueueName);
+                if (originQueueName != null)
+                {
+                    channel.basicPublish("", originQueueName, true, message.getProperties(), message.getBody());
+                }
+            }
+            channel.waitForConfirmsOrDie(confirmTimeout);
+            acknowledge(channel, dlxQueueName, batch, originQueueNames, returnedRoutingKeys);
+            replayed += batch.size();
+            throttle(start, replayed);
+        }
+        return replayed;
+    }
+
+    private static void acknowledge(Channel channel, String dlxQueueName, List<Delivery> batch, List<String> originQueueNames, Set<String> returnedRoutingKeys)
+            throws IOException
+    {
+        if (!originQueueNames.contains(null) && returnedRoutingKeys.isEmpty())
+        {
+            channel.basicAck(batch.get(batch.size() - 1).getEnvelope().getDeliveryTag(), true);
+            return;
+        }
+
+        List<String> failedOriginQueueNames = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++)
+        {
+            long deliveryTag = batch.get(i).getEnvelope().getDeliveryTag();
+            String originQueueName = originQueueNames.get(i);
+            if (originQueueName == null || returnedRoutingKeys.contains(originQueueName))
+            {
+                channel.basicNack(deliveryTag, false, true);
+                failedOriginQueueNames.add(originQueueName);
+            }
+            else
+            {
+                channel.basicAck(deliveryTag, false);
+            }
+        }
+        throw new AmqpException("replay of '" + dlxQueueName + "' stopped, origin-queues " + failedOriginQueueNames + " could not be determined or do not exist");
+    }
+
+    private void throttle(long start, long replayed) throws InterruptedException
+    {
+        if (maxMessagesPerSecond > 0)
+        {
+            long wait = start + (replayed * 1000 / maxMessagesPerSecond) - System.currentTimeMillis();
+            if (wait > 0)
+            {
+                Thread.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Determines the {@link Queue} a message of the given DLX-{@link Queue}
+     * was dead-lettered from: the queue of the latest 'x-death'-entry (the
+     * {@link Queue} a retry-{@link Queue} belongs to, see
+     * {@link RetryTierMessageRecoverer#determineRetriedQueueName(String)})
+     * or, if absent, the name of the DLX-{@link Queue} without its
+     * '.dlx'-suffix
+     *
+     * @param dlxQueueName
+     *            the name of the DLX-{@link Queue} the message was consumed
+     *            from
+     * @param headers
+     *            the headers of the message, may be null
+     * @return the name of the origin-{@link Queue} or null if it cannot be
+     *         determined
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static String determineOriginQueueName(String dlxQueueName, Map<String, Object> headers)
+    {
+        String queueName = DeadLetterInfo.of(headers).getQueue();
+        if (queueName != null)
+        {
+            // a message parked by the RetryTierMessageRecoverer was dead-lettered last by a retry-queue
+            return RetryTierMessageRecoverer.determineRetriedQueueName(queueName);
+        }
+        if (dlxQueueName.endsWith(AmqpUtils.DLX_NAME_SUFFIX))
+        {
+            return dlxQueueName.substring(0, dlxQueueName.length() - AmqpUtils.DLX_NAME_SUFFIX.length());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.util.Assert;
+
+/**
+ * Retention-policy for DLX-{@link Queue}s, bounding the storage they use on
+ * the broker. Messages that are older than the maximum age or exceed the
+ * maximum length are discarded or, if an archive-{@link Queue} is set, moved
+ * to the archive-{@link Queue}
+ *
+ * @see QueueWithDlxBuilder#withDlxRetentionPolicy(DlxRetentionPolicy)
+ * @see AmqpUtils#buildDlxQueueFor(Queue, DlxRetentionPolicy)
+ * @since 1.1.0.RELEASE
+ */
+public class DlxRetentionPolicy
+{
+    private Duration maxAge;
+
+    private Integer maxLength;
+
+    private Long maxLengthBytes;
+
+    private String archiveQueueName;
+
+    /**
+     * Sets the maximum age of the messages in the DLX-{@link Queue}
+     * ('x-message-ttl')
+     *
+     * @param maxAge
+     *            the maximum age of the messages
+     * @return the {@link DlxRetentionPolicy}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxRetentionPolicy withMaxAge(Duration maxAge)
+    {
+        Assert.isTrue(!maxAge.isNegative(), "maxAge must not be negative");
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of messages in the DLX-{@link Queue}
+     * ('x-max-length'), the oldest messages are dropped first
+     *
+     * @param maxLength
+     *            the maximum number of messages
+     * @return the {@link DlxRetentionPolicy}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxRetentionPolicy withMaxLength(int maxLength)
+    {
+        this.maxLength = Integer.valueOf(maxLength);
+        return this;
+    }
+
+    /**
+     * Sets the maximum total size of the message-bodies in the
+     * DLX-{@link Queue} ('x-max-length-bytes'), the oldest messages are dropped
+     * first
+     *
+     * @param maxLengthBytes
+     *            the maximum size of the messages in bytes
+     * @return the {@link DlxRetentionPolicy}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxRetentionPolicy withMaxLengthBytes(long maxLengthBytes)
+    {
+        this.maxLengthBytes = Long.valueOf(maxLengthBytes);
+        return this;
+    }
+
+    /**
+     * Sets the {@link Queue} expired or dropped messages of the
+     * DLX-{@link Queue} are moved to instead of being discarded. The
+     * archive-{@link Queue} (e.g. a stream-{@link Queue} with its own
+     * retention) is not built by this library and must be declared separately
+     *
+     * @param archiveQueueName
+     *            the name of the archive-{@link Queue}
+     * @return the {@link DlxRetentionPolicy}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public DlxRetentionPolicy withArchiveQueue(String archiveQueueName)
+    {
+        this.archiveQueueName = archiveQueueName;
+        return this;
+    }
+
+    /**
+     * @return the maximum age of the messages, may be null
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Duration getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return the maximum number of messages, may be null
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Integer getMaxLength()
+    {
+        return maxLength;
+    }
+
+    /**
+     * @return the maximum size of the messages in bytes, may be null
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Long getMaxLengthBytes()
+    {
+        return maxLengthBytes;
+    }
+
+    /**
+     * @return the name of the archive-{@link Queue}, may be null
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String getArchiveQueueName()
+    {
+        return archiveQueueName;
+    }
+
+    Map<String, Object> toArguments()
+    {
+        Map<String, Object> arguments = new HashMap<>();
+        if (maxAge != null)
+        {
+            arguments.put(QueueArguments.X_MESSAGE_TTL, Long.valueOf(maxAge.toMillis()));
+        }
+        if (maxLength != null)
+        {
+            arguments.put(QueueArguments.X_MAX_LENGTH, maxLength);
+        }
+        if (maxLengthBytes != null)
+        {
+            arguments.put(QueueArguments.X_MAX_LENGTH_BYTES, maxLengthBytes);
+        }
+        if (archiveQueueName != null)
+        {
+            arguments.put(QueueArguments.X_DEAD_LETTER_EXCHANGE, "");
+            arguments.put(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, archiveQueueName);
+        }
+        return arguments;
+    }
+}
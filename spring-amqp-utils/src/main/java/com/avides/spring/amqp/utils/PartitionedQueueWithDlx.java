@@ -0,0 +1,74 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * {@link Declarables} containing a consistent-hash-{@link Exchange} and its
+ * partitions, each of them a {@link QueueWithDlx} bound to the
+ * {@link Exchange}. Registered as a single bean, all of them are declared by
+ * the {@link AmqpAdmin}s in one pass
+ *
+ * @see AmqpUtils#buildDurablePartitionedQueueWithDlx(String, int, Object,
+ *      Object...)
+ * @since 1.1.0.RELEASE
+ */
+public class PartitionedQueueWithDlx extends Declarables
+{
+    /**
+     * Type of the {@link Exchange} distributing the messages to the
+     * partitions (provided by the 'rabbitmq_consistent_hash_exchange'-plugin)
+     */
+    public static final String CONSISTENT_HASH_EXCHANGE_TYPE = "x-consistent-hash";
+
+    private final Exchange exchange;
+
+    private final List<QueueWithDlx> partitions;
+
+    PartitionedQueueWithDlx(Exchange exchange, List<QueueWithDlx> partitions)
+    {
+        super(collect(exchange, partitions));
+        this.exchange = exchange;
+        this.partitions = Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * @return the consistent-hash-{@link Exchange} to publish to
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Exchange getExchange()
+    {
+        return exchange;
+    }
+
+    /**
+     * @return the partitions, each containing the partition-{@link Queue} and
+     *         its DLX-{@link Queue}, ordered by their index
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<QueueWithDlx> getPartitions()
+    {
+        return partitions;
+    }
+
+    private static Collection<Declarable> collect(Exchange exchange, List<QueueWithDlx> partitions)
+    {
+        List<Declarable> declarables = new ArrayList<>(1 + 3 * partitions.size());
+        declarables.add(exchange);
+        for (QueueWithDlx partition : partitions)
+        {
+            declarables.addAll(partition.getDeclarables());
+        }
+        return declarables;
+    }
+}
@@ -0,0 +1,304 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * Advice for the advice-chain of a listener-container consuming a
+ * {@link QueueWithDlx}, stopping the listener-container as soon as its
+ * listener failed (and so dead-lettered) failure-threshold messages within the
+ * failure-window. The failures are counted in fixed windows, succeeding
+ * messages in between do not reset the count. After the open-duration the
+ * listener-container is started again (half-open), unless it was already
+ * stopped by someone else when the circuit opened or was started meanwhile:
+ * if half-open-probes messages succeed it stays running,
+ * the first failing message stops it again. While half-open the listener is
+ * called for at most half-open-rate messages per second, the consumer-threads
+ * wait for their turn, so a still broken downstream dependency dead-letters
+ * only a few probes instead of a prefetch-window of messages before the
+ * circuit opens again. Messages received while open are
+ * requeued without calling the listener, so a broken downstream dependency
+ * does not shuffle the whole {@link org.springframework.amqp.core.Queue} into
+ * its DLX-{@link org.springframework.amqp.core.Queue}
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class PoisonMessageCircuitBreaker implements MethodInterceptor, DisposableBean
+{
+    /**
+     * @since 1.1.0.RELEASE
+     */
+    public enum State
+    {
+        /**
+         * listener-container running, failures are counted
+         */
+        CLOSED,
+
+        /**
+         * listener-container stopped
+         */
+        OPEN,
+
+        /**
+         * listener-container running again, probing whether the listener
+         * succeeds
+         */
+        HALF_OPEN
+    }
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final MessageListenerContainer container;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicInteger probes = new AtomicInteger();
+
+    private final AtomicLong nextProbe = new AtomicLong();
+
+    private int failureThreshold = 100;
+
+    private Duration failureWindow = Duration.ofSeconds(10);
+
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    private int halfOpenProbes = 10;
+
+    private double halfOpenRate = 1;
+
+    private volatile boolean stoppedContainer;
+
+    /**
+     * @param container
+     *            the listener-container to stop and start, must have this
+     *            {@link PoisonMessageCircuitBreaker} in its advice-chain
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public PoisonMessageCircuitBreaker(MessageListenerContainer container)
+    {
+        Assert.notNull(container, "container must not be null");
+        this.container = container;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "poison-message-circuit-breaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param failureThreshold
+     *            the number of failed messages within the failure-window that
+     *            opens the circuit (default 100)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setFailureThreshold(int failureThreshold)
+    {
+        Assert.isTrue(failureThreshold > 0, "failureThreshold must be positive");
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * @param failureWindow
+     *            the window the failed messages are counted in (default 10
+     *            seconds)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setFailureWindow(Duration failureWindow)
+    {
+        Assert.isTrue(!failureWindow.isNegative() && !failureWindow.isZero(), "failureWindow must be positive");
+        this.failureWindow = failureWindow;
+    }
+
+    /**
+     * @param openDuration
+     *            the duration the listener-container stays stopped before
+     *            probing (default 30 seconds)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setOpenDuration(Duration openDuration)
+    {
+        Assert.isTrue(!openDuration.isNegative(), "openDuration must not be negative");
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * @param halfOpenProbes
+     *            the number of messages that must succeed while half-open to
+     *            close the circuit (default 10)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setHalfOpenProbes(int halfOpenProbes)
+    {
+        Assert.isTrue(halfOpenProbes > 0, "halfOpenProbes must be positive");
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * @param halfOpenRate
+     *            the maximum number of messages per second the listener is
+     *            called for while half-open (default 1)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setHalfOpenRate(double halfOpenRate)
+    {
+        Assert.isTrue(halfOpenRate > 0, "halfOpenRate must be positive");
+        this.halfOpenRate = halfOpenRate;
+    }
+
+    /**
+     * @return the current {@link State}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public State getState()
+    {
+        return state.get();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable
+    {
+        if (state.get() == State.HALF_OPEN)
+        {
+            awaitProbe();
+        }
+        if (state.get() == State.OPEN)
+        {
+            // the listener-container is stopping, nothing must reach the DLX meanwhile
+            throw new ImmediateRequeueAmqpException("circuit open");
+        }
+        Object result;
+        try
+        {
+            result = invocation.proceed();
+        }
+        catch (Throwable e)
+        {
+            onFailure();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    private void awaitProbe()
+    {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / halfOpenRate);
+        long now = System.nanoTime();
+        long probe = Math.max(nextProbe.getAndAccumulate(now, (next, current) -> Math.max(next, current) + interval), now);
+        try
+        {
+            TimeUnit.NANOSECONDS.sleep(probe - now);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ImmediateRequeueAmqpException("circuit half-open, interrupted while waiting for the next probe", e);
+        }
+    }
+
+    private void onSuccess()
+    {
+        if (state.get() == State.HALF_OPEN && probes.incrementAndGet() >= halfOpenProbes && state.compareAndSet(State.HALF_OPEN, State.CLOSED))
+        {
+            logger.info("circuit closed, " + halfOpenProbes + " messages succeeded");
+        }
+    }
+
+    private void onFailure()
+    {
+        State currentState = state.get();
+        if (currentState == State.HALF_OPEN)
+        {
+            open();
+        }
+        else if (currentState == State.CLOSED)
+        {
+            long now = System.currentTimeMillis();
+            long start = windowStart.get();
+            if (now - start >= failureWindow.toMillis() && windowStart.compareAndSet(start, now))
+            {
+                failures.set(0);
+            }
+            if (failures.incrementAndGet() >= failureThreshold)
+            {
+                open();
+            }
+        }
+    }
+
+    private void open()
+    {
+        if (state.getAndSet(State.OPEN) != State.OPEN)
+        {
+            logger.warn("circuit opened, stopping listener-container for " + openDuration);
+            // stopping from a consumer-thread would wait for that consumer-thread itself
+            scheduler.execute(this::stopContainer);
+            scheduler.schedule(this::halfOpen, openDuration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopContainer()
+    {
+        // a listener-container stopped by someone else is not started again on half-open
+        stoppedContainer = container.isRunning();
+        if (stoppedContainer)
+        {
+            container.stop();
+        }
+    }
+
+    private void halfOpen()
+    {
+        failures.set(0);
+        windowStart.set(System.currentTimeMillis());
+        probes.set(0);
+        nextProbe.set(System.nanoTime());
+        if (state.compareAndSet(State.OPEN, State.HALF_OPEN))
+        {
+            if (stoppedContainer && !container.isRunning())
+            {
+                logger.info("circuit half-open, starting listener-container");
+                container.start();
+            }
+            else
+            {
+                logger.info("circuit half-open, listener-container was not stopped by the circuit-breaker and is left as it is");
+            }
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        scheduler.shutdownNow();
+    }
+}
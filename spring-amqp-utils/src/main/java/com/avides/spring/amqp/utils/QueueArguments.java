@@ -0,0 +1,127 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.Map;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.util.Assert;
+
+public abstract class QueueArguments
+{
+    // argument-keys:
+    public static final String X_DEAD_LETTER_EXCHANGE = "x-dead-letter-exchange";
+    public static final String X_DEAD_LETTER_ROUTING_KEY = "x-dead-letter-routing-key";
+    public static final String X_QUEUE_MODE = "x-queue-mode";
+    public static final String X_MESSAGE_TTL = "x-message-ttl";
+    public static final String X_QUEUE_TYPE = "x-queue-type";
+    public static final String X_DELIVERY_LIMIT = "x-delivery-limit";
+    public static final String X_MAX_IN_MEMORY_LENGTH = "x-max-in-memory-length";
+    public static final String X_MAX_IN_MEMORY_BYTES = "x-max-in-memory-bytes";
+    public static final String X_OVERFLOW = "x-overflow";
+    public static final String X_DEAD_LETTER_STRATEGY = "x-dead-letter-strategy";
+    public static final String X_MAX_LENGTH = "x-max-length";
+    public static final String X_MAX_LENGTH_BYTES = "x-max-length-bytes";
+    public static final String X_MAX_PRIORITY = "x-max-priority";
+    public static final String X_EXPIRES = "x-expires";
+    public static final String X_QUEUE_MASTER_LOCATOR = "x-queue-master-locator";
+    public static final String X_QUEUE_LEADER_LOCATOR = "x-queue-leader-locator";
+    public static final String X_MAX_AGE = "x-max-age";
+
+    // argument-values:
+    public static final String LAZY = "lazy";
+    public static final String CLASSIC = "classic";
+    public static final String QUORUM = "quorum";
+    public static final String STREAM = "stream";
+    public static final String DROP_HEAD = "drop-head";
+    public static final String REJECT_PUBLISH = "reject-publish";
+    public static final String REJECT_PUBLISH_DLX = "reject-publish-dlx";
+    public static final String AT_LEAST_ONCE = "at-least-once";
+    public static final int MAX_PRIORITY_LIMIT = 255;
+    public static final String MIN_MASTERS = "min-masters";
+    public static final String CLIENT_LOCAL = "client-local";
+    public static final String RANDOM = "random";
+    public static final String BALANCED = "balanced";
+
+    private QueueArguments()
+    {
+        // private constructor to hide the public one
+    }
+
+    /**
+     * Validates that the arguments of the given {@link Queue} are supported
+     * by its queue-type ('x-queue-type', classic if absent)
+     *
+     * @param queue
+     *            the {@link Queue} to validate
+     * @throws IllegalArgumentException
+     *             if the {@link Queue} has arguments or properties that are
+     *             invalid for its queue-type
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static void validate(Queue queue)
+    {
+        Map<String, Object> arguments = queue.getArguments();
+        Object queueType = arguments.containsKey(X_QUEUE_TYPE) ? arguments.get(X_QUEUE_TYPE) : CLASSIC;
+
+        if (QUORUM.equals(queueType) || STREAM.equals(queueType))
+        {
+            Assert.isTrue(queue.isDurable() && !queue.isExclusive() && !queue.isAutoDelete(),
+                    () -> queueType + "-queue '" + queue.getName() + "' must be durable, non-exclusive and non-auto-delete");
+            assertAbsent(queue, queueType, X_QUEUE_MODE);
+        }
+        if (!CLASSIC.equals(queueType))
+        {
+            assertAbsent(queue, queueType, X_MAX_PRIORITY);
+        }
+        if (arguments.containsKey(X_MAX_PRIORITY))
+        {
+            Object maxPriority = arguments.get(X_MAX_PRIORITY);
+            Assert.isTrue(maxPriority instanceof Number && ((Number) maxPriority).intValue() > 0 && ((Number) maxPriority).intValue() <= MAX_PRIORITY_LIMIT,
+                    () -> X_MAX_PRIORITY + "=" + maxPriority + " of queue '" + queue.getName() + "' must be between 1 and " + MAX_PRIORITY_LIMIT);
+        }
+        if (arguments.containsKey(X_QUEUE_MASTER_LOCATOR))
+        {
+            Object masterLocator = arguments.get(X_QUEUE_MASTER_LOCATOR);
+            Assert.isTrue(CLASSIC.equals(queueType) && (MIN_MASTERS.equals(masterLocator) || CLIENT_LOCAL.equals(masterLocator) || RANDOM.equals(masterLocator)),
+                    () -> X_QUEUE_MASTER_LOCATOR + "=" + masterLocator + " is not supported by " + queueType + "-queue '" + queue.getName() + "'");
+        }
+        if (arguments.containsKey(X_QUEUE_LEADER_LOCATOR))
+        {
+            Object leaderLocator = arguments.get(X_QUEUE_LEADER_LOCATOR);
+            Assert.isTrue(CLIENT_LOCAL.equals(leaderLocator) || BALANCED.equals(leaderLocator),
+                    () -> X_QUEUE_LEADER_LOCATOR + "=" + leaderLocator + " is not supported by " + queueType + "-queue '" + queue.getName() + "'");
+        }
+        if (!QUORUM.equals(queueType))
+        {
+            assertAbsent(queue, queueType, X_DELIVERY_LIMIT, X_MAX_IN_MEMORY_LENGTH, X_MAX_IN_MEMORY_BYTES, X_DEAD_LETTER_STRATEGY);
+        }
+        if (!STREAM.equals(queueType))
+        {
+            assertAbsent(queue, queueType, X_MAX_AGE);
+        }
+        if (STREAM.equals(queueType))
+        {
+            assertAbsent(queue, queueType, X_DEAD_LETTER_EXCHANGE, X_DEAD_LETTER_ROUTING_KEY, X_MESSAGE_TTL, X_OVERFLOW, X_MAX_LENGTH, X_EXPIRES);
+        }
+        if (arguments.containsKey(X_OVERFLOW))
+        {
+            Object overflow = arguments.get(X_OVERFLOW);
+            Assert.isTrue(DROP_HEAD.equals(overflow) || REJECT_PUBLISH.equals(overflow) || (REJECT_PUBLISH_DLX.equals(overflow) && !QUORUM.equals(queueType)),
+                    () -> X_OVERFLOW + "=" + overflow + " is not supported by " + queueType + "-queue '" + queue.getName() + "'");
+        }
+        if (AT_LEAST_ONCE.equals(arguments.get(X_DEAD_LETTER_STRATEGY)))
+        {
+            Assert.isTrue(REJECT_PUBLISH.equals(arguments.get(X_OVERFLOW)),
+                    () -> "queue '" + queue.getName() + "' with " + X_DEAD_LETTER_STRATEGY + "=" + AT_LEAST_ONCE + " requires " + X_OVERFLOW + "=" + REJECT_PUBLISH);
+        }
+    }
+
+    private static void assertAbsent(Queue queue, Object queueType, String... argumentKeys)
+    {
+        for (String argumentKey : argumentKeys)
+        {
+            Assert.isTrue(!queue.getArguments().containsKey(argumentKey),
+                    () -> "argument '" + argumentKey + "' is not supported by " + queueType + "-queue '" + queue.getName() + "'");
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.avides.spring.amqp.utils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.AMQP.Queue.DeclareOk;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Polls the depth (ready messages and consumers) of {@link Queue}s with
+ * passive declarations, all {@link Queue}s of a poll on one channel. The
+ * results are cached, so reading them costs no broker round-trip. A
+ * {@link Queue} with a backpressure-threshold signals backpressure as soon as
+ * its depth reaches the threshold, so publishers can slow down before the
+ * broker blocks their connections. A cached depth older than the max-age
+ * (e.g. because polling fails while the broker is unreachable) is unknown, it
+ * is neither returned nor signals backpressure. Started and stopped with the
+ * application-context, or manually with {@link #start()} and {@link #stop()}
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class QueueDepthMonitor implements SmartLifecycle
+{
+    private static final long NO_THRESHOLD = Long.MAX_VALUE;
+
+    private static final int DEFAULT_MAX_AGE_POLLS = 3;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private final ConnectionFactory connectionFactory;
+
+    private final Map<String, Long> thresholds = new ConcurrentHashMap<>();
+
+    private final Map<String, QueueDepth> depths = new ConcurrentHashMap<>();
+
+    private final List<Consumer<String>> monitorListeners = new CopyOnWriteArrayList<>();
+
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    private Duration maxAge;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param connectionFactory
+     *            the {@link ConnectionFactory} to poll with
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueDepthMonitor(ConnectionFactory connectionFactory)
+    {
+        Assert.notNull(connectionFactory, "connectionFactory must not be null");
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @param pollInterval
+     *            the interval between two polls (default 5 seconds)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setPollInterval(Duration pollInterval)
+    {
+        Assert.isTrue(!pollInterval.isNegative() && !pollInterval.isZero(), "pollInterval must be positive");
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * @param maxAge
+     *            the age from which on a cached depth is unknown (default 3
+     *            poll-intervals)
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void setMaxAge(Duration maxAge)
+    {
+        Assert.isTrue(!maxAge.isNegative() && !maxAge.isZero(), "maxAge must be positive");
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Monitors the {@link Queue} with the given name without
+     * backpressure-threshold
+     *
+     * @param queueName
+     *            the name of the {@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void monitor(String queueName)
+    {
+        if (thresholds.putIfAbsent(queueName, Long.valueOf(NO_THRESHOLD)) == null)
+        {
+            notifyMonitorListeners(queueName);
+        }
+    }
+
+    /**
+     * Monitors the {@link Queue} with the given name
+     *
+     * @param queueName
+     *            the name of the {@link Queue}
+     * @param backpressureThreshold
+     *            the number of ready messages from which on the {@link Queue}
+     *            signals backpressure
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void monitor(String queueName, long backpressureThreshold)
+    {
+        Assert.isTrue(backpressureThreshold > 0, "backpressureThreshold must be positive");
+        if (thresholds.put(queueName, Long.valueOf(backpressureThreshold)) == null)
+        {
+            notifyMonitorListeners(queueName);
+        }
+    }
+
+    /**
+     * Monitors the {@link Queue} and the DLX-{@link Queue} of the given
+     * {@link QueueWithDlx}, only the {@link Queue} gets the
+     * backpressure-threshold
+     *
+     * @param queueWithDlx
+     *            the {@link QueueWithDlx}
+     * @param backpressureThreshold
+     *            the number of ready messages from which on the {@link Queue}
+     *            signals backpressure
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void monitor(QueueWithDlx queueWithDlx, long backpressureThreshold)
+    {
+        monitor(queueWithDlx.getQueue().getName(), backpressureThreshold);
+        monitor(queueWithDlx.getDlxQueue().getName());
+    }
+
+    /**
+     * Registers a listener that is called with the name of every {@link Queue}
+     * monitored from now on, e.g. to register a gauge for it
+     *
+     * @param listener
+     *            the listener
+     */
+    void addMonitorListener(Consumer<String> listener)
+    {
+        monitorListeners.add(listener);
+    }
+
+    private void notifyMonitorListeners(String queueName)
+    {
+        for (Consumer<String> listener : monitorListeners)
+        {
+            listener.accept(queueName);
+        }
+    }
+
+    /**
+     * @return the names of all monitored {@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Set<String> getQueueNames()
+    {
+        return Collections.unmodifiableSet(new HashSet<>(thresholds.keySet()));
+    }
+
+    /**
+     * @param queueName
+     *            the name of the {@link Queue}
+     * @return the depth of the last poll, null if not polled yet, older
+     *         than the max-age or the {@link Queue} does not exist
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueDepth getDepth(String queueName)
+    {
+        QueueDepth depth = depths.get(queueName);
+        return depth != null && isFresh(depth, System.currentTimeMillis()) ? depth : null;
+    }
+
+    /**
+     * @return the depths of the last poll by the names of the {@link Queue}s,
+     *         without the ones older than the max-age
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Map<String, QueueDepth> getDepths()
+    {
+        long now = System.currentTimeMillis();
+        Map<String, QueueDepth> freshDepths = new HashMap<>();
+        for (QueueDepth depth : depths.values())
+        {
+            if (isFresh(depth, now))
+            {
+                freshDepths.put(depth.getQueueName(), depth);
+            }
+        }
+        return Collections.unmodifiableMap(freshDepths);
+    }
+
+    /**
+     * @param queueName
+     *            the name of the {@link Queue}
+     * @return true if the ready messages of the {@link Queue} reached its
+     *         backpressure-threshold at the last poll, false if its depth is
+     *         unknown (see {@link #getDepth(String)})
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isBackpressure(String queueName)
+    {
+        QueueDepth depth = getDepth(queueName);
+        Long threshold = thresholds.get(queueName);
+        return depth != null && threshold != null && depth.getMessageCount() >= threshold.longValue();
+    }
+
+    /**
+     * @return true if any monitored {@link Queue} reached its
+     *         backpressure-threshold at the last poll
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isBackpressure()
+    {
+        for (String queueName : thresholds.keySet())
+        {
+            if (isBackpressure(queueName))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Polls the depth of all monitored {@link Queue}s now. A {@link Queue}
+     * that does not exist closes the channel, the remaining {@link Queue}s are
+     * polled on a new one
+     *
+     * @throws AmqpException
+     *             if no connection can be established
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public void poll()
+    {
+        Connection connection = connectionFactory.createConnection();
+        Channel channel = null;
+        try
+        {
+            for (String queueName : thresholds.keySet())
+            {
+                if (channel == null)
+                {
+                    channel = connection.createChannel(false);
+                }
+                try
+                {
+                    DeclareOk declareOk = channel.queueDeclarePassive(queueName);
+                    depths.put(queueName, new QueueDepth(queueName, declareOk.getMessageCount(), declareOk.getConsumerCount(), System.currentTimeMillis()));
+                }
+                catch (IOException e)
+                {
+                    logger.debug("queue '" + queueName + "' does not exist", e);
+                    depths.remove(queueName);
+                    closeChannel(channel);
+                    channel = null;
+                }
+            }
+        }
+        finally
+        {
+            closeChannel(channel);
+            RabbitUtils.closeConnection(connection);
+        }
+    }
+
+    private boolean isFresh(QueueDepth depth, long now)
+    {
+        long maxAgeMillis = maxAge != null ? maxAge.toMillis() : DEFAULT_MAX_AGE_POLLS * pollInterval.toMillis();
+        return now - depth.getTimestamp() < maxAgeMillis;
+    }
+
+    private static void closeChannel(Channel channel)
+    {
+        if (channel != null)
+        {
+            RabbitUtils.setPhysicalCloseRequired(channel, true);
+            RabbitUtils.closeChannel(channel);
+        }
+    }
+
+    private void pollQuietly()
+    {
+        try
+        {
+            poll();
+        }
+        catch (RuntimeException e)
+        {
+            // the cached depths stay available until they exceed the max-age
+            logger.warn("polling queue-depths failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if (scheduler == null)
+        {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "queue-depth-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::pollQuietly, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        if (scheduler != null)
+        {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning()
+    {
+        return scheduler != null;
+    }
+
+    @Override
+    public boolean isAutoStartup()
+    {
+        return true;
+    }
+
+    @Override
+    public void stop(Runnable callback)
+    {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public int getPhase()
+    {
+        return 0;
+    }
+
+    /**
+     * Depth of a {@link Queue} at the time of a poll
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static class QueueDepth
+    {
+        private final String queueName;
+
+        private final long messageCount;
+
+        private final long consumerCount;
+
+        private final long timestamp;
+
+        QueueDepth(String queueName, long messageCount, long consumerCount, long timestamp)
+        {
+            this.queueName = queueName;
+            this.messageCount = messageCount;
+            this.consumerCount = consumerCount;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * @return the name of the {@link Queue}
+         */
+        public String getQueueName()
+        {
+            return queueName;
+        }
+
+        /**
+         * @return the number of ready messages
+         */
+        public long getMessageCount()
+        {
+            return messageCount;
+        }
+
+        /**
+         * @return the number of consumers
+         */
+        public long getConsumerCount()
+        {
+            return consumerCount;
+        }
+
+        /**
+         * @return the time of the poll in milliseconds since the epoch
+         */
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+    }
+}
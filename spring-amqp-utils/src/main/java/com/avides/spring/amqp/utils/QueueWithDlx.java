@@ -0,0 +1,114 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+
+/**
+ * {@link Declarables} containing a {@link Queue}, its belonging
+ * DLX-{@link Queue}, optional retry-{@link Queue}s and the {@link Binding}s of
+ * the {@link Queue}. Registered
+ * as a single bean, all of them are declared by the {@link AmqpAdmin}s in one
+ * pass
+ *
+ * @see QueueWithDlxBuilder
+ * @since 1.1.0.RELEASE
+ */
+public class QueueWithDlx extends Declarables
+{
+    private final Queue queue;
+
+    private final Queue dlxQueue;
+
+    private final boolean dlxQueueShared;
+
+    private final List<Queue> retryQueues;
+
+    private final List<Binding> bindings;
+
+    QueueWithDlx(Queue queue, Queue dlxQueue, boolean dlxQueueShared, List<Queue> retryQueues, List<Binding> bindings)
+    {
+        super(collect(queue, dlxQueueShared ? null : dlxQueue, retryQueues, bindings));
+        this.queue = queue;
+        this.dlxQueue = dlxQueue;
+        this.dlxQueueShared = dlxQueueShared;
+        this.retryQueues = Collections.unmodifiableList(retryQueues);
+        this.bindings = Collections.unmodifiableList(bindings);
+    }
+
+    /**
+     * @return the {@link Queue} with the necessary DLX-arguments
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Queue getQueue()
+    {
+        return queue;
+    }
+
+    /**
+     * @return the DLX-{@link Queue} belonging to {@link #getQueue()}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Queue getDlxQueue()
+    {
+        return dlxQueue;
+    }
+
+    /**
+     * @return true if {@link #getDlxQueue()} is a shared DLX-{@link Queue} of
+     *         a {@link SharedDlx}, which is not contained in these
+     *         {@link Declarables}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public boolean isDlxQueueShared()
+    {
+        return dlxQueueShared;
+    }
+
+    /**
+     * @return the retry-{@link Queue}s of {@link #getQueue()} in the order
+     *         they are passed, may be empty
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<Queue> getRetryQueues()
+    {
+        return retryQueues;
+    }
+
+    /**
+     * @return the {@link Binding}s of {@link #getQueue()} and, if
+     *         {@link #isDlxQueueShared()}, the {@link Binding} of the shared
+     *         DLX-{@link Queue} for the dead letters of {@link #getQueue()},
+     *         may be empty
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<Binding> getBindings()
+    {
+        return bindings;
+    }
+
+    private static Collection<Declarable> collect(Queue queue, Queue dlxQueue, List<Queue> retryQueues, List<Binding> bindings)
+    {
+        List<Declarable> declarables = new ArrayList<>(2 + retryQueues.size() + bindings.size());
+        declarables.add(queue);
+        if (dlxQueue != null)
+        {
+            declarables.add(dlxQueue);
+        }
+        declarables.addAll(retryQueues);
+        declarables.addAll(bindings);
+        return declarables;
+    }
+}
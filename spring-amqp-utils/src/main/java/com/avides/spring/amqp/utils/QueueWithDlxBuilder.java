@@ -0,0 +1,623 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.util.Assert;
+
+/**
+ * Builder for a {@link QueueWithDlx}, i.e. a {@link Queue} with necessary
+ * DLX-arguments, its belonging DLX-{@link Queue} and optional {@link Binding}s,
+ * which can be registered as one bean
+ *
+ * @since 1.1.0.RELEASE
+ */
+public final class QueueWithDlxBuilder
+{
+    private static final String EPHEMERAL_NAME_SEPARATOR = ".";
+
+    private final String queueName;
+
+    private final boolean durable;
+
+    private final String queueType;
+
+    private final String ephemeralNamePrefix;
+
+    private boolean exclusive;
+
+    private boolean autoDelete;
+
+    private final Map<String, Object> arguments = new HashMap<>();
+
+    private final List<Object> admins = new ArrayList<>();
+
+    private final List<Object> dlxAdmins = new ArrayList<>();
+
+    private final List<Binding> bindings = new ArrayList<>();
+
+    private final List<Duration> retryDelays = new ArrayList<>();
+
+    private DlxRetentionPolicy dlxRetentionPolicy;
+
+    private SharedDlx sharedDlx;
+
+    private QueueWithDlxBuilder(String queueName, boolean durable, String queueType)
+    {
+        this(queueName, durable, queueType, null);
+    }
+
+    private QueueWithDlxBuilder(String queueName, boolean durable, String queueType, String ephemeralNamePrefix)
+    {
+        this.queueName = queueName;
+        this.durable = durable;
+        this.queueType = queueType;
+        this.ephemeralNamePrefix = ephemeralNamePrefix;
+    }
+
+    /**
+     * Creates a builder for a durable {@link Queue} and a durable
+     * DLX-{@link Queue}
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlxBuilder durable(String queueName)
+    {
+        return new QueueWithDlxBuilder(queueName, true, QueueArguments.CLASSIC);
+    }
+
+    /**
+     * Creates a builder for a non-durable {@link Queue} and a non-durable
+     * DLX-{@link Queue}
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlxBuilder nonDurable(String queueName)
+    {
+        return new QueueWithDlxBuilder(queueName, false, QueueArguments.CLASSIC);
+    }
+
+    /**
+     * Creates a builder for a quorum-{@link Queue} and a quorum-DLX-{@link Queue}
+     * (quorum-{@link Queue}s are always durable)
+     *
+     * @param queueName
+     *            the name for the {@link Queue} and the DLX-{@link Queue} (the
+     *            latter one is suffixed with '.dlx')
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlxBuilder quorum(String queueName)
+    {
+        return new QueueWithDlxBuilder(queueName, true, QueueArguments.QUORUM);
+    }
+
+    /**
+     * Creates a builder for an ephemeral, non-durable {@link Queue} of one
+     * application-instance (e.g. for replies or broadcasts), which the broker
+     * deletes after it was unused for the given time ('x-expires'), so
+     * {@link Queue}s of crashed or removed instances do not linger. The name is
+     * the given prefix followed by a unique suffix, e.g.
+     * 'reply.queue.UaZ2PvxrSQGI_vnFWd0V8Q'. Ephemeral {@link Queue}s have no
+     * own DLX-{@link Queue}, they must dead-letter into a {@link SharedDlx}
+     * (see {@link #withSharedDlx(SharedDlx)}), and no retry-tiers. All
+     * ephemeral {@link Queue}s with the same prefix share one binding
+     * '&lt;namePrefix&gt;.*' on the shared DLX-{@link Exchange}, which is
+     * declared again by every instance, so the shared DLX-{@link Exchange}
+     * does not collect a binding per expired {@link Queue}
+     *
+     * @param namePrefix
+     *            the prefix of the generated name
+     * @param expires
+     *            the time the {@link Queue} may be unused (no consumers, no
+     *            redeclaration, no basic.get) before the broker deletes it
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static QueueWithDlxBuilder ephemeral(String namePrefix, Duration expires)
+    {
+        Assert.isTrue(!expires.isNegative() && !expires.isZero(), "expires must be positive");
+        String queueName = new Base64UrlNamingStrategy(namePrefix + EPHEMERAL_NAME_SEPARATOR).generateName();
+        return new QueueWithDlxBuilder(queueName, false, QueueArguments.CLASSIC, namePrefix).withArgument(QueueArguments.X_EXPIRES, Long.valueOf(expires.toMillis()));
+    }
+
+    /**
+     * Makes the {@link Queue} exclusive to the connection declaring it, so it
+     * is deleted as soon as this connection closes
+     *
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder exclusive()
+    {
+        exclusive = true;
+        return this;
+    }
+
+    /**
+     * Makes the {@link Queue} auto-delete, so it is deleted as soon as its
+     * last consumer is cancelled
+     *
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder autoDelete()
+    {
+        autoDelete = true;
+        return this;
+    }
+
+    /**
+     * Adds {@link AmqpAdmin}s that should declare all built declarables (see
+     * {@link Queue#setAdminsThatShouldDeclare(Object...)})
+     *
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the declarables
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            declarables
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder declaredBy(Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        if (adminThatShouldDeclare != null)
+        {
+            admins.add(adminThatShouldDeclare);
+        }
+        Collections.addAll(admins, furtherAdminsThatShouldDeclare);
+        return this;
+    }
+
+    /**
+     * Adds {@link AmqpAdmin}s that should declare the DLX-{@link Queue}
+     * instead of the ones given by {@link #declaredBy(Object, Object...)}.
+     * Together with {@link QueueArguments#CLIENT_LOCAL} (see
+     * {@link #withLeaderLocator(String)}) and {@link AmqpAdmin}s connected to
+     * another cluster-node, the DLX-{@link Queue} is placed on another node
+     * than the {@link Queue}, so a dead-letter storm does not load the node
+     * serving the {@link Queue}
+     *
+     * @param adminThatShouldDeclare
+     *            {@link AmqpAdmin} that should declare the DLX-{@link Queue}
+     * @param furtherAdminsThatShouldDeclare
+     *            further {@link AmqpAdmin}s that should declare the
+     *            DLX-{@link Queue}
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder dlxDeclaredBy(Object adminThatShouldDeclare, Object... furtherAdminsThatShouldDeclare)
+    {
+        if (adminThatShouldDeclare != null)
+        {
+            dlxAdmins.add(adminThatShouldDeclare);
+        }
+        Collections.addAll(dlxAdmins, furtherAdminsThatShouldDeclare);
+        return this;
+    }
+
+    /**
+     * Adds a {@link Binding} of the {@link Queue} to the given {@link Exchange}
+     *
+     * @param exchange
+     *            the {@link Exchange} to bind the {@link Queue} to
+     * @param routingKey
+     *            the routing-key of the {@link Binding}
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder boundTo(Exchange exchange, String routingKey)
+    {
+        return boundTo(exchange.getName(), routingKey);
+    }
+
+    /**
+     * Adds a {@link Binding} of the {@link Queue} to the {@link Exchange} with
+     * the given name
+     *
+     * @param exchangeName
+     *            the name of the {@link Exchange} to bind the {@link Queue} to
+     * @param routingKey
+     *            the routing-key of the {@link Binding}
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder boundTo(String exchangeName, String routingKey)
+    {
+        bindings.add(new Binding(queueName, DestinationType.QUEUE, exchangeName, routingKey, Collections.emptyMap()));
+        return this;
+    }
+
+    /**
+     * Adds an argument to the {@link Queue}. Arguments that are not supported
+     * by the queue-type let {@link #build()} fail (see
+     * {@link QueueArguments#validate(Queue)})
+     *
+     * @param key
+     *            the key of the argument
+     * @param value
+     *            the value of the argument
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withArgument(String key, Object value)
+    {
+        arguments.put(key, value);
+        return this;
+    }
+
+    /**
+     * Bounds the {@link Queue} to the given number of ready messages
+     * ('x-max-length'). What happens to further messages is defined by
+     * {@link #withOverflow(String)}
+     *
+     * @param maxLength
+     *            the maximum number of ready messages
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMaxLength(int maxLength)
+    {
+        return withArgument(QueueArguments.X_MAX_LENGTH, Integer.valueOf(maxLength));
+    }
+
+    /**
+     * Bounds the {@link Queue} to the given total size of the bodies of its
+     * ready messages ('x-max-length-bytes'). What happens to further messages
+     * is defined by {@link #withOverflow(String)}
+     *
+     * @param maxLengthBytes
+     *            the maximum size of the ready messages in bytes
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMaxLengthBytes(long maxLengthBytes)
+    {
+        return withArgument(QueueArguments.X_MAX_LENGTH_BYTES, Long.valueOf(maxLengthBytes));
+    }
+
+    /**
+     * Sets the behaviour of the {@link Queue} when its maximum length is
+     * reached ('x-overflow'):
+     * <ul>
+     * <li>{@link QueueArguments#DROP_HEAD} (default): the oldest messages are
+     * dead-lettered into the DLX-{@link Queue}</li>
+     * <li>{@link QueueArguments#REJECT_PUBLISH}: new messages are rejected
+     * (nacked, if publisher-confirms are enabled)</li>
+     * <li>{@link QueueArguments#REJECT_PUBLISH_DLX}: new messages are rejected
+     * and dead-lettered into the DLX-{@link Queue} (classic-{@link Queue}s
+     * only)</li>
+     * </ul>
+     *
+     * @param overflow
+     *            the overflow-behaviour
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withOverflow(String overflow)
+    {
+        return withArgument(QueueArguments.X_OVERFLOW, overflow);
+    }
+
+    /**
+     * Makes the {@link Queue} a priority-{@link Queue} ('x-max-priority',
+     * classic-{@link Queue}s only). The DLX-{@link Queue} gets the same
+     * priorities, so dead-lettered messages keep their order by priority. The
+     * retry-{@link Queue}s do not, a priority-{@link Queue} only expires
+     * messages at the head of each priority, so retried messages with a low
+     * priority could miss their delay. A {@link SharedDlx} does not preserve
+     * priorities
+     *
+     * @param maxPriority
+     *            the highest priority (1 to 255, RabbitMQ recommends at most
+     *            10)
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMaxPriority(int maxPriority)
+    {
+        return withArgument(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(maxPriority));
+    }
+
+    /**
+     * Sets the strategy choosing the cluster-node of the leader of the
+     * {@link Queue} ('x-queue-leader-locator', RabbitMQ 3.10+ for
+     * classic-{@link Queue}s). The DLX-{@link Queue} and the
+     * retry-{@link Queue}s get the same strategy:
+     * <ul>
+     * <li>{@link QueueArguments#CLIENT_LOCAL} (default): the node the
+     * declaring connection is connected to</li>
+     * <li>{@link QueueArguments#BALANCED}: the node with the fewest leaders,
+     * so the {@link Queue}s of one {@link QueueWithDlx} are usually spread
+     * across the nodes</li>
+     * </ul>
+     *
+     * @param leaderLocator
+     *            the leader-locator
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withLeaderLocator(String leaderLocator)
+    {
+        return withArgument(QueueArguments.X_QUEUE_LEADER_LOCATOR, leaderLocator);
+    }
+
+    /**
+     * Sets the strategy choosing the cluster-node of the master of the
+     * {@link Queue} for brokers before RabbitMQ 3.10
+     * ('x-queue-master-locator', classic-{@link Queue}s only). The
+     * DLX-{@link Queue} and the retry-{@link Queue}s get the same strategy:
+     * <ul>
+     * <li>{@link QueueArguments#CLIENT_LOCAL} (default): the node the
+     * declaring connection is connected to</li>
+     * <li>{@link QueueArguments#MIN_MASTERS}: the node with the fewest
+     * masters</li>
+     * <li>{@link QueueArguments#RANDOM}: a random node</li>
+     * </ul>
+     *
+     * @param masterLocator
+     *            the master-locator
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMasterLocator(String masterLocator)
+    {
+        return withArgument(QueueArguments.X_QUEUE_MASTER_LOCATOR, masterLocator);
+    }
+
+    /**
+     * Sets the number of deliveries after which a message is dead-lettered
+     * ('x-delivery-limit', quorum-{@link Queue}s only)
+     *
+     * @param deliveryLimit
+     *            the maximum number of deliveries of a message
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withDeliveryLimit(int deliveryLimit)
+    {
+        return withArgument(QueueArguments.X_DELIVERY_LIMIT, Integer.valueOf(deliveryLimit));
+    }
+
+    /**
+     * Sets the maximum number of messages kept in memory
+     * ('x-max-in-memory-length', quorum-{@link Queue}s only)
+     *
+     * @param maxInMemoryLength
+     *            the maximum number of messages kept in memory
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMaxInMemoryLength(int maxInMemoryLength)
+    {
+        return withArgument(QueueArguments.X_MAX_IN_MEMORY_LENGTH, Integer.valueOf(maxInMemoryLength));
+    }
+
+    /**
+     * Sets the maximum total size of the message-bodies kept in memory
+     * ('x-max-in-memory-bytes', quorum-{@link Queue}s only)
+     *
+     * @param maxInMemoryBytes
+     *            the maximum size of the messages kept in memory in bytes
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withMaxInMemoryBytes(long maxInMemoryBytes)
+    {
+        return withArgument(QueueArguments.X_MAX_IN_MEMORY_BYTES, Long.valueOf(maxInMemoryBytes));
+    }
+
+    /**
+     * Enables at-least-once dead-lettering ('x-dead-letter-strategy'), so
+     * dead-lettered messages are not lost if the DLX-{@link Queue} is not
+     * available. Requires and sets 'x-overflow' to 'reject-publish'
+     * (quorum-{@link Queue}s only)
+     *
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withAtLeastOnceDeadLettering()
+    {
+        arguments.put(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH);
+        return withArgument(QueueArguments.X_DEAD_LETTER_STRATEGY, QueueArguments.AT_LEAST_ONCE);
+    }
+
+    /**
+     * Sets the {@link DlxRetentionPolicy} bounding the storage of the
+     * DLX-{@link Queue}
+     *
+     * @param retentionPolicy
+     *            the {@link DlxRetentionPolicy} for the DLX-{@link Queue}
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withDlxRetentionPolicy(DlxRetentionPolicy retentionPolicy)
+    {
+        dlxRetentionPolicy = retentionPolicy;
+        return this;
+    }
+
+    /**
+     * Lets the {@link Queue} dead-letter into the given {@link SharedDlx}
+     * instead of an own DLX-{@link Queue}. The dead letters are published to
+     * the shared DLX-{@link Exchange} with the queueName as routing-key and
+     * routed to the shared DLX-{@link Queue} determined by
+     * {@link SharedDlx#getQueueFor(String)}. The {@link SharedDlx} must be
+     * registered separately, a {@link DlxRetentionPolicy} must be applied to it
+     * instead
+     *
+     * @param sharedDlx
+     *            the {@link SharedDlx} to dead-letter into
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withSharedDlx(SharedDlx sharedDlx)
+    {
+        this.sharedDlx = sharedDlx;
+        return this;
+    }
+
+    /**
+     * Adds retry-tiers to the built {@link QueueWithDlx}. For each given delay
+     * a retry-{@link Queue} named '&lt;queueName&gt;.retry.&lt;delay&gt;' (e.g.
+     * 'queue.name.retry.10s') is built, which holds messages for the given
+     * delay and dead-letters them back to the {@link Queue} afterwards. The
+     * DLX-{@link Queue} stays the final parking-{@link Queue}. Use a
+     * {@link RetryTierMessageRecoverer} to pass failed messages through the
+     * tiers without blocking the listener
+     *
+     * @param firstDelay
+     *            the delay of the first retry-tier
+     * @param furtherDelays
+     *            the delays of the further retry-tiers, in the order they
+     *            should be passed
+     * @return the builder
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlxBuilder withRetryTiers(Duration firstDelay, Duration... furtherDelays)
+    {
+        addRetryDelay(firstDelay);
+        for (Duration delay : furtherDelays)
+        {
+            addRetryDelay(delay);
+        }
+        return this;
+    }
+
+    /**
+     * Builds the {@link QueueWithDlx}
+     *
+     * @return the {@link QueueWithDlx}
+     * @throws IllegalArgumentException
+     *             if an argument is not supported by the queue-type
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public QueueWithDlx build()
+    {
+        boolean ephemeral = ephemeralNamePrefix != null;
+        Assert.isTrue(!ephemeral || sharedDlx != null, "ephemeral queue '" + queueName + "' must dead-letter into a SharedDlx");
+        // retry-queues never have consumers, so they would expire while the instance is still alive
+        Assert.isTrue(!ephemeral || retryDelays.isEmpty(), "ephemeral queue '" + queueName + "' does not support retry-tiers");
+        Object[] declaringAdmins = admins.toArray();
+        Map<String, Object> queueArguments = buildTypedArguments();
+        queueArguments.putAll(AmqpUtils.buildDlxArguments(queueName));
+        if (sharedDlx != null)
+        {
+            queueArguments.put(QueueArguments.X_DEAD_LETTER_EXCHANGE, sharedDlx.getExchange().getName());
+            queueArguments.put(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, queueName);
+        }
+        queueArguments.putAll(arguments);
+        Queue queue = AmqpUtils.buildQueue(queueName, durable, exclusive, autoDelete, queueArguments, declaringAdmins);
+
+        // new Bindings per build, the declaring admins of a previously built QueueWithDlx must not change
+        List<Binding> allBindings = new ArrayList<>(bindings.size() + 1);
+        for (Binding binding : bindings)
+        {
+            allBindings.add(new Binding(binding.getDestination(), binding.getDestinationType(), binding.getExchange(), binding.getRoutingKey(), binding.getArguments()));
+        }
+        Queue dlxQueue;
+        if (sharedDlx != null)
+        {
+            Assert.isNull(dlxRetentionPolicy, "a DlxRetentionPolicy is not supported with a SharedDlx");
+            Assert.isTrue(dlxAdmins.isEmpty(), "dlxDeclaredBy is not supported with a SharedDlx");
+            // a binding per ephemeral queue would stay on the shared DLX-exchange after the queue expired
+            dlxQueue = sharedDlx.getQueueFor(ephemeral ? ephemeralNamePrefix : queueName);
+            String routingKey = ephemeral ? ephemeralNamePrefix + EPHEMERAL_NAME_SEPARATOR + "*" : queueName;
+            allBindings.add(new Binding(dlxQueue.getName(), DestinationType.QUEUE, sharedDlx.getExchange().getName(), routingKey, Collections.emptyMap()));
+        }
+        else
+        {
+            Map<String, Object> dlxQueueArguments = AmqpUtils.buildDlxQueueArguments(queueType, queue);
+            if (dlxRetentionPolicy != null)
+            {
+                dlxQueueArguments.putAll(dlxRetentionPolicy.toArguments());
+            }
+            dlxQueue = AmqpUtils.buildQueue(AmqpUtils.buildDlxQueueName(queueName), durable, dlxQueueArguments,
+                    dlxAdmins.isEmpty() ? declaringAdmins : dlxAdmins.toArray());
+        }
+
+        List<Queue> retryQueues = new ArrayList<>(retryDelays.size());
+        for (Duration delay : retryDelays)
+        {
+            retryQueues.add(buildRetryQueue(delay, declaringAdmins));
+        }
+
+        for (Binding binding : allBindings)
+        {
+            binding.setAdminsThatShouldDeclare(declaringAdmins);
+        }
+        return new QueueWithDlx(queue, dlxQueue, sharedDlx != null, retryQueues, allBindings);
+    }
+
+    private void addRetryDelay(Duration delay)
+    {
+        Assert.isTrue(!delay.isNegative() && !delay.isZero(), "retry-delay must be positive");
+        Assert.isTrue(!retryDelays.contains(delay), "retry-delays must be unique");
+        retryDelays.add(delay);
+    }
+
+    private Queue buildRetryQueue(Duration delay, Object[] declaringAdmins)
+    {
+        Map<String, Object> retryQueueArguments = buildTypedArguments();
+        AmqpUtils.copyInheritedArguments(arguments, retryQueueArguments);
+        // the ttl of a priority-queue only expires the heads of the priorities, messages behind higher priorities would miss their delay
+        retryQueueArguments.remove(QueueArguments.X_MAX_PRIORITY);
+        retryQueueArguments.put(QueueArguments.X_MESSAGE_TTL, Long.valueOf(delay.toMillis()));
+        retryQueueArguments.put(QueueArguments.X_DEAD_LETTER_EXCHANGE, "");
+        retryQueueArguments.put(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, queueName);
+        return AmqpUtils.buildQueue(RetryTierMessageRecoverer.buildRetryQueueName(queueName, delay), durable, retryQueueArguments, declaringAdmins);
+    }
+
+    private Map<String, Object> buildTypedArguments()
+    {
+        Map<String, Object> typedArguments = new HashMap<>();
+        if (!QueueArguments.CLASSIC.equals(queueType))
+        {
+            typedArguments.put(QueueArguments.X_QUEUE_TYPE, queueType);
+        }
+        return typedArguments;
+    }
+}
@@ -0,0 +1,139 @@
+package com.avides.spring.amqp.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MessageRecoverer} that passes failed messages through the
+ * retry-{@link Queue}s of a {@link QueueWithDlx} (see
+ * {@link QueueWithDlxBuilder#withRetryTiers(Duration, Duration...)}). The
+ * first failure publishes the message to the first retry-{@link Queue}, the
+ * second failure to the second one and so on. When all retry-tiers are
+ * passed, the message is published to the DLX-{@link Queue} like it would be
+ * dead-lettered by the {@link Queue}. The number of passed retry-tiers is
+ * taken from the 'x-death'-header, so no listener-thread is blocked while
+ * waiting for the next attempt
+ *
+ * @since 1.1.0.RELEASE
+ */
+public class RetryTierMessageRecoverer implements MessageRecoverer
+{
+    private static final String RETRY_NAME_INFIX = ".retry.";
+
+    private static final Pattern RETRY_NAME_SUFFIX = Pattern.compile(Pattern.quote(RETRY_NAME_INFIX) + "\\d+m?s$");
+
+    private final AmqpTemplate amqpTemplate;
+
+    private final List<String> retryQueueNames;
+
+    private final String dlxQueueName;
+
+    private final String dlxExchange;
+
+    private final String dlxRoutingKey;
+
+    /**
+     * @param amqpTemplate
+     *            the {@link AmqpTemplate} to publish the failed messages with
+     * @param queueWithDlx
+     *            the {@link QueueWithDlx} whose retry-{@link Queue}s and
+     *            DLX-{@link Queue} should be used
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public RetryTierMessageRecoverer(AmqpTemplate amqpTemplate, QueueWithDlx queueWithDlx)
+    {
+        Assert.notNull(amqpTemplate, "amqpTemplate must not be null");
+        this.amqpTemplate = amqpTemplate;
+        retryQueueNames = new ArrayList<>(queueWithDlx.getRetryQueues().size());
+        for (Queue retryQueue : queueWithDlx.getRetryQueues())
+        {
+            retryQueueNames.add(retryQueue.getName());
+        }
+        dlxQueueName = queueWithDlx.getDlxQueue().getName();
+        dlxExchange = (String) queueWithDlx.getQueue().getArguments().get(QueueArguments.X_DEAD_LETTER_EXCHANGE);
+        dlxRoutingKey = (String) queueWithDlx.getQueue().getArguments().get(QueueArguments.X_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause)
+    {
+        MessageProperties messageProperties = message.getMessageProperties();
+        if (messageProperties.getReceivedDeliveryMode() != null)
+        {
+            messageProperties.setDeliveryMode(messageProperties.getReceivedDeliveryMode());
+        }
+        String targetQueueName = determineTargetQueueName(message);
+        if (targetQueueName.equals(dlxQueueName))
+        {
+            amqpTemplate.send(dlxExchange, dlxRoutingKey, message);
+        }
+        else
+        {
+            amqpTemplate.send("", targetQueueName, message);
+        }
+    }
+
+    /**
+     * Determines the name of the {@link Queue} the given failed message should
+     * be published to
+     *
+     * @param message
+     *            the failed message
+     * @return the name of the next retry-{@link Queue} or the name of the
+     *         DLX-{@link Queue} if all retry-tiers are passed
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public String determineTargetQueueName(Message message)
+    {
+        long passedRetryTiers = DeadLetterInfo.of(message).getDeathCount(retryQueueNames);
+        return passedRetryTiers < retryQueueNames.size() ? retryQueueNames.get((int) passedRetryTiers) : dlxQueueName;
+    }
+
+    /**
+     * Builds the name of the retry-{@link Queue} of the given queueName for
+     * the given delay, e.g. 'queue.name.retry.10s' or 'queue.name.retry.500ms'
+     *
+     * @param queueName
+     *            the name of the {@link Queue} the retry-{@link Queue} belongs
+     *            to
+     * @param delay
+     *            the delay of the retry-{@link Queue}
+     * @return the name of the retry-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static String buildRetryQueueName(String queueName, Duration delay)
+    {
+        long millis = delay.toMillis();
+        return queueName + RETRY_NAME_INFIX + (millis % 1000 == 0 ? (millis / 1000) + "s" : millis + "ms");
+    }
+
+    /**
+     * Determines the name of the {@link Queue} the given retry-{@link Queue}
+     * belongs to, the reverse of {@link #buildRetryQueueName(String, Duration)}
+     *
+     * @param queueName
+     *            the name of a retry-{@link Queue} or of any other
+     *            {@link Queue}
+     * @return the name without the retry-suffix, e.g. 'queue.name' for
+     *         'queue.name.retry.10s', or the given queueName if it is no
+     *         retry-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public static String determineRetriedQueueName(String queueName)
+    {
+        return RETRY_NAME_SUFFIX.matcher(queueName).replaceFirst("");
+    }
+}
@@ -0,0 +1,86 @@
+package com.avides.spring.amqp.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+
+/**
+ * {@link Declarables} containing a shared DLX-{@link TopicExchange} and a
+ * fixed number of shared DLX-{@link Queue}s, which are used by many
+ * {@link Queue}s instead of one DLX-{@link Queue} per {@link Queue} (see
+ * {@link QueueWithDlxBuilder#withSharedDlx(SharedDlx)}). The
+ * {@link Queue}s dead-letter into the {@link TopicExchange} with their name
+ * as routing-key, so the dead letters of a {@link Queue} can still be
+ * filtered by it. Registered as a single bean, all of them are declared by
+ * the {@link AmqpAdmin}s in one pass
+ *
+ * @see AmqpUtils#buildDurableSharedDlx(String, int, Object, Object...)
+ * @see AmqpUtils#buildStreamDlxArchive(String, java.time.Duration, long, Object, Object...)
+ * @since 1.1.0.RELEASE
+ */
+public class SharedDlx extends Declarables
+{
+    private final TopicExchange exchange;
+
+    private final List<Queue> queues;
+
+    SharedDlx(TopicExchange exchange, List<Queue> queues)
+    {
+        super(collect(exchange, queues));
+        this.exchange = exchange;
+        this.queues = Collections.unmodifiableList(queues);
+    }
+
+    /**
+     * @return the shared DLX-{@link TopicExchange} the {@link Queue}s
+     *         dead-letter into
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public TopicExchange getExchange()
+    {
+        return exchange;
+    }
+
+    /**
+     * @return the shared DLX-{@link Queue}s
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public List<Queue> getQueues()
+    {
+        return queues;
+    }
+
+    /**
+     * Determines the shared DLX-{@link Queue} for the {@link Queue} with the
+     * given name. The same queueName always gets the same shared
+     * DLX-{@link Queue}
+     *
+     * @param queueName
+     *            the name of the {@link Queue} that dead-letters into the
+     *            shared DLX-{@link Queue}
+     * @return the shared DLX-{@link Queue}
+     *
+     * @since 1.1.0.RELEASE
+     */
+    public Queue getQueueFor(String queueName)
+    {
+        return queues.get(Math.floorMod(queueName.hashCode(), queues.size()));
+    }
+
+    private static Collection<Declarable> collect(TopicExchange exchange, List<Queue> queues)
+    {
+        List<Declarable> declarables = new ArrayList<>(1 + queues.size());
+        declarables.add(exchange);
+        declarables.addAll(queues);
+        return declarables;
+    }
+}
@@ -0,0 +1,96 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+
+import com.rabbitmq.client.Channel;
+
+public class AdaptivePrefetchTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private MethodInvocation invocation = mock(MethodInvocation.class);
+
+    @Test
+    public void testSlowListenerLowersPrefetch() throws Throwable
+    {
+        AdaptivePrefetch adaptivePrefetch = new AdaptivePrefetch(1, 250, Duration.ofMillis(100));
+        doReturn(new Object[] { channel, mock(Message.class) }).when(invocation).getArguments();
+        doAnswer(invocation ->
+        {
+            Thread.sleep(20);
+            return null;
+        }).when(invocation).proceed();
+
+        adaptivePrefetch.invoke(invocation);
+        adaptivePrefetch.invoke(invocation);
+
+        assertThat(adaptivePrefetch.getPrefetchCount()).isBetween(1, 5);
+        verify(channel).basicQos(adaptivePrefetch.getPrefetchCount(), true);
+    }
+
+    @Test
+    public void testFastListenerKeepsMaxPrefetch() throws Throwable
+    {
+        AdaptivePrefetch adaptivePrefetch = new AdaptivePrefetch(1, 250, Duration.ofSeconds(10));
+        doReturn(new Object[] { channel, mock(Message.class) }).when(invocation).getArguments();
+
+        adaptivePrefetch.invoke(invocation);
+        adaptivePrefetch.invoke(invocation);
+
+        assertThat(adaptivePrefetch.getPrefetchCount()).isEqualTo(250);
+        verify(channel, times(1)).basicQos(250, true);
+    }
+
+    @Test
+    public void testMinPrefetch() throws Throwable
+    {
+        AdaptivePrefetch adaptivePrefetch = new AdaptivePrefetch(3, 250, Duration.ofNanos(1));
+        doReturn(new Object[] { channel, mock(Message.class) }).when(invocation).getArguments();
+
+        adaptivePrefetch.invoke(invocation);
+
+        assertThat(adaptivePrefetch.getPrefetchCount()).isEqualTo(3);
+        verify(channel).basicQos(3, true);
+    }
+
+    @Test
+    public void testFailedQosDoesNotFailListener() throws Throwable
+    {
+        AdaptivePrefetch adaptivePrefetch = new AdaptivePrefetch(1, 250, Duration.ofSeconds(10));
+        doReturn(new Object[] { channel, mock(Message.class) }).when(invocation).getArguments();
+        doReturn("anyResult").when(invocation).proceed();
+        doThrow(new IOException()).when(channel).basicQos(anyInt(), anyBoolean());
+
+        assertThat(adaptivePrefetch.invoke(invocation)).isEqualTo("anyResult");
+        adaptivePrefetch.invoke(invocation);
+
+        verify(channel, times(2)).basicQos(250, true);
+    }
+
+    @Test
+    public void testWithoutChannel() throws Throwable
+    {
+        AdaptivePrefetch adaptivePrefetch = new AdaptivePrefetch(1, 250, Duration.ofSeconds(10));
+        doReturn(new Object[0]).when(invocation).getArguments();
+
+        adaptivePrefetch.invoke(invocation);
+
+        verify(channel, never()).basicQos(anyInt(), anyBoolean());
+    }
+}
@@ -0,0 +1,103 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+
+import org.junit.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+public class AmqpUtilsAutoConfigurationTest
+{
+    private ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(AmqpUtilsAutoConfiguration.class));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueueWithDlx()
+    {
+        contextRunner
+            .withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].bindings[0].exchange=anyExchange",
+                    "amqp-utils.queues[0].bindings[0].routing-key=anyRoutingKey", "amqp-utils.queues[0].admins=anyAdmin,anyOtherAdmin",
+                    "amqp-utils.queues[0].retry-tiers=10s,1m")
+            .run(context ->
+            {
+                QueueWithDlx queueWithDlx = context.getBean("anyQueueName", QueueWithDlx.class);
+                assertThat(queueWithDlx.getQueue().isDurable()).isTrue();
+                assertThat(queueWithDlx.getQueue().getArguments()).containsEntry("x-dead-letter-routing-key", "anyQueueName.dlx");
+                assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsExactly("anyAdmin", "anyOtherAdmin");
+                assertThat(queueWithDlx.getDlxQueue().getName()).isEqualTo("anyQueueName.dlx");
+                assertThat(queueWithDlx.getRetryQueues()).extracting(Queue::getName).containsExactly("anyQueueName.retry.10s", "anyQueueName.retry.60s");
+                assertThat(queueWithDlx.getBindings()).hasSize(1);
+                assertThat(queueWithDlx.getBindings().get(0).getExchange()).isEqualTo("anyExchange");
+                assertThat(queueWithDlx.getBindings().get(0).getRoutingKey()).isEqualTo("anyRoutingKey");
+            });
+    }
+
+    @Test
+    public void testNonDurableAndQuorumQueueWithDlx()
+    {
+        contextRunner.withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].durable=false",
+                "amqp-utils.queues[1].name=anyOtherQueueName", "amqp-utils.queues[1].quorum=true").run(context ->
+                {
+                    assertThat(context.getBean("anyQueueName", QueueWithDlx.class).getQueue().isDurable()).isFalse();
+                    assertThat(context.getBean("anyOtherQueueName", QueueWithDlx.class).getQueue().getArguments()).containsEntry("x-queue-type", "quorum");
+                    assertThat(context.getBean("anyOtherQueueName", QueueWithDlx.class).getDlxQueue().getArguments()).containsEntry("x-queue-type", "quorum");
+                });
+    }
+
+    @Test
+    public void testPriorityQueueWithDlx()
+    {
+        contextRunner.withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].max-priority=10").run(context ->
+        {
+            assertThat(context.getBean("anyQueueName", QueueWithDlx.class).getQueue().getArguments()).containsEntry("x-max-priority", Integer.valueOf(10));
+            assertThat(context.getBean("anyQueueName", QueueWithDlx.class).getDlxQueue().getArguments()).containsEntry("x-max-priority", Integer.valueOf(10));
+        });
+    }
+
+    @Test
+    public void testQueueWithDlxWithLeaderLocator()
+    {
+        contextRunner.withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].leader-locator=balanced").run(context ->
+        {
+            assertThat(context.getBean("anyQueueName", QueueWithDlx.class).getQueue().getArguments()).containsEntry("x-queue-leader-locator", "balanced");
+            assertThat(context.getBean("anyQueueName", QueueWithDlx.class).getDlxQueue().getArguments()).containsEntry("x-queue-leader-locator", "balanced");
+        });
+    }
+
+    @Test
+    public void testQueueWithoutDlx()
+    {
+        contextRunner
+            .withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].dlx=false",
+                    "amqp-utils.queues[0].bindings[0].exchange=anyExchange")
+            .run(context ->
+            {
+                Declarables declarables = context.getBean("anyQueueName", Declarables.class);
+                assertThat(declarables.getDeclarables()).hasSize(2);
+                Queue queue = (Queue) declarables.getDeclarables().iterator().next();
+                assertThat(queue.getName()).isEqualTo("anyQueueName");
+                assertThat(queue.getArguments()).isEmpty();
+                assertThat(declarables.getDeclarables()).filteredOn(Binding.class::isInstance).hasSize(1);
+            });
+    }
+
+    @Test
+    public void testWithoutQueues()
+    {
+        contextRunner.run(context -> assertThat(context.getBeansOfType(Declarables.class)).isEmpty());
+    }
+
+    @Test
+    public void testQueueWithoutDlxWithRetryTiers()
+    {
+        contextRunner
+            .withPropertyValues("amqp-utils.queues[0].name=anyQueueName", "amqp-utils.queues[0].dlx=false", "amqp-utils.queues[0].retry-tiers=10s")
+            .run(context -> assertThat(context).hasFailed());
+    }
+}
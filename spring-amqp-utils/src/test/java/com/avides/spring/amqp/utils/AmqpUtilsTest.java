@@ -0,0 +1,487 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+
+public class AmqpUtilsTest
+{
+    private Object amqpAdmin1 = "amqpAdmin1";
+    private Object amqpAdmin2 = "amqpAdmin2";
+    private Object amqpAdmin3 = "amqpAdmin3";
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableQueueWithDlx()
+    {
+        Queue queue = AmqpUtils.buildDurableQueueWithDlx("anyQueueName", amqpAdmin1);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isTrue();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableQueueWithDlxAndMoreAdmins()
+    {
+        Queue queue = AmqpUtils.buildDurableQueueWithDlx("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isTrue();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableQueueWithDlxArguments()
+    {
+        Queue queue = AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", amqpAdmin1);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isTrue();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableQueueWithDlxArgumentsAndMoreAdmins()
+    {
+        Queue queue = AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isTrue();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableDlxQueueForQueue()
+    {
+        Queue queue = QueueBuilder.durable("anyQueueName").build();
+        queue.setAdminsThatShouldDeclare(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        Queue dlxQueue = AmqpUtils.buildDurableDlxQueueFor(queue);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableDlxQueueForQueueName()
+    {
+        Queue dlxQueue = AmqpUtils.buildDurableDlxQueueFor("anyQueueName", amqpAdmin1);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableDlxQueueForQueueNameWithMoreAdmins()
+    {
+        Queue dlxQueue = AmqpUtils.buildDurableDlxQueueFor("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableQueueWithDlx()
+    {
+        Queue queue = AmqpUtils.buildNonDurableQueueWithDlx("anyQueueName", amqpAdmin1);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isFalse();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableQueueWithDlxAndMoreAdmins()
+    {
+        Queue queue = AmqpUtils.buildNonDurableQueueWithDlx("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isFalse();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableQueueWithDlxArguments()
+    {
+        Queue queue = AmqpUtils.buildNonDurableQueueWithDlxArguments("anyQueueName", amqpAdmin1);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isFalse();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableQueueWithDlxArgumentsAndMoreAdmins()
+    {
+        Queue queue = AmqpUtils.buildNonDurableQueueWithDlxArguments("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isFalse();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableDlxQueueForQueue()
+    {
+        Queue queue = QueueBuilder.durable("anyQueueName").build();
+        queue.setAdminsThatShouldDeclare(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        Queue dlxQueue = AmqpUtils.buildNonDurableDlxQueueFor(queue);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isFalse();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableDlxQueueForQueueName()
+    {
+        Queue dlxQueue = AmqpUtils.buildNonDurableDlxQueueFor("anyQueueName", amqpAdmin1);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isFalse();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableDlxQueueForQueueNameWithMoreAdmins()
+    {
+        Queue dlxQueue = AmqpUtils.buildNonDurableDlxQueueFor("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isFalse();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDlxQueueForDurableQueue()
+    {
+        Queue queue = QueueBuilder.durable("anyQueueName").build();
+        queue.setAdminsThatShouldDeclare(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        Queue dlxQueue = AmqpUtils.buildDlxQueueFor(queue);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDlxQueueForNonDurableQueue()
+    {
+        Queue queue = QueueBuilder.nonDurable("anyQueueName").build();
+        queue.setAdminsThatShouldDeclare(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        Queue dlxQueue = AmqpUtils.buildDlxQueueFor(queue);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isFalse();
+        assertThat(dlxQueue.isAutoDelete()).isFalse();
+        assertThat(dlxQueue.isExclusive()).isFalse();
+        assertThat(dlxQueue.isIgnoreDeclarationExceptions()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @Test
+    public void testBuildDlxQueueForPriorityQueue()
+    {
+        Queue queue = QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10)).build();
+        assertThat(AmqpUtils.buildDlxQueueFor(queue).getArguments()).hasSize(2)
+            .containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .containsEntry(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10));
+        assertThat(AmqpUtils.buildNonDurableDlxQueueFor(queue).getArguments()).containsEntry(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10));
+        assertThat(AmqpUtils.buildDlxQueueFor(queue, new DlxRetentionPolicy().withMaxAge(Duration.ofHours(1))).getArguments())
+            .containsEntry(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableQueueWithDlxDeclarables()
+    {
+        QueueWithDlx queueWithDlx = AmqpUtils.buildDurableQueueWithDlxDeclarables("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queueWithDlx.getQueue().getName()).isEqualTo("anyQueueName");
+        assertThat(queueWithDlx.getQueue().isDurable()).isTrue();
+        assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+        assertThat(queueWithDlx.getDlxQueue().getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(queueWithDlx.getDlxQueue().isDurable()).isTrue();
+        assertThat((Collection<Object>) queueWithDlx.getDlxQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+        assertThat(queueWithDlx.getDeclarables()).containsExactly(queueWithDlx.getQueue(), queueWithDlx.getDlxQueue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurableQueueWithDlxDeclarables()
+    {
+        QueueWithDlx queueWithDlx = AmqpUtils.buildNonDurableQueueWithDlxDeclarables("anyQueueName", amqpAdmin1);
+        assertThat(queueWithDlx.getQueue().getName()).isEqualTo("anyQueueName");
+        assertThat(queueWithDlx.getQueue().isDurable()).isFalse();
+        assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queueWithDlx.getDlxQueue().getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(queueWithDlx.getDlxQueue().isDurable()).isFalse();
+        assertThat((Collection<Object>) queueWithDlx.getDlxQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queueWithDlx.getDeclarables()).containsExactly(queueWithDlx.getQueue(), queueWithDlx.getDlxQueue());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurablePartitionedQueueWithDlx()
+    {
+        PartitionedQueueWithDlx partitionedQueue = AmqpUtils.buildDurablePartitionedQueueWithDlx("anyName", 3, amqpAdmin1, amqpAdmin2);
+        assertThat(partitionedQueue.getExchange().getName()).isEqualTo("anyName");
+        assertThat(partitionedQueue.getExchange().getType()).isEqualTo("x-consistent-hash");
+        assertThat(partitionedQueue.getExchange().isDurable()).isTrue();
+        assertThat((Collection<Object>) partitionedQueue.getExchange().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(partitionedQueue.getPartitions()).hasSize(3);
+
+        for (int i = 0; i < 3; i++)
+        {
+            QueueWithDlx partition = partitionedQueue.getPartitions().get(i);
+            assertThat(partition.getQueue().getName()).isEqualTo("anyName." + i);
+            assertThat(partition.getQueue().isDurable()).isTrue();
+            assertThat((Collection<Object>) partition.getQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+            assertThat(partition.getQueue().getArguments()).containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyName." + i + ".dlx");
+            assertThat(partition.getDlxQueue().getName()).isEqualTo("anyName." + i + ".dlx");
+            assertThat(partition.getDlxQueue().isDurable()).isTrue();
+            assertThat(partition.getBindings()).hasSize(1);
+            assertThat(partition.getBindings().get(0).getExchange()).isEqualTo("anyName");
+            assertThat(partition.getBindings().get(0).getDestination()).isEqualTo("anyName." + i);
+            assertThat(partition.getBindings().get(0).getRoutingKey()).isEqualTo("1");
+        }
+        assertThat(partitionedQueue.getDeclarables()).hasSize(10).startsWith(partitionedQueue.getExchange());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildNonDurablePartitionedQueueWithDlx()
+    {
+        PartitionedQueueWithDlx partitionedQueue = AmqpUtils.buildNonDurablePartitionedQueueWithDlx("anyName", 2, amqpAdmin1);
+        assertThat(partitionedQueue.getExchange().isDurable()).isFalse();
+        assertThat((Collection<Object>) partitionedQueue.getExchange().getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(partitionedQueue.getPartitions()).hasSize(2);
+        assertThat(partitionedQueue.getPartitions().get(1).getQueue().getName()).isEqualTo("anyName.1");
+        assertThat(partitionedQueue.getPartitions().get(1).getQueue().isDurable()).isFalse();
+        assertThat(partitionedQueue.getPartitions().get(1).getDlxQueue().isDurable()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildPartitionedQueueWithDlxWithoutPartitions()
+    {
+        AmqpUtils.buildDurablePartitionedQueueWithDlx("anyName", 0, amqpAdmin1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildQuorumQueueWithDlxArguments()
+    {
+        Queue queue = AmqpUtils.buildQuorumQueueWithDlxArguments("anyQueueName", amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getName()).isEqualTo("anyQueueName");
+        assertThat(queue.isDurable()).isTrue();
+        assertThat(queue.isAutoDelete()).isFalse();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2, amqpAdmin3);
+        assertThat(queue.getArguments()).hasSize(3).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @Test
+    public void testBuildQuorumDlxQueueForQueueWithLeaderLocator()
+    {
+        Queue queue = AmqpUtils.buildQuorumQueueWithDlxArguments("anyQueueName", amqpAdmin1);
+        queue.getArguments().put(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.BALANCED);
+        Queue dlxQueue = AmqpUtils.buildQuorumDlxQueueFor(queue);
+        assertThat(dlxQueue.getArguments()).hasSize(2).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .containsEntry(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.BALANCED);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildQuorumDlxQueueForQueueName()
+    {
+        Queue dlxQueue = AmqpUtils.buildQuorumDlxQueueFor("anyQueueName", amqpAdmin1);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDlxQueueForQuorumQueue()
+    {
+        Queue queue = AmqpUtils.buildQuorumQueueWithDlxArguments("anyQueueName", amqpAdmin1, amqpAdmin2);
+        Queue dlxQueue = AmqpUtils.buildDlxQueueFor(queue);
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isTrue();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(dlxQueue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+    }
+
+    @Test
+    public void testBuildQuorumQueueWithDlxDeclarables()
+    {
+        QueueWithDlx queueWithDlx = AmqpUtils.buildQuorumQueueWithDlxDeclarables("anyQueueName", amqpAdmin1);
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDlxQueueForQueueWithRetentionPolicy()
+    {
+        Queue queue = QueueBuilder.nonDurable("anyQueueName").build();
+        queue.setAdminsThatShouldDeclare(amqpAdmin1, amqpAdmin2);
+        Queue dlxQueue = AmqpUtils.buildDlxQueueFor(queue, new DlxRetentionPolicy().withMaxAge(Duration.ofHours(1)));
+        assertThat(dlxQueue.getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(dlxQueue.isDurable()).isFalse();
+        assertThat((Collection<Object>) dlxQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(dlxQueue.getArguments()).hasSize(2)
+            .containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .containsEntry(QueueArguments.X_MESSAGE_TTL, Long.valueOf(3600000));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurableSharedDlx()
+    {
+        SharedDlx sharedDlx = AmqpUtils.buildDurableSharedDlx("anyName", 2, amqpAdmin1, amqpAdmin2);
+        assertThat(sharedDlx.getExchange().getName()).isEqualTo("anyName");
+        assertThat(sharedDlx.getExchange().getType()).isEqualTo("topic");
+        assertThat(sharedDlx.getExchange().isDurable()).isTrue();
+        assertThat((Collection<Object>) sharedDlx.getExchange().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(sharedDlx.getQueues()).extracting(Queue::getName).containsExactly("anyName.0", "anyName.1");
+        for (Queue queue : sharedDlx.getQueues())
+        {
+            assertThat(queue.isDurable()).isTrue();
+            assertThat((Collection<Object>) queue.getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+            assertThat(queue.getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+        }
+        assertThat(sharedDlx.getQueueFor("anyQueueName")).isSameAs(sharedDlx.getQueueFor("anyQueueName")).isIn(sharedDlx.getQueues());
+        assertThat(sharedDlx.getDeclarables()).hasSize(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildStreamDlxArchive()
+    {
+        SharedDlx archive = AmqpUtils.buildStreamDlxArchive("anyName", Duration.ofDays(7), 1000000000L, amqpAdmin1);
+        assertThat(archive.getExchange().getName()).isEqualTo("anyName");
+        assertThat(archive.getQueues()).hasSize(1);
+        Queue streamQueue = archive.getQueueFor("anyQueueName");
+        assertThat(streamQueue.getName()).isEqualTo("anyName.stream");
+        assertThat(streamQueue.isDurable()).isTrue();
+        assertThat((Collection<Object>) streamQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(streamQueue.getArguments()).hasSize(3)
+            .containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.STREAM)
+            .containsEntry(QueueArguments.X_MAX_AGE, "604800s")
+            .containsEntry(QueueArguments.X_MAX_LENGTH_BYTES, Long.valueOf(1000000000L));
+
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withSharedDlx(archive).build();
+        assertThat(queueWithDlx.getDlxQueue()).isSameAs(streamQueue);
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "anyName");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildStreamDlxArchiveWithTooShortMaxAge()
+    {
+        AmqpUtils.buildStreamDlxArchive("anyName", Duration.ofMillis(500), 1000L, amqpAdmin1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildEphemeralQueueWithSharedDlx()
+    {
+        SharedDlx sharedDlx = AmqpUtils.buildNonDurableSharedDlx("anyName", 2, amqpAdmin1);
+        QueueWithDlx queueWithDlx = AmqpUtils.buildEphemeralQueueWithSharedDlx("anyQueueName", Duration.ofMinutes(1), sharedDlx, amqpAdmin1, amqpAdmin2);
+        assertThat(queueWithDlx.getQueue().getName()).startsWith("anyQueueName.");
+        assertThat(queueWithDlx.getQueue().isDurable()).isFalse();
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_EXPIRES, Long.valueOf(60000));
+        assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(queueWithDlx.isDlxQueueShared()).isTrue();
+    }
+
+    @Test
+    public void testBuildNonDurableSharedDlx()
+    {
+        SharedDlx sharedDlx = AmqpUtils.buildNonDurableSharedDlx("anyName", 1, amqpAdmin1);
+        assertThat(sharedDlx.getExchange().isDurable()).isFalse();
+        assertThat(sharedDlx.getQueues()).hasSize(1);
+        assertThat(sharedDlx.getQueues().get(0).isDurable()).isFalse();
+    }
+}
\ No newline at end of file
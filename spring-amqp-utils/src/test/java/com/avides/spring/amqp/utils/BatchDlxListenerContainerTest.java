@@ -0,0 +1,135 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+public class BatchDlxListenerContainerTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private List<List<Message>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private BatchDlxListenerContainer container;
+
+    @After
+    public void after()
+    {
+        container.stop();
+    }
+
+    @Test
+    public void testAcknowledge() throws Exception
+    {
+        container = new BatchDlxListenerContainer(mock(ConnectionFactory.class), "anyQueueName", messages -> null);
+
+        BatchDlxListenerContainer.acknowledge(channel, Arrays.asList(1L, 2L, 3L, 4L), Collections.emptySet());
+        verify(channel).basicAck(4, true);
+
+        BatchDlxListenerContainer.acknowledge(channel, Arrays.asList(5L, 6L, 7L, 8L), new HashSet<>(Arrays.asList(6L, 8L)));
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicReject(6, false);
+        inOrder.verify(channel).basicReject(8, false);
+        inOrder.verify(channel).basicAck(7, true);
+
+        BatchDlxListenerContainer.acknowledge(channel, Arrays.asList(9L), Collections.singleton(9L));
+        verify(channel).basicReject(9, false);
+        verify(channel, never()).basicAck(eq(9L), anyBoolean());
+    }
+
+    @Test
+    public void testConsume() throws Exception
+    {
+        container = new BatchDlxListenerContainer(buildConnectionFactory(), QueueWithDlxBuilder.durable("anyQueueName").build(), messages ->
+        {
+            batches.add(messages);
+            return Collections.singletonList(messages.get(1));
+        });
+        container.setBatchSize(3);
+        container.setReceiveTimeout(50);
+        doAnswer(invocation ->
+        {
+            Consumer consumer = invocation.getArgument(2);
+            for (long deliveryTag = 1; deliveryTag <= 4; deliveryTag++)
+            {
+                consumer.handleDelivery("anyConsumerTag", new Envelope(deliveryTag, false, "", "anyQueueName"), new BasicProperties(), new byte[0]);
+            }
+            return "anyConsumerTag";
+        }).when(channel).basicConsume(eq("anyQueueName"), eq(false), any(Consumer.class));
+
+        container.start();
+        assertThat(container.isRunning()).isTrue();
+
+        verify(channel, timeout(1000)).basicAck(3, true);
+        verify(channel).basicReject(2, false);
+        verify(channel).basicQos(6);
+        container.stop();
+        assertThat(container.isRunning()).isFalse();
+        assertThat(batches.get(0)).hasSize(3);
+        assertThat(batches.get(0).get(0).getMessageProperties().getConsumerQueue()).isEqualTo("anyQueueName");
+    }
+
+    @Test
+    public void testConsumeWithFailingListener() throws Exception
+    {
+        container = new BatchDlxListenerContainer(buildConnectionFactory(), "anyQueueName", messages ->
+        {
+            throw new IllegalStateException();
+        });
+        container.setReceiveTimeout(50);
+        container.setDefaultRequeueRejected(false);
+
+        container.start();
+        Consumer consumer = captureConsumer();
+        consumer.handleDelivery("anyConsumerTag", new Envelope(1, false, "", "anyQueueName"), new BasicProperties(), new byte[0]);
+        consumer.handleDelivery("anyConsumerTag", new Envelope(2, false, "", "anyQueueName"), new BasicProperties(), new byte[0]);
+
+        verify(channel, timeout(1000)).basicNack(2, true, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    private Consumer captureConsumer() throws Exception
+    {
+        ArgumentCaptor<Consumer> consumer = ArgumentCaptor.forClass(Consumer.class);
+        verify(channel, timeout(1000)).basicConsume(eq("anyQueueName"), eq(false), consumer.capture());
+        return consumer.getValue();
+    }
+
+    private ConnectionFactory buildConnectionFactory()
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.isOpen()).thenReturn(true);
+        return connectionFactory;
+    }
+}
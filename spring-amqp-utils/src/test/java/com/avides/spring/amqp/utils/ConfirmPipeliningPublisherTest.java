@@ -0,0 +1,187 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannel;
+
+import com.avides.spring.amqp.utils.ConfirmPipeliningPublisher.Outcome;
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ReturnCallback;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+public class ConfirmPipeliningPublisherTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private Connection connection = mock(Connection.class);
+
+    private AtomicLong nextPublishSeqNo = new AtomicLong(1);
+
+    private List<BasicProperties> published = new ArrayList<>();
+
+    private ConfirmCallback ackCallback;
+
+    private ConfirmCallback nackCallback;
+
+    private ReturnCallback returnCallback;
+
+    private ConfirmPipeliningPublisher publisher;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.getNextPublishSeqNo()).thenAnswer(invocation -> Long.valueOf(nextPublishSeqNo.get()));
+        doAnswer(invocation ->
+        {
+            ackCallback = invocation.getArgument(0);
+            nackCallback = invocation.getArgument(1);
+            return null;
+        }).when(channel).addConfirmListener(any(ConfirmCallback.class), any(ConfirmCallback.class));
+        doAnswer(invocation ->
+        {
+            returnCallback = invocation.getArgument(0);
+            return null;
+        }).when(channel).addReturnListener(any(ReturnCallback.class));
+        doAnswer(invocation ->
+        {
+            published.add(invocation.getArgument(3));
+            nextPublishSeqNo.incrementAndGet();
+            return null;
+        }).when(channel).basicPublish(eq(""), anyString(), eq(true), any(BasicProperties.class), any(byte[].class));
+        publisher = new ConfirmPipeliningPublisher(connectionFactory);
+        publisher.setWindowSize(3);
+        publisher.setPublishTimeout(50);
+    }
+
+    @After
+    public void after()
+    {
+        publisher.destroy();
+    }
+
+    @Test
+    public void testPublishWithMultipleAck() throws Exception
+    {
+        CompletableFuture<Outcome> first = publisher.publish("anyQueueName", buildMessage());
+        CompletableFuture<Outcome> second = publisher.publish("anyQueueName", buildMessage());
+        CompletableFuture<Outcome> third = publisher.publish("anyQueueName", buildMessage());
+
+        verify(channel).confirmSelect();
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(3);
+        assertThat(published.get(1).getHeaders()).containsEntry(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY, "2");
+        assertThatThrownBy(() -> publisher.publish("anyQueueName", buildMessage())).isInstanceOf(AmqpException.class).hasMessageContaining("timed out");
+
+        ackCallback.handle(2, true);
+        assertThat(first.get()).isEqualTo(Outcome.CONFIRMED);
+        assertThat(second.get()).isEqualTo(Outcome.CONFIRMED);
+        assertThat(third).isNotDone();
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(1);
+
+        ackCallback.handle(3, false);
+        assertThat(third.get()).isEqualTo(Outcome.CONFIRMED);
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPublishWithNackAndReturn() throws Exception
+    {
+        CompletableFuture<Outcome> nacked = publisher.publish("anyQueueName", buildMessage());
+        CompletableFuture<Outcome> returned = publisher.publish("anyQueueName", buildMessage());
+
+        nackCallback.handle(1, false);
+        returnCallback.handle(new Return(312, "NO_ROUTE", "", "anyQueueName", published.get(1), new byte[0]));
+        ackCallback.handle(2, false);
+        verify(channel, timeout(1000).times(2)).basicPublish(eq(""), eq("anyQueueName.dlx"), eq(true), any(BasicProperties.class), any(byte[].class));
+        assertThat(nacked).isNotDone();
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(2);
+
+        ackCallback.handle(4, true);
+        assertThat(nacked.get(1, TimeUnit.SECONDS)).isEqualTo(Outcome.DEAD_LETTERED);
+        assertThat(returned.get(1, TimeUnit.SECONDS)).isEqualTo(Outcome.DEAD_LETTERED);
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPublishWithNackedDeadLetter() throws Exception
+    {
+        CompletableFuture<Outcome> future = publisher.publish("anyQueueName", buildMessage());
+
+        nackCallback.handle(1, false);
+        verify(channel, timeout(1000)).basicPublish(eq(""), eq("anyQueueName.dlx"), eq(true), any(BasicProperties.class), any(byte[].class));
+        nackCallback.handle(2, false);
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(AmqpException.class);
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(0);
+        verify(channel, times(2)).basicPublish(eq(""), anyString(), eq(true), any(BasicProperties.class), any(byte[].class));
+    }
+
+    @Test
+    public void testShutdownOfReplacedChannel() throws Exception
+    {
+        List<ShutdownListener> shutdownListeners = new ArrayList<>();
+        doAnswer(invocation -> shutdownListeners.add(invocation.getArgument(0))).when(channel).addShutdownListener(any(ShutdownListener.class));
+        CompletableFuture<Outcome> oldFuture = publisher.publish("anyQueueName", buildMessage());
+        ConfirmCallback oldAckCallback = ackCallback;
+
+        Channel newChannel = mock(Channel.class);
+        when(connection.createChannel(false)).thenReturn(newChannel);
+        when(newChannel.isOpen()).thenReturn(true);
+        when(newChannel.getNextPublishSeqNo()).thenReturn(Long.valueOf(1));
+        doAnswer(invocation ->
+        {
+            ackCallback = invocation.getArgument(0);
+            return null;
+        }).when(newChannel).addConfirmListener(any(ConfirmCallback.class), any(ConfirmCallback.class));
+        doAnswer(invocation -> shutdownListeners.add(invocation.getArgument(0))).when(newChannel).addShutdownListener(any(ShutdownListener.class));
+        when(channel.isOpen()).thenReturn(false);
+        CompletableFuture<Outcome> newFuture = publisher.publish("anyQueueName", buildMessage());
+
+        // the new channel restarts with delivery-tag 1, neither the shutdown nor a late ack of the old channel may complete its message
+        shutdownListeners.get(0).shutdownCompleted(new ShutdownSignalException(false, false, null, channel));
+        oldAckCallback.handle(1, false);
+        assertThatThrownBy(() -> oldFuture.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasMessageContaining("publish-channel closed");
+        assertThat(newFuture).isNotDone();
+
+        ackCallback.handle(1, false);
+        assertThat(newFuture.get(1, TimeUnit.SECONDS)).isEqualTo(Outcome.CONFIRMED);
+        assertThat(publisher.getOutstandingConfirms()).isEqualTo(0);
+    }
+
+    private static Message buildMessage()
+    {
+        return new Message(new byte[0], new MessageProperties());
+    }
+}
@@ -0,0 +1,116 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.DirectFieldAccessor;
+
+import com.avides.spring.amqp.utils.ConsumerProfile.Preset;
+
+public class ConsumerProfileTest
+{
+    @Test
+    public void testThroughputPresetWithDlx()
+    {
+        ConsumerProfile profile = ConsumerProfile.of(QueueWithDlxBuilder.durable("anyQueueName").build(), Preset.THROUGHPUT);
+
+        assertThat(profile.getPrefetchCount()).isEqualTo(250);
+        assertThat(profile.getTxSize()).isEqualTo(25);
+        assertThat(profile.getConcurrentConsumers()).isEqualTo(1);
+        assertThat(profile.getMaxConcurrentConsumers()).isEqualTo(4);
+        assertThat(profile.isDefaultRequeueRejected()).isFalse();
+    }
+
+    @Test
+    public void testLatencyPresetWithoutDlx()
+    {
+        ConsumerProfile profile = ConsumerProfile.of(new Queue("anyQueueName"), Preset.LATENCY);
+
+        assertThat(profile.getPrefetchCount()).isEqualTo(5);
+        assertThat(profile.getTxSize()).isEqualTo(1);
+        assertThat(profile.getConcurrentConsumers()).isEqualTo(4);
+        assertThat(profile.getMaxConcurrentConsumers()).isEqualTo(8);
+        assertThat(profile.isDefaultRequeueRejected()).isTrue();
+    }
+
+    @Test
+    public void testBoundedQueue()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(400).build();
+
+        ConsumerProfile profile = ConsumerProfile.of(queueWithDlx, Preset.THROUGHPUT);
+        assertThat(profile.getPrefetchCount()).isEqualTo(25);
+        assertThat(profile.getTxSize()).isEqualTo(25);
+
+        profile = profile.withConcurrency(2, 20);
+        assertThat(profile.getPrefetchCount()).isEqualTo(5);
+        assertThat(profile.getTxSize()).isEqualTo(5);
+        assertThat(profile.getMaxConcurrentConsumers()).isEqualTo(20);
+
+        assertThat(ConsumerProfile.of(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(1).build(), Preset.THROUGHPUT).getPrefetchCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testPriorityQueue()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withMaxPriority(5).build();
+
+        assertThat(ConsumerProfile.of(queueWithDlx, Preset.THROUGHPUT).getPrefetchCount()).isEqualTo(ConsumerProfile.PRIORITY_PREFETCH_LIMIT);
+        assertThat(ConsumerProfile.of(queueWithDlx, Preset.LATENCY).getPrefetchCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testStreamQueue()
+    {
+        Queue queue = new Queue("anyQueueName", true, false, false, Collections.singletonMap(QueueArguments.X_QUEUE_TYPE, QueueArguments.STREAM));
+
+        assertThatThrownBy(() -> ConsumerProfile.of(queue, Preset.THROUGHPUT)).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("anyQueueName");
+    }
+
+    @Test
+    public void testConfigureSimpleFactory()
+    {
+        SimpleRabbitListenerContainerFactory factory = ConsumerProfile.of(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(400).build(), Preset.THROUGHPUT)
+                .configure(new SimpleRabbitListenerContainerFactory());
+
+        SimpleMessageListenerContainer container = factory.createListenerContainer();
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("prefetchCount")).isEqualTo(Integer.valueOf(25));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("txSize")).isEqualTo(Integer.valueOf(25));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("concurrentConsumers")).isEqualTo(Integer.valueOf(1));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("maxConcurrentConsumers")).isEqualTo(Integer.valueOf(4));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("defaultRequeueRejected")).isEqualTo(Boolean.FALSE);
+    }
+
+    @Test
+    public void testConfigureDirectFactory()
+    {
+        DirectRabbitListenerContainerFactory factory = ConsumerProfile.of(new Queue("anyQueueName"), Preset.LATENCY)
+                .configure(new DirectRabbitListenerContainerFactory());
+
+        DirectMessageListenerContainer container = factory.createListenerContainer();
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("prefetchCount")).isEqualTo(Integer.valueOf(5));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("consumersPerQueue")).isEqualTo(Integer.valueOf(4));
+        assertThat(new DirectFieldAccessor(container).getPropertyValue("defaultRequeueRejected")).isEqualTo(Boolean.TRUE);
+    }
+
+    @Test
+    public void testBuildAdaptivePrefetch()
+    {
+        ConsumerProfile profile = ConsumerProfile.of(QueueWithDlxBuilder.durable("anyQueueName").build(), Preset.THROUGHPUT);
+        assertThat(profile.buildAdaptivePrefetch(Duration.ofMillis(100)).getPrefetchCount()).isEqualTo(250);
+
+        ConsumerProfile quorumProfile = ConsumerProfile.of(QueueWithDlxBuilder.quorum("anyQueueName").build(), Preset.THROUGHPUT);
+        assertThatThrownBy(() -> quorumProfile.buildAdaptivePrefetch(Duration.ofMillis(100))).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("quorum");
+    }
+}
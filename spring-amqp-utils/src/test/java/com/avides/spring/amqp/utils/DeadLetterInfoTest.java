@@ -0,0 +1,95 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.rabbitmq.client.impl.LongStringHelper;
+
+public class DeadLetterInfoTest
+{
+    @Test
+    public void testOfNotDeadLettered()
+    {
+        DeadLetterInfo deadLetterInfo = DeadLetterInfo.of(new Message(new byte[0], new MessageProperties()));
+        assertThat(deadLetterInfo.isDeadLettered()).isFalse();
+        assertThat(deadLetterInfo.getDeathCount()).isEqualTo(0);
+        assertThat(deadLetterInfo.getDeathCount("anyQueueName")).isEqualTo(0);
+        assertThat(deadLetterInfo.getReason()).isNull();
+        assertThat(deadLetterInfo.getQueue()).isNull();
+        assertThat(deadLetterInfo.getExchange()).isNull();
+        assertThat(deadLetterInfo.getRoutingKeys()).isEmpty();
+        assertThat(deadLetterInfo.getTime()).isNull();
+        assertThat(deadLetterInfo.getFirstDeathQueue()).isNull();
+        assertThat(deadLetterInfo.getFirstDeathTime()).isNull();
+        assertThat(DeadLetterInfo.of((Map<String, ?>) null)).isSameAs(deadLetterInfo);
+    }
+
+    @Test
+    public void testOf()
+    {
+        MessageProperties messageProperties = new MessageProperties();
+        List<Map<String, ?>> xDeath = new ArrayList<>();
+        xDeath.add(buildDeath("anyQueueName.retry.1s", "expired", "", Arrays.asList("anyQueueName.retry.1s"), 2, new Date(2000)));
+        xDeath.add(buildDeath("anyQueueName", "rejected", "anyExchange", Arrays.asList("anyRoutingKey"), 3, new Date(1000)));
+        messageProperties.setHeader("x-death", xDeath);
+
+        DeadLetterInfo deadLetterInfo = DeadLetterInfo.of(messageProperties);
+        assertThat(deadLetterInfo.isDeadLettered()).isTrue();
+        assertThat(deadLetterInfo.getDeathCount()).isEqualTo(5);
+        assertThat(deadLetterInfo.getDeathCount("anyQueueName")).isEqualTo(3);
+        assertThat(deadLetterInfo.getDeathCount(Arrays.asList("anyQueueName", "anyQueueName.retry.1s"))).isEqualTo(5);
+        assertThat(deadLetterInfo.getDeathCount("anyOtherQueueName")).isEqualTo(0);
+        assertThat(deadLetterInfo.getReason()).isEqualTo("expired");
+        assertThat(deadLetterInfo.getQueue()).isEqualTo("anyQueueName.retry.1s");
+        assertThat(deadLetterInfo.getExchange()).isEqualTo("");
+        assertThat(deadLetterInfo.getRoutingKeys()).containsExactly("anyQueueName.retry.1s");
+        assertThat(deadLetterInfo.getTime()).isEqualTo(new Date(2000));
+        assertThat(deadLetterInfo.getFirstDeathQueue()).isEqualTo("anyQueueName");
+        assertThat(deadLetterInfo.getFirstDeathReason()).isEqualTo("rejected");
+        assertThat(deadLetterInfo.getFirstDeathExchange()).isEqualTo("anyExchange");
+        assertThat(deadLetterInfo.getFirstDeathTime()).isEqualTo(new Date(1000));
+
+        messageProperties.setHeader("x-first-death-queue", "anyFirstQueueName");
+        assertThat(DeadLetterInfo.of(messageProperties).getFirstDeathQueue()).isEqualTo("anyFirstQueueName");
+    }
+
+    @Test
+    public void testOfRawHeaders()
+    {
+        Map<String, Object> death = new HashMap<>();
+        death.put("queue", LongStringHelper.asLongString("anyQueueName"));
+        death.put("reason", LongStringHelper.asLongString("rejected"));
+        death.put("routing-keys", Collections.singletonList(LongStringHelper.asLongString("anyRoutingKey")));
+        death.put("count", Long.valueOf(1));
+        Map<String, Object> headers = Collections.singletonMap("x-death", Collections.singletonList(death));
+
+        DeadLetterInfo deadLetterInfo = DeadLetterInfo.of(headers);
+        assertThat(deadLetterInfo.getQueue()).isEqualTo("anyQueueName");
+        assertThat(deadLetterInfo.getReason()).isEqualTo("rejected");
+        assertThat(deadLetterInfo.getRoutingKeys()).containsExactly("anyRoutingKey");
+        assertThat(deadLetterInfo.getDeathCount("anyQueueName")).isEqualTo(1);
+    }
+
+    private static Map<String, Object> buildDeath(String queue, String reason, String exchange, List<String> routingKeys, long count, Date time)
+    {
+        Map<String, Object> death = new HashMap<>();
+        death.put("queue", queue);
+        death.put("reason", reason);
+        death.put("exchange", exchange);
+        death.put("routing-keys", routingKeys);
+        death.put("count", Long.valueOf(count));
+        death.put("time", time);
+        return death;
+    }
+}
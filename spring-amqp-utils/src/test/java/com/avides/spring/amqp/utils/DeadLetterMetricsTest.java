@@ -0,0 +1,127 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.impl.AMQImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DeadLetterMetricsTest
+{
+    private MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testQueueDepthGauges() throws Exception
+    {
+        Channel channel = mock(Channel.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 10, 1));
+        when(channel.queueDeclarePassive("anyQueueName.dlx")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName.dlx", 20, 0));
+        QueueDepthMonitor queueDepthMonitor = new QueueDepthMonitor(connectionFactory);
+        queueDepthMonitor.monitor(QueueWithDlxBuilder.durable("anyQueueName").build(), 100);
+
+        new DeadLetterMetrics(queueDepthMonitor).bindTo(registry);
+        assertThat(registry.get("amqp.queue.depth").tag("queue", "anyQueueName.dlx").gauge().value()).isNaN();
+
+        queueDepthMonitor.poll();
+        assertThat(registry.get("amqp.queue.depth").tag("queue", "anyQueueName").gauge().value()).isEqualTo(10);
+        assertThat(registry.get("amqp.queue.depth").tag("queue", "anyQueueName.dlx").gauge().value()).isEqualTo(20);
+    }
+
+    @Test
+    public void testQueueDepthGaugesOfQueuesMonitoredAfterBindTo() throws Exception
+    {
+        Channel channel = mock(Channel.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 10, 1));
+        when(channel.queueDeclarePassive("anyOtherQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyOtherQueueName", 30, 1));
+        QueueDepthMonitor queueDepthMonitor = new QueueDepthMonitor(connectionFactory);
+        queueDepthMonitor.monitor("anyQueueName");
+
+        new DeadLetterMetrics(queueDepthMonitor).bindTo(registry);
+        queueDepthMonitor.monitor("anyOtherQueueName", 100);
+        queueDepthMonitor.monitor("anyQueueName", 100);
+
+        queueDepthMonitor.poll();
+        assertThat(registry.get("amqp.queue.depth").gauges()).hasSize(2);
+        assertThat(registry.get("amqp.queue.depth").tag("queue", "anyQueueName").gauge().value()).isEqualTo(10);
+        assertThat(registry.get("amqp.queue.depth").tag("queue", "anyOtherQueueName").gauge().value()).isEqualTo(30);
+    }
+
+    @Test
+    public void testDeadLetterCounter() throws Exception
+    {
+        DeadLetterMetrics deadLetterMetrics = new DeadLetterMetrics();
+        deadLetterMetrics.deadLetterCounter().postProcessMessage(buildDeadLetter("anyQueueName", "rejected"));
+        deadLetterMetrics.bindTo(registry);
+        deadLetterMetrics.deadLetterCounter().postProcessMessage(buildDeadLetter("anyQueueName", "rejected"));
+        deadLetterMetrics.deadLetterCounter().postProcessMessage(buildDeadLetter("anyQueueName", "expired"));
+        deadLetterMetrics.deadLetterCounter().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+
+        assertThat(registry.get("amqp.dead.letters").tags("queue", "anyQueueName", "reason", "rejected").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("amqp.dead.letters").tags("queue", "anyQueueName", "reason", "expired").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("amqp.dead.letters").functionCounters()).hasSize(2);
+    }
+
+    @Test
+    public void testRejectionCounter() throws Throwable
+    {
+        DeadLetterMetrics deadLetterMetrics = new DeadLetterMetrics();
+        deadLetterMetrics.bindTo(registry);
+        MethodInterceptor rejectionCounter = deadLetterMetrics.rejectionCounter();
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue("anyQueueName");
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[] { mock(Channel.class), new Message(new byte[0], messageProperties) });
+
+        when(invocation.proceed()).thenReturn(null);
+        rejectionCounter.invoke(invocation);
+        assertThat(registry.find("amqp.listener.rejections").functionCounters()).isEmpty();
+
+        when(invocation.proceed()).thenThrow(new IllegalStateException(), new AmqpRejectAndDontRequeueException("poison"));
+        assertThatThrownBy(() -> rejectionCounter.invoke(invocation)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> rejectionCounter.invoke(invocation)).isInstanceOf(AmqpRejectAndDontRequeueException.class);
+        assertThat(registry.get("amqp.listener.rejections").tags("queue", "anyQueueName", "requeue", "true").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("amqp.listener.rejections").tags("queue", "anyQueueName", "requeue", "false").functionCounter().count()).isEqualTo(1);
+
+        doThrow(new IllegalStateException()).when(invocation).proceed();
+        assertThatThrownBy(() -> deadLetterMetrics.rejectionCounter(false).invoke(invocation)).isInstanceOf(IllegalStateException.class);
+        assertThat(registry.get("amqp.listener.rejections").tags("queue", "anyQueueName", "requeue", "false").functionCounter().count()).isEqualTo(2);
+    }
+
+    private static Message buildDeadLetter(String queueName, String reason)
+    {
+        Map<String, Object> death = new HashMap<>();
+        death.put("queue", queueName);
+        death.put("reason", reason);
+        death.put("count", Long.valueOf(1));
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setHeader("x-death", Collections.singletonList(death));
+        return new Message(new byte[0], messageProperties);
+    }
+}
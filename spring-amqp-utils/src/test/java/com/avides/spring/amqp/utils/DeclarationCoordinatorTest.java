@@ -0,0 +1,299 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import com.avides.spring.amqp.utils.DeclarationCoordinator.DeclarationResult;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.impl.AMQImpl;
+
+public class DeclarationCoordinatorTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Channel channel1 = mock(Channel.class);
+
+    private Channel channel2 = mock(Channel.class);
+
+    private RabbitAdmin admin1 = buildAdmin("admin1", channel1);
+
+    private RabbitAdmin admin2 = buildAdmin("admin2", channel2);
+
+    private DeclarationCoordinator coordinator = new DeclarationCoordinator(Arrays.asList(admin1, admin2));
+
+    @Test
+    public void testDeclare() throws Exception
+    {
+        DirectExchange exchange = new DirectExchange("anyExchange");
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").boundTo(exchange, "anyRoutingKey").build();
+
+        List<DeclarationResult> results = coordinator.declare(Arrays.asList(exchange, queueWithDlx));
+
+        assertThat(results).extracting(DeclarationResult::getAdmin).containsExactly(admin1, admin2);
+        assertThat(results).allMatch(DeclarationResult::isSuccessful);
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(4, 4);
+        for (Channel channel : Arrays.asList(channel1, channel2))
+        {
+            verify(channel).exchangeDeclareNoWait("anyExchange", "direct", true, false, false, Collections.emptyMap());
+            verify(channel).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+            verify(channel).queueDeclareNoWait(eq("anyQueueName.dlx"), eq(true), eq(false), eq(false), anyMap());
+            verify(channel).queueBindNoWait(eq("anyQueueName"), eq("anyExchange"), eq("anyRoutingKey"), any());
+            verify(channel).basicQos(0);
+        }
+    }
+
+    @Test
+    public void testDeclareOnlyByDeclaringAdmins() throws Exception
+    {
+        List<DeclarationResult> results = coordinator.declare(Collections.singletonList(AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", "admin2")));
+
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(0, 1);
+        verify(channel1, never()).queueDeclareNoWait(anyString(), anyBoolean(), anyBoolean(), anyBoolean(), anyMap());
+        verify(channel2).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testDeclareWithFailingAdmin() throws Exception
+    {
+        doThrow(new IOException("PRECONDITION_FAILED")).when(channel1).basicQos(0);
+
+        List<DeclarationResult> results = coordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+
+        assertThat(results.get(0).isSuccessful()).isFalse();
+        assertThat(results.get(0).getFailure()).hasRootCauseInstanceOf(IOException.class);
+        assertThat(results.get(1).isSuccessful()).isTrue();
+        verify(channel2).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testDeclareAndRedeclareOnReconnect() throws Exception
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").build();
+        ArgumentCaptor<ConnectionListener> connectionListener = ArgumentCaptor.forClass(ConnectionListener.class);
+
+        List<DeclarationResult> results = coordinator.declareAndRedeclareOnReconnect(() -> Collections.singletonList(queueWithDlx));
+
+        assertThat(results).allMatch(DeclarationResult::isSuccessful);
+        verify(admin1.getRabbitTemplate().getConnectionFactory()).addConnectionListener(connectionListener.capture());
+        connectionListener.getValue().onCreate(mock(Connection.class));
+        verify(channel1).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+
+        connectionListener.getValue().onShutDown(mock(ShutdownSignalException.class));
+        connectionListener.getValue().onCreate(mock(Connection.class));
+        verify(channel1, times(2)).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+        verify(channel2).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+
+        connectionListener.getValue().onClose(mock(Connection.class));
+        connectionListener.getValue().onCreate(mock(Connection.class));
+        verify(channel1, times(3)).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testRedeclareOnReconnectSkipsNothing() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.setVerificationInterval(Duration.ofDays(1));
+        fingerprintStore.markVerified();
+        coordinator.setFingerprintStore(fingerprintStore);
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").build();
+        coordinator.declare(Collections.singletonList(queueWithDlx));
+        ArgumentCaptor<ConnectionListener> connectionListener = ArgumentCaptor.forClass(ConnectionListener.class);
+
+        List<DeclarationResult> results = coordinator.declareAndRedeclareOnReconnect(() -> Collections.singletonList(queueWithDlx));
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(2, 2);
+        verify(admin1.getRabbitTemplate().getConnectionFactory()).addConnectionListener(connectionListener.capture());
+        connectionListener.getValue().onClose(mock(Connection.class));
+        connectionListener.getValue().onCreate(mock(Connection.class));
+
+        verify(channel1, times(2)).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+        verify(channel1, times(2)).queueDeclareNoWait(eq("anyQueueName.dlx"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testCollectDeclarables() throws Exception
+    {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").build();
+        Queue otherQueue = new Queue("anyOtherQueueName");
+        beanFactory.registerSingleton("queueWithDlx", queueWithDlx);
+        beanFactory.registerSingleton("queue", queueWithDlx.getQueue());
+        beanFactory.registerSingleton("otherQueue", otherQueue);
+
+        List<Object> declarables = DeclarationCoordinator.collectDeclarables(beanFactory);
+        assertThat(declarables).containsExactlyInAnyOrder(queueWithDlx, queueWithDlx.getQueue(), otherQueue);
+
+        List<DeclarationResult> results = coordinator.declare(declarables);
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(3, 3);
+        verify(channel1).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testDeclareWithFingerprintStore() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.setVerificationInterval(Duration.ofDays(1));
+        fingerprintStore.markVerified();
+        coordinator.setFingerprintStore(fingerprintStore);
+
+        List<DeclarationResult> results = coordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(2, 2);
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(0, 0);
+
+        results = coordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(0, 0);
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(2, 2);
+
+        results = new DeclarationCoordinator(Collections.singletonList(admin1)).declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(10).build()));
+        assertThat(results.get(0).getDeclarations()).isEqualTo(2);
+
+        coordinator.setFingerprintStore(new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints")));
+        results = coordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(2, 2);
+    }
+
+    @Test
+    public void testDeclareWithFingerprintStoreVerification() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        coordinator.setFingerprintStore(fingerprintStore);
+        DirectExchange exchange = new DirectExchange("anyExchange");
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").boundTo(exchange, "anyRoutingKey").build();
+        coordinator.declare(Arrays.asList(exchange, queueWithDlx));
+        assertThat(fingerprintStore.isVerificationDue()).isFalse();
+
+        fingerprintStore.setVerificationInterval(Duration.ZERO);
+        when(channel1.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 0, 0));
+        when(channel1.queueDeclarePassive("anyQueueName.dlx")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName.dlx", 0, 0));
+        when(channel1.exchangeDeclarePassive("anyExchange")).thenReturn(new AMQImpl.Exchange.DeclareOk());
+        when(channel2.queueDeclarePassive("anyQueueName")).thenThrow(new IOException("NOT_FOUND"));
+        when(channel2.queueDeclarePassive("anyQueueName.dlx")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName.dlx", 0, 0));
+        when(channel2.exchangeDeclarePassive("anyExchange")).thenReturn(new AMQImpl.Exchange.DeclareOk());
+
+        List<DeclarationResult> results = coordinator.declare(Arrays.asList(exchange, queueWithDlx));
+
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(1, 2);
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(3, 2);
+        verify(channel2, times(2)).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+        verify(channel1, times(2)).queueBindNoWait(eq("anyQueueName"), eq("anyExchange"), eq("anyRoutingKey"), any());
+        verify(channel2, times(2)).queueBindNoWait(eq("anyQueueName"), eq("anyExchange"), eq("anyRoutingKey"), any());
+    }
+
+    @Test
+    public void testDeclareAllAfterFailureWithFingerprintStore() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.setVerificationInterval(Duration.ofDays(1));
+        fingerprintStore.markVerified();
+        coordinator.setFingerprintStore(fingerprintStore);
+        DirectExchange exchange = new DirectExchange("anyExchange");
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").boundTo(exchange, "anyRoutingKey").build();
+        coordinator.declare(Arrays.asList(exchange, queueWithDlx));
+
+        // the queue was deleted on the broker of admin1, so the binding fails
+        doThrow(new IOException("NOT_FOUND")).doNothing().when(channel1).basicQos(0);
+        List<DeclarationResult> results = coordinator.declare(Arrays.asList(exchange, queueWithDlx));
+
+        assertThat(results).extracting(DeclarationResult::isSuccessful).containsExactly(true, true);
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(4, 1);
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(0, 3);
+        verify(channel1, times(2)).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+        verify(channel2).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+        assertThat(fingerprintStore.isUnchanged(admin1, queueWithDlx.getQueue())).isTrue();
+    }
+
+    @Test
+    public void testDeclareFailureWithoutFingerprintStore() throws Exception
+    {
+        doThrow(new IOException("NOT_FOUND")).doNothing().when(channel1).basicQos(0);
+
+        List<DeclarationResult> results = coordinator.declare(Collections.singletonList(QueueWithDlxBuilder.durable("anyQueueName").build()));
+
+        assertThat(results).extracting(DeclarationResult::isSuccessful).containsExactly(false, true);
+        verify(channel1).queueDeclareNoWait(eq("anyQueueName"), eq(true), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testDeclareTransientQueuesWithFingerprintStore() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.setVerificationInterval(Duration.ofDays(1));
+        fingerprintStore.markVerified();
+        coordinator.setFingerprintStore(fingerprintStore);
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.nonDurable("anyQueueName").build();
+
+        coordinator.declare(Collections.singletonList(queueWithDlx));
+        List<DeclarationResult> results = coordinator.declare(Collections.singletonList(queueWithDlx));
+
+        assertThat(results).extracting(DeclarationResult::getDeclarations).containsExactly(2, 2);
+        assertThat(results).extracting(DeclarationResult::getSkipped).containsExactly(0, 0);
+        verify(channel1, times(2)).queueDeclareNoWait(eq("anyQueueName"), eq(false), eq(false), eq(false), anyMap());
+    }
+
+    @Test
+    public void testPruneFingerprintsOfRemovedDeclarables() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.setVerificationInterval(Duration.ofDays(1));
+        fingerprintStore.markVerified();
+        coordinator.setFingerprintStore(fingerprintStore);
+        Queue queue = new Queue("anyQueueName");
+        Queue removedQueue = new Queue("anyRemovedQueueName");
+
+        coordinator.declare(Arrays.asList(queue, removedQueue));
+        coordinator.declare(Collections.singletonList(queue));
+
+        assertThat(fingerprintStore.isUnchanged(admin1, queue)).isTrue();
+        assertThat(fingerprintStore.isUnchanged(admin1, removedQueue)).isFalse();
+    }
+
+    @Test
+    public void testFingerprintStoreRequiresBeanNames() throws Exception
+    {
+        DeclarationCoordinator coordinatorWithoutBeanNames = new DeclarationCoordinator(Collections.singletonList(new RabbitAdmin(mock(ConnectionFactory.class))));
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+
+        assertThatThrownBy(() -> coordinatorWithoutBeanNames.setFingerprintStore(fingerprintStore)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RabbitAdmin buildAdmin(String beanName, Channel channel)
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        admin.setBeanName(beanName);
+        return admin;
+    }
+}
@@ -0,0 +1,168 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+public class DeclarationFingerprintStoreTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFingerprint()
+    {
+        Queue queue = AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", "anyAdmin");
+        assertThat(DeclarationFingerprintStore.fingerprint(queue))
+            .isEqualTo(DeclarationFingerprintStore.fingerprint(AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", "anyOtherAdmin")))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(AmqpUtils.buildNonDurableQueueWithDlxArguments("anyQueueName", "anyAdmin")))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(AmqpUtils.buildDurableQueueWithDlxArguments("anyOtherQueueName", "anyAdmin")))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(10).build().getQueue()));
+        assertThat(DeclarationFingerprintStore.fingerprint(QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(10).build().getQueue()))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(QueueWithDlxBuilder.durable("anyQueueName").withArgument("x-max-length", Long.valueOf(10)).build().getQueue()));
+        assertThat(DeclarationFingerprintStore.fingerprint(new DirectExchange("anyExchange")))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(new TopicExchange("anyExchange")));
+        assertThat(DeclarationFingerprintStore.fingerprint(new Binding("anyQueueName", DestinationType.QUEUE, "anyExchange", "anyRoutingKey", Collections.emptyMap())))
+            .isNotEqualTo(DeclarationFingerprintStore.fingerprint(new Binding("anyQueueName", DestinationType.QUEUE, "anyExchange", "anyOtherRoutingKey", Collections.emptyMap())));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception
+    {
+        Path file = temporaryFolder.getRoot().toPath().resolve("dir/fingerprints");
+        RabbitAdmin admin = buildAdmin("anyAdmin");
+        RabbitAdmin otherAdmin = buildAdmin("anyOtherAdmin");
+        Queue queue = AmqpUtils.buildDurableQueueWithDlxArguments("anyQueueName", admin);
+
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(file);
+        assertThat(fingerprintStore.isUnchanged(admin, queue)).isFalse();
+        assertThat(fingerprintStore.isVerificationDue()).isTrue();
+        fingerprintStore.update(admin, Collections.singletonList(queue));
+        fingerprintStore.markVerified();
+        fingerprintStore.save();
+
+        DeclarationFingerprintStore loadedFingerprintStore = new DeclarationFingerprintStore(file);
+        assertThat(loadedFingerprintStore.isUnchanged(admin, queue)).isTrue();
+        assertThat(loadedFingerprintStore.isUnchanged(otherAdmin, queue)).isFalse();
+        assertThat(loadedFingerprintStore.isUnchanged(admin, AmqpUtils.buildNonDurableQueueWithDlxArguments("anyQueueName", admin))).isFalse();
+        assertThat(loadedFingerprintStore.isVerificationDue()).isFalse();
+        loadedFingerprintStore.setVerificationInterval(Duration.ZERO);
+        assertThat(loadedFingerprintStore.isVerificationDue()).isTrue();
+    }
+
+    @Test
+    public void testNeverSkipTransientDeclarablesAndBindings() throws Exception
+    {
+        RabbitAdmin admin = buildAdmin("anyAdmin");
+        Queue nonDurableQueue = new Queue("anyQueueName", false);
+        Queue exclusiveQueue = new Queue("anyExclusiveQueueName", true, true, false);
+        Queue autoDeleteQueue = new Queue("anyAutoDeleteQueueName", true, false, true);
+        DirectExchange nonDurableExchange = new DirectExchange("anyExchange", false, false);
+        Binding binding = new Binding("anyQueueName", DestinationType.QUEUE, "anyExchange", "anyRoutingKey", Collections.emptyMap());
+        List<Declarable> declarables = Arrays.asList(nonDurableQueue, exclusiveQueue, autoDeleteQueue, nonDurableExchange, binding);
+
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.update(admin, declarables);
+
+        for (Declarable declarable : declarables)
+        {
+            assertThat(fingerprintStore.isUnchanged(admin, declarable)).as(declarable.toString()).isFalse();
+        }
+    }
+
+    @Test
+    public void testRetain() throws Exception
+    {
+        RabbitAdmin admin = buildAdmin("anyAdmin");
+        RabbitAdmin otherAdmin = buildAdmin("anyOtherAdmin");
+        Queue queue = new Queue("anyQueueName");
+        Queue removedQueue = new Queue("anyRemovedQueueName");
+
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.update(admin, Arrays.asList(queue, removedQueue));
+        fingerprintStore.update(otherAdmin, Collections.singletonList(removedQueue));
+        fingerprintStore.retain(admin, Collections.singletonList(queue));
+
+        assertThat(fingerprintStore.isUnchanged(admin, queue)).isTrue();
+        assertThat(fingerprintStore.isUnchanged(admin, removedQueue)).isFalse();
+        assertThat(fingerprintStore.isUnchanged(otherAdmin, removedQueue)).isTrue();
+    }
+
+    @Test
+    public void testForget() throws Exception
+    {
+        RabbitAdmin admin = buildAdmin("anyAdmin");
+        RabbitAdmin otherAdmin = buildAdmin("anyOtherAdmin");
+        Queue queue = new Queue("anyQueueName");
+
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.update(admin, Collections.singletonList(queue));
+        fingerprintStore.update(otherAdmin, Collections.singletonList(queue));
+        fingerprintStore.forget(admin);
+
+        assertThat(fingerprintStore.isUnchanged(admin, queue)).isFalse();
+        assertThat(fingerprintStore.isUnchanged(otherAdmin, queue)).isTrue();
+    }
+
+    @Test
+    public void testFingerprintsPerBroker() throws Exception
+    {
+        RabbitAdmin admin = buildAdmin("anyAdmin", "anyHost", 5672, "/");
+        Queue queue = new Queue("anyQueueName");
+
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        fingerprintStore.update(admin, Collections.singletonList(queue));
+
+        assertThat(fingerprintStore.isUnchanged(buildAdmin("anyAdmin", "anyHost", 5672, "/"), queue)).isTrue();
+        assertThat(fingerprintStore.isUnchanged(buildAdmin("anyAdmin", "anyOtherHost", 5672, "/"), queue)).isFalse();
+        assertThat(fingerprintStore.isUnchanged(buildAdmin("anyAdmin", "anyHost", 5673, "/"), queue)).isFalse();
+        assertThat(fingerprintStore.isUnchanged(buildAdmin("anyAdmin", "anyHost", 5672, "anyVirtualHost"), queue)).isFalse();
+    }
+
+    @Test
+    public void testAdminWithoutBeanName() throws Exception
+    {
+        DeclarationFingerprintStore fingerprintStore = new DeclarationFingerprintStore(temporaryFolder.getRoot().toPath().resolve("fingerprints"));
+        RabbitAdmin admin = new RabbitAdmin(mock(ConnectionFactory.class));
+
+        assertThatThrownBy(() -> fingerprintStore.isUnchanged(admin, new Queue("anyQueueName"))).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("bean-name");
+    }
+
+    private static RabbitAdmin buildAdmin(String beanName, String host, int port, String virtualHost)
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getHost()).thenReturn(host);
+        when(connectionFactory.getPort()).thenReturn(Integer.valueOf(port));
+        when(connectionFactory.getVirtualHost()).thenReturn(virtualHost);
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        admin.setBeanName(beanName);
+        return admin;
+    }
+
+    private static RabbitAdmin buildAdmin(String beanName)
+    {
+        RabbitAdmin admin = new RabbitAdmin(mock(ConnectionFactory.class));
+        admin.setBeanName(beanName);
+        return admin;
+    }
+}
@@ -0,0 +1,153 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+
+public class DlxArchiveReaderTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private List<BasicProperties> messages = new ArrayList<>();
+
+    private List<Map<String, Object>> consumerArguments = new ArrayList<>();
+
+    private DlxArchiveReader reader;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        doAnswer(invocation ->
+        {
+            consumerArguments.add(invocation.getArgument(2));
+            Consumer consumer = invocation.getArgument(3);
+            for (int i = 0; i < messages.size(); i++)
+            {
+                consumer.handleDelivery("anyConsumerTag", new Envelope(i + 1, false, "anyName", "anyQueueName"), messages.get(i), new byte[0]);
+            }
+            return "anyConsumerTag";
+        }).when(channel).basicConsume(anyString(), anyBoolean(), anyMap(), any(Consumer.class));
+        reader = new DlxArchiveReader(connectionFactory);
+        reader.setBatchSize(2);
+        reader.setReceiveTimeout(10);
+    }
+
+    @Test
+    public void testRead() throws Exception
+    {
+        messages.add(buildProperties("anyQueueName", 10));
+        messages.add(buildProperties("anyOtherQueueName", 11));
+        messages.add(buildProperties("anyQueueName", 12));
+        List<Message> read = new ArrayList<>();
+
+        assertThat(reader.read("anyName.stream", 10, "anyQueueName", -1, read::add)).isEqualTo(2);
+
+        assertThat(consumerArguments.get(0)).containsEntry(DlxArchiveReader.X_STREAM_OFFSET, Long.valueOf(10));
+        assertThat(read).extracting(message -> message.getMessageProperties().getHeaders().get(DlxArchiveReader.X_STREAM_OFFSET))
+            .containsExactly(Long.valueOf(10), Long.valueOf(12));
+        verify(channel).basicQos(2);
+        verify(channel).basicAck(3, true);
+        verify(channel, never()).confirmSelect();
+        verify(channel).close();
+    }
+
+    @Test
+    public void testReadWithTimestampAndMaxMessages() throws Exception
+    {
+        messages.add(buildProperties("anyQueueName", 10));
+        messages.add(buildProperties("anyOtherQueueName", 11));
+        messages.add(buildProperties("anyQueueName", 12));
+        Date timestamp = new Date();
+
+        assertThat(reader.read("anyName.stream", timestamp, null, 1, message ->
+        {
+            // nothing to do
+        })).isEqualTo(1);
+
+        assertThat(consumerArguments.get(0)).containsEntry(DlxArchiveReader.X_STREAM_OFFSET, timestamp);
+        verify(channel).basicAck(1, true);
+        verify(channel, never()).basicAck(2, true);
+    }
+
+    @Test
+    public void testReplay() throws Exception
+    {
+        messages.add(buildProperties("anyQueueName", 10));
+        messages.add(buildProperties("anyOtherQueueName", 11));
+        messages.add(buildProperties("anyQueueName", 12));
+
+        assertThat(reader.replay("anyName.stream", 0, null, -1)).isEqualTo(3);
+
+        verify(channel).confirmSelect();
+        verify(channel).basicPublish(eq(""), eq("anyQueueName"), eq(true), eq(messages.get(0)), any(byte[].class));
+        verify(channel).basicPublish(eq(""), eq("anyOtherQueueName"), eq(true), eq(messages.get(1)), any(byte[].class));
+        verify(channel).basicPublish(eq(""), eq("anyQueueName"), eq(true), eq(messages.get(2)), any(byte[].class));
+        verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    public void testReplayAfterRetryTiers() throws Exception
+    {
+        messages.add(buildProperties("anyQueueName.retry.10s", 10));
+        messages.add(buildProperties("anyOtherQueueName", 11));
+
+        assertThat(reader.replay("anyName.stream", 0, "anyQueueName", -1)).isEqualTo(1);
+
+        verify(channel).basicPublish(eq(""), eq("anyQueueName"), eq(true), eq(messages.get(0)), any(byte[].class));
+        verify(channel, never()).basicPublish(eq(""), eq("anyOtherQueueName"), anyBoolean(), any(BasicProperties.class), any(byte[].class));
+    }
+
+    @Test
+    public void testReplayWithUnknownOriginQueue() throws Exception
+    {
+        messages.add(new BasicProperties.Builder().headers(Collections.singletonMap(DlxArchiveReader.X_STREAM_OFFSET, Long.valueOf(10))).build());
+
+        assertThatThrownBy(() -> reader.replay("anyName.stream", 0, null, -1)).isInstanceOf(AmqpException.class).hasMessageContaining("[10]");
+
+        verify(channel, never()).basicPublish(anyString(), anyString(), anyBoolean(), any(BasicProperties.class), any(byte[].class));
+        verify(channel).close();
+    }
+
+    private static BasicProperties buildProperties(String originQueueName, long offset)
+    {
+        Map<String, Object> death = new HashMap<>();
+        death.put("queue", originQueueName);
+        death.put("count", Long.valueOf(1));
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("x-death", Collections.singletonList(death));
+        headers.put(DlxArchiveReader.X_STREAM_OFFSET, Long.valueOf(offset));
+        return new BasicProperties.Builder().headers(headers).build();
+    }
+}
@@ -0,0 +1,214 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.AMQP.Queue.DeclareOk;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ReturnCallback;
+
+public class DlxReplayerTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private List<BasicProperties> messages = new ArrayList<>();
+
+    private ReturnCallback returnCallback;
+
+    private DlxReplayer replayer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        doAnswer(invocation ->
+        {
+            returnCallback = invocation.getArgument(0);
+            return null;
+        }).when(channel).addReturnListener(any(ReturnCallback.class));
+        doAnswer(invocation ->
+        {
+            Consumer consumer = invocation.getArgument(2);
+            for (int i = 0; i < messages.size(); i++)
+            {
+                consumer.handleDelivery("anyConsumerTag", new Envelope(i + 1, false, "", invocation.getArgument(0)), messages.get(i), new byte[0]);
+            }
+            return "anyConsumerTag";
+        }).when(channel).basicConsume(anyString(), anyBoolean(), any(Consumer.class));
+        replayer = new DlxReplayer(connectionFactory);
+        replayer.setBatchSize(2);
+        replayer.setReceiveTimeout(10);
+    }
+
+    @Test
+    public void testReplay() throws Exception
+    {
+        messages.add(buildProperties(null));
+        messages.add(buildProperties("anyOriginQueueName"));
+        messages.add(buildProperties(null));
+        DeclareOk declareOk = mock(DeclareOk.class);
+        when(declareOk.getMessageCount()).thenReturn(Integer.valueOf(3));
+        when(channel.queueDeclarePassive("anyQueueName.dlx")).thenReturn(declareOk);
+
+        assertThat(replayer.replay("anyQueueName.dlx")).isEqualTo(3);
+
+        verify(channel).confirmSelect();
+        verify(channel).basicQos(2);
+        verify(channel, times(2)).basicPublish(eq(""), eq("anyQueueName"), eq(true), any(BasicProperties.class), any(byte[].class));
+        verify(channel).basicPublish(eq(""), eq("anyOriginQueueName"), eq(true), any(BasicProperties.class), any(byte[].class));
+        verify(channel, times(2)).waitForConfirmsOrDie(10000);
+        verify(channel).basicAck(2, true);
+        verify(channel).basicAck(3, true);
+        verify(channel).close();
+    }
+
+    @Test
+    public void testReplayAfterRetryTiers() throws Exception
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withRetryTiers(Duration.ofSeconds(1), Duration.ofSeconds(10)).build();
+        // the latest death comes first, the message expired from both retry-queues and was parked by the recoverer
+        BasicProperties parked = buildDeadLetteredProperties("anyQueueName.retry.10s", "anyQueueName.retry.1s");
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setHeader("x-death", parked.getHeaders().get("x-death"));
+        assertThat(new RetryTierMessageRecoverer(mock(AmqpTemplate.class), queueWithDlx).determineTargetQueueName(new Message(new byte[0], messageProperties)))
+            .isEqualTo("anyQueueName.dlx");
+        messages.add(parked);
+
+        assertThat(replayer.replay("anyQueueName.dlx", 10)).isEqualTo(1);
+
+        verify(channel).basicPublish(eq(""), eq("anyQueueName"), eq(true), any(BasicProperties.class), any(byte[].class));
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    public void testReplayWithMaxMessages() throws Exception
+    {
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+
+        assertThat(replayer.replay("anyQueueName.dlx", 1)).isEqualTo(1);
+
+        verify(channel).basicAck(1, true);
+        verify(channel, never()).basicAck(2, true);
+        verify(channel, never()).queueDeclarePassive(anyString());
+    }
+
+    @Test
+    public void testReplayWithEmptyQueue() throws Exception
+    {
+        assertThat(replayer.replay("anyQueueName.dlx", 10)).isEqualTo(0);
+
+        verify(channel, never()).basicPublish(anyString(), anyString(), anyBoolean(), any(BasicProperties.class), any(byte[].class));
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testReplayWithUnknownOriginQueue() throws Exception
+    {
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+
+        assertThatThrownBy(() -> replayer.replay("anyQueueName", 10)).isInstanceOf(AmqpException.class).hasMessageContaining("anyQueueName");
+
+        verify(channel, never()).basicPublish(anyString(), anyString(), anyBoolean(), any(BasicProperties.class), any(byte[].class));
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel).close();
+    }
+
+    @Test
+    public void testReplayWithReturnedMessage() throws Exception
+    {
+        messages.add(buildProperties("anyMissingQueueName"));
+        messages.add(buildProperties(null));
+        doAnswer(invocation ->
+        {
+            returnCallback.handle(new Return(312, "NO_ROUTE", "", "anyMissingQueueName", invocation.getArgument(3), new byte[0]));
+            return null;
+        }).when(channel).basicPublish(eq(""), eq("anyMissingQueueName"), eq(true), any(BasicProperties.class), any(byte[].class));
+
+        assertThatThrownBy(() -> replayer.replay("anyQueueName.dlx", 10)).isInstanceOf(AmqpException.class).hasMessageContaining("anyMissingQueueName");
+
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    public void testReplayWithMaxMessagesPerSecond()
+    {
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+        messages.add(buildProperties(null));
+        replayer.setMaxMessagesPerSecond(20);
+
+        long start = System.currentTimeMillis();
+        assertThat(replayer.replay("anyQueueName.dlx", 4)).isEqualTo(4);
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(200);
+    }
+
+    @Test
+    public void testDetermineOriginQueueName()
+    {
+        assertThat(DlxReplayer.determineOriginQueueName("anyQueueName.dlx", null)).isEqualTo("anyQueueName");
+        assertThat(DlxReplayer.determineOriginQueueName("anyQueueName.dlx", buildProperties("anyOriginQueueName").getHeaders())).isEqualTo("anyOriginQueueName");
+        assertThat(DlxReplayer.determineOriginQueueName("anyQueueName.dlx", Collections.singletonMap("x-death", Collections.emptyList())))
+            .isEqualTo("anyQueueName");
+        assertThat(DlxReplayer.determineOriginQueueName("anyQueueName", null)).isNull();
+        assertThat(DlxReplayer.determineOriginQueueName("anyQueueName.dlx", buildProperties("anyOriginQueueName.retry.500ms").getHeaders()))
+            .isEqualTo("anyOriginQueueName");
+    }
+
+    private static BasicProperties buildProperties(String originQueueName)
+    {
+        return originQueueName == null ? new BasicProperties.Builder().build() : buildDeadLetteredProperties(originQueueName);
+    }
+
+    private static BasicProperties buildDeadLetteredProperties(String... queueNames)
+    {
+        List<Map<String, Object>> xDeath = new ArrayList<>();
+        for (String queueName : queueNames)
+        {
+            Map<String, Object> death = new HashMap<>();
+            death.put("queue", queueName);
+            death.put("count", Long.valueOf(1));
+            xDeath.add(death);
+        }
+        return new BasicProperties.Builder().headers(Collections.singletonMap("x-death", xDeath)).build();
+    }
+}
@@ -0,0 +1,217 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+
+import com.avides.spring.amqp.utils.PoisonMessageCircuitBreaker.State;
+
+public class PoisonMessageCircuitBreakerTest
+{
+    private MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    private PoisonMessageCircuitBreaker circuitBreaker = new PoisonMessageCircuitBreaker(container);
+
+    private MethodInvocation invocation = mock(MethodInvocation.class);
+
+    private AtomicBoolean running = new AtomicBoolean(true);
+
+    @Before
+    public void before()
+    {
+        when(container.isRunning()).thenAnswer(answer -> Boolean.valueOf(running.get()));
+        doAnswer(answer ->
+        {
+            running.set(false);
+            return null;
+        }).when(container).stop();
+        doAnswer(answer ->
+        {
+            running.set(true);
+            return null;
+        }).when(container).start();
+    }
+
+    @After
+    public void after()
+    {
+        circuitBreaker.destroy();
+    }
+
+    @Test
+    public void testOpenAndClose() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(3);
+        circuitBreaker.setOpenDuration(Duration.ofMillis(50));
+        circuitBreaker.setHalfOpenProbes(2);
+        circuitBreaker.setHalfOpenRate(1000);
+
+        failTimes(2);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        verify(container, never()).stop();
+
+        failTimes(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        verify(container, timeout(1000)).stop();
+        assertThatThrownBy(() -> circuitBreaker.invoke(invocation)).isInstanceOf(ImmediateRequeueAmqpException.class);
+
+        verify(container, timeout(1000)).start();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        succeedTimes(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        succeedTimes(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        verify(invocation, times(5)).proceed();
+    }
+
+    @Test
+    public void testReopenWhileHalfOpen() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(1);
+        circuitBreaker.setOpenDuration(Duration.ofMillis(50));
+
+        failTimes(1);
+        verify(container, timeout(1000)).start();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        failTimes(1);
+        verify(container, timeout(1000).times(2)).stop();
+        verify(container, timeout(1000).times(2)).start();
+    }
+
+    @Test
+    public void testDoNotStartContainerStoppedBySomeoneElse() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(1);
+        circuitBreaker.setOpenDuration(Duration.ofMillis(50));
+        running.set(false);
+
+        failTimes(1);
+
+        Thread.sleep(200);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        verify(container, never()).stop();
+        verify(container, never()).start();
+    }
+
+    @Test
+    public void testDoNotStartContainerStartedMeanwhile() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(1);
+        circuitBreaker.setOpenDuration(Duration.ofMillis(100));
+
+        failTimes(1);
+        verify(container, timeout(1000)).stop();
+        running.set(true);
+
+        Thread.sleep(300);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        verify(container, never()).start();
+    }
+
+    @Test
+    public void testFailureWindow() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(2);
+        circuitBreaker.setFailureWindow(Duration.ofMillis(50));
+
+        failTimes(1);
+        Thread.sleep(100);
+        failTimes(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        failTimes(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    public void testHalfOpenRate() throws Throwable
+    {
+        circuitBreaker.setFailureThreshold(1);
+        circuitBreaker.setOpenDuration(Duration.ZERO);
+        circuitBreaker.setHalfOpenProbes(4);
+        circuitBreaker.setHalfOpenRate(20);
+
+        failTimes(1);
+        verify(container, timeout(1000)).start();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        List<Long> probeTimes = new CopyOnWriteArrayList<>();
+        doAnswer(probe -> probeTimes.add(Long.valueOf(System.nanoTime()))).when(invocation).proceed();
+        ExecutorService consumers = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                consumers.execute(() ->
+                {
+                    try
+                    {
+                        circuitBreaker.invoke(invocation);
+                    }
+                    catch (Throwable e)
+                    {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+            consumers.shutdown();
+            assertThat(consumers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+        finally
+        {
+            consumers.shutdownNow();
+        }
+
+        assertThat(probeTimes).hasSize(4);
+        List<Long> sortedProbeTimes = new ArrayList<>(probeTimes);
+        Collections.sort(sortedProbeTimes);
+        for (int i = 1; i < sortedProbeTimes.size(); i++)
+        {
+            assertThat(sortedProbeTimes.get(i).longValue() - sortedProbeTimes.get(i - 1).longValue()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    private void failTimes(int times) throws Throwable
+    {
+        doThrow(new IllegalStateException()).when(invocation).proceed();
+        for (int i = 0; i < times; i++)
+        {
+            assertThatThrownBy(() -> circuitBreaker.invoke(invocation)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private void succeedTimes(int times) throws Throwable
+    {
+        doReturn(null).when(invocation).proceed();
+        for (int i = 0; i < times; i++)
+        {
+            circuitBreaker.invoke(invocation);
+        }
+    }
+}
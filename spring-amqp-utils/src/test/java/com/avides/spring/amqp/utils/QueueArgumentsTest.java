@@ -0,0 +1,139 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+import org.springframework.amqp.core.QueueBuilder;
+
+public class QueueArgumentsTest
+{
+    @Test
+    public void testValidateClassicQueue()
+    {
+        QueueArguments.validate(QueueBuilder.nonDurable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .withArgument(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .build());
+    }
+
+    @Test
+    public void testValidateClassicQueueWithQuorumArgument()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_DELIVERY_LIMIT, 5).build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("argument 'x-delivery-limit' is not supported by classic-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateQuorumQueue()
+    {
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_DELIVERY_LIMIT, 5)
+            .withArgument(QueueArguments.X_MAX_IN_MEMORY_LENGTH, 100)
+            .withArgument(QueueArguments.X_DEAD_LETTER_STRATEGY, QueueArguments.AT_LEAST_ONCE)
+            .withArgument(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH)
+            .build());
+    }
+
+    @Test
+    public void testValidateLazyQuorumQueue()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .build())).isInstanceOf(IllegalArgumentException.class).hasMessage("argument 'x-queue-mode' is not supported by quorum-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateNonDurableQuorumQueue()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.nonDurable("anyQueueName").withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM).build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("quorum-queue 'anyQueueName' must be durable, non-exclusive and non-auto-delete");
+    }
+
+    @Test
+    public void testValidateAtLeastOnceWithoutRejectPublish()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_DEAD_LETTER_STRATEGY, QueueArguments.AT_LEAST_ONCE)
+            .build())).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("queue 'anyQueueName' with x-dead-letter-strategy=at-least-once requires x-overflow=reject-publish");
+    }
+
+    @Test
+    public void testValidateStreamQueueWithDlxArguments()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.STREAM)
+            .withArgument(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .build())).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("argument 'x-dead-letter-exchange' is not supported by stream-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateMaxPriority()
+    {
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(255)).build());
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(256)).build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("x-max-priority=256 of queue 'anyQueueName' must be between 1 and 255");
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10))
+            .build())).isInstanceOf(IllegalArgumentException.class).hasMessage("argument 'x-max-priority' is not supported by quorum-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateMaxAge()
+    {
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.STREAM)
+            .withArgument(QueueArguments.X_MAX_AGE, "7D")
+            .build());
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_MAX_AGE, "7D").build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("argument 'x-max-age' is not supported by classic-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateLocators()
+    {
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_QUEUE_MASTER_LOCATOR, QueueArguments.MIN_MASTERS).build());
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.BALANCED)
+            .build());
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_QUEUE_MASTER_LOCATOR, QueueArguments.MIN_MASTERS)
+            .build())).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("x-queue-master-locator=min-masters is not supported by quorum-queue 'anyQueueName'");
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.MIN_MASTERS).build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("x-queue-leader-locator=min-masters is not supported by classic-queue 'anyQueueName'");
+    }
+
+    @Test
+    public void testValidateOverflow()
+    {
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_OVERFLOW, QueueArguments.DROP_HEAD).build());
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName").withArgument(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH_DLX).build());
+        QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH)
+            .build());
+    }
+
+    @Test
+    public void testValidateRejectPublishDlxOnQuorumQueue()
+    {
+        assertThatThrownBy(() -> QueueArguments.validate(QueueBuilder.durable("anyQueueName")
+            .withArgument(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .withArgument(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH_DLX)
+            .build())).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("x-overflow=reject-publish-dlx is not supported by quorum-queue 'anyQueueName'");
+    }
+}
@@ -0,0 +1,137 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.impl.AMQImpl;
+
+public class QueueDepthMonitorTest
+{
+    private Channel channel = mock(Channel.class);
+
+    private Channel otherChannel = mock(Channel.class);
+
+    private Connection connection = mock(Connection.class);
+
+    private QueueDepthMonitor monitor = new QueueDepthMonitor(buildConnectionFactory());
+
+    @Test
+    public void testPoll() throws Exception
+    {
+        monitor.monitor(QueueWithDlxBuilder.durable("anyQueueName").build(), 100);
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 100, 3));
+        when(channel.queueDeclarePassive("anyQueueName.dlx")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName.dlx", 5000, 0));
+
+        assertThat(monitor.getDepth("anyQueueName")).isNull();
+        assertThat(monitor.isBackpressure()).isFalse();
+
+        monitor.poll();
+
+        assertThat(monitor.getDepth("anyQueueName").getMessageCount()).isEqualTo(100);
+        assertThat(monitor.getDepth("anyQueueName").getConsumerCount()).isEqualTo(3);
+        assertThat(monitor.getDepth("anyQueueName").getTimestamp()).isPositive();
+        assertThat(monitor.getDepth("anyQueueName.dlx").getMessageCount()).isEqualTo(5000);
+        assertThat(monitor.getDepths()).containsOnlyKeys("anyQueueName", "anyQueueName.dlx");
+        assertThat(monitor.isBackpressure("anyQueueName")).isTrue();
+        assertThat(monitor.isBackpressure("anyQueueName.dlx")).isFalse();
+        assertThat(monitor.isBackpressure()).isTrue();
+
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 99, 3));
+        monitor.poll();
+        assertThat(monitor.isBackpressure()).isFalse();
+    }
+
+    @Test
+    public void testPollWithMissingQueue() throws Exception
+    {
+        when(connection.createChannel(false)).thenReturn(channel, otherChannel);
+        monitor.monitor("anyQueueName");
+        monitor.monitor("anyMissingQueueName", 10);
+        monitor.monitor("anyOtherQueueName");
+        when(channel.queueDeclarePassive("anyMissingQueueName")).thenThrow(new IOException("NOT_FOUND"));
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 1, 1));
+        when(channel.queueDeclarePassive("anyOtherQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyOtherQueueName", 1, 1));
+        when(otherChannel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 2, 1));
+        when(otherChannel.queueDeclarePassive("anyOtherQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyOtherQueueName", 2, 1));
+
+        monitor.poll();
+
+        assertThat(monitor.getDepths()).containsOnlyKeys("anyQueueName", "anyOtherQueueName");
+        assertThat(monitor.getDepth("anyMissingQueueName")).isNull();
+        assertThat(monitor.isBackpressure("anyMissingQueueName")).isFalse();
+        verify(channel).close();
+    }
+
+    @Test
+    public void testStaleDepth() throws Exception
+    {
+        monitor.monitor("anyQueueName", 10);
+        monitor.setMaxAge(Duration.ofMillis(50));
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 10, 1));
+        monitor.poll();
+        assertThat(monitor.isBackpressure()).isTrue();
+
+        // the broker is unreachable, so the last depth ages
+        when(connection.createChannel(false)).thenThrow(new AmqpConnectException(new IOException("connection refused")));
+        Thread.sleep(100);
+        assertThatThrownBy(() -> monitor.poll()).isInstanceOf(AmqpConnectException.class);
+
+        assertThat(monitor.getDepth("anyQueueName")).isNull();
+        assertThat(monitor.getDepths()).isEmpty();
+        assertThat(monitor.isBackpressure("anyQueueName")).isFalse();
+        assertThat(monitor.isBackpressure()).isFalse();
+    }
+
+    @Test
+    public void testDefaultMaxAge() throws Exception
+    {
+        monitor.monitor("anyQueueName", 10);
+        monitor.setPollInterval(Duration.ofMillis(20));
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 10, 1));
+        monitor.poll();
+        assertThat(monitor.getDepth("anyQueueName")).isNotNull();
+
+        Thread.sleep(100);
+
+        assertThat(monitor.getDepth("anyQueueName")).isNull();
+    }
+
+    @Test
+    public void testStartAndStop() throws Exception
+    {
+        monitor.monitor("anyQueueName");
+        monitor.setPollInterval(Duration.ofMinutes(1));
+        when(channel.queueDeclarePassive("anyQueueName")).thenReturn(new AMQImpl.Queue.DeclareOk("anyQueueName", 1, 1));
+
+        monitor.start();
+        assertThat(monitor.isRunning()).isTrue();
+        verify(channel, timeout(1000)).close();
+        monitor.stop();
+
+        assertThat(monitor.isRunning()).isFalse();
+        assertThat(monitor.getDepth("anyQueueName").getMessageCount()).isEqualTo(1);
+        verify(channel, times(1)).queueDeclarePassive("anyQueueName");
+    }
+
+    private ConnectionFactory buildConnectionFactory()
+    {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(false)).thenReturn(channel);
+        return connectionFactory;
+    }
+}
@@ -0,0 +1,338 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+
+public class QueueWithDlxBuilderTest
+{
+    private Object amqpAdmin1 = "amqpAdmin1";
+    private Object amqpAdmin2 = "amqpAdmin2";
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildDurable()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").declaredBy(amqpAdmin1, amqpAdmin2).build();
+        assertThat(queueWithDlx.getQueue().getName()).isEqualTo("anyQueueName");
+        assertThat(queueWithDlx.getQueue().isDurable()).isTrue();
+        assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+        assertThat(queueWithDlx.getDlxQueue().getName()).isEqualTo("anyQueueName.dlx");
+        assertThat(queueWithDlx.getDlxQueue().isDurable()).isTrue();
+        assertThat((Collection<Object>) queueWithDlx.getDlxQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+        assertThat(queueWithDlx.getBindings()).isEmpty();
+        assertThat(queueWithDlx.getDeclarables()).containsExactly(queueWithDlx.getQueue(), queueWithDlx.getDlxQueue());
+    }
+
+    @Test
+    public void testBuildNonDurable()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.nonDurable("anyQueueName").build();
+        assertThat(queueWithDlx.getQueue().isDurable()).isFalse();
+        assertThat(queueWithDlx.getQueue().getDeclaringAdmins()).isEmpty();
+        assertThat(queueWithDlx.getDlxQueue().isDurable()).isFalse();
+        assertThat(queueWithDlx.getDlxQueue().getDeclaringAdmins()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildWithBindings()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .declaredBy(amqpAdmin1)
+            .boundTo(new TopicExchange("anyExchange"), "any.routing.key")
+            .boundTo("anyOtherExchange", "any.other.routing.key")
+            .build();
+        assertThat(queueWithDlx.getBindings()).hasSize(2);
+
+        Binding binding = queueWithDlx.getBindings().get(0);
+        assertThat(binding.getDestination()).isEqualTo("anyQueueName");
+        assertThat(binding.isDestinationQueue()).isTrue();
+        assertThat(binding.getExchange()).isEqualTo("anyExchange");
+        assertThat(binding.getRoutingKey()).isEqualTo("any.routing.key");
+        assertThat((Collection<Object>) binding.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+
+        Binding otherBinding = queueWithDlx.getBindings().get(1);
+        assertThat(otherBinding.getExchange()).isEqualTo("anyOtherExchange");
+        assertThat(otherBinding.getRoutingKey()).isEqualTo("any.other.routing.key");
+
+        assertThat(queueWithDlx.getDeclarables()).containsExactly(queueWithDlx.getQueue(), queueWithDlx.getDlxQueue(), binding, otherBinding);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildTwice()
+    {
+        QueueWithDlxBuilder builder = QueueWithDlxBuilder.durable("anyQueueName").declaredBy(amqpAdmin1).boundTo("anyExchange", "any.routing.key");
+        QueueWithDlx first = builder.build();
+        QueueWithDlx second = builder.declaredBy(amqpAdmin2).build();
+
+        assertThat(first.getBindings().get(0)).isNotSameAs(second.getBindings().get(0));
+        assertThat((Collection<Object>) first.getBindings().get(0).getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat((Collection<Object>) second.getBindings().get(0).getDeclaringAdmins()).containsOnly(amqpAdmin1, amqpAdmin2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildWithRetryTiers()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .declaredBy(amqpAdmin1)
+            .withRetryTiers(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60))
+            .build();
+        assertThat(queueWithDlx.getRetryQueues()).extracting(Queue::getName)
+            .containsExactly("anyQueueName.retry.1s", "anyQueueName.retry.10s", "anyQueueName.retry.60s");
+
+        Queue retryQueue = queueWithDlx.getRetryQueues().get(1);
+        assertThat(retryQueue.isDurable()).isTrue();
+        assertThat((Collection<Object>) retryQueue.getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(retryQueue.getArguments()).hasSize(3).containsEntry(QueueArguments.X_MESSAGE_TTL, Long.valueOf(10000))
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName");
+
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+        assertThat(queueWithDlx.getDeclarables()).hasSize(5).containsAll(queueWithDlx.getRetryQueues());
+    }
+
+    @Test
+    public void testBuildWithMaxPriority()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").withMaxPriority(10).withRetryTiers(Duration.ofSeconds(1)).build();
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10));
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(2)
+            .containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .containsEntry(QueueArguments.X_MAX_PRIORITY, Integer.valueOf(10));
+        assertThat(queueWithDlx.getRetryQueues().get(0).getArguments()).doesNotContainKey(QueueArguments.X_MAX_PRIORITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildQuorumWithMaxPriority()
+    {
+        QueueWithDlxBuilder.quorum("anyQueueName").withMaxPriority(10).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildWithLocators()
+    {
+        Object admin = new Object();
+        Object dlxAdmin = new Object();
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .withLeaderLocator(QueueArguments.CLIENT_LOCAL)
+            .withMasterLocator(QueueArguments.CLIENT_LOCAL)
+            .withRetryTiers(Duration.ofSeconds(1))
+            .declaredBy(admin)
+            .dlxDeclaredBy(dlxAdmin)
+            .build();
+        assertThat(queueWithDlx.getQueue().getArguments()).containsEntry(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.CLIENT_LOCAL)
+            .containsEntry(QueueArguments.X_QUEUE_MASTER_LOCATOR, QueueArguments.CLIENT_LOCAL);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).containsEntry(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.CLIENT_LOCAL)
+            .containsEntry(QueueArguments.X_QUEUE_MASTER_LOCATOR, QueueArguments.CLIENT_LOCAL);
+        assertThat(queueWithDlx.getRetryQueues().get(0).getArguments()).containsEntry(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.CLIENT_LOCAL);
+        assertThat((Collection<Object>) queueWithDlx.getQueue().getDeclaringAdmins()).containsOnly(admin);
+        assertThat((Collection<Object>) queueWithDlx.getDlxQueue().getDeclaringAdmins()).containsOnly(dlxAdmin);
+        assertThat((Collection<Object>) queueWithDlx.getRetryQueues().get(0).getDeclaringAdmins()).containsOnly(admin);
+
+        Queue quorumDlxQueue = QueueWithDlxBuilder.quorum("anyQueueName").withLeaderLocator(QueueArguments.BALANCED).build().getDlxQueue();
+        assertThat(quorumDlxQueue.getArguments()).containsEntry(QueueArguments.X_QUEUE_LEADER_LOCATOR, QueueArguments.BALANCED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildQuorumWithMasterLocator()
+    {
+        QueueWithDlxBuilder.quorum("anyQueueName").withMasterLocator(QueueArguments.MIN_MASTERS).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildWithDuplicateRetryTiers()
+    {
+        QueueWithDlxBuilder.durable("anyQueueName").withRetryTiers(Duration.ofSeconds(1), Duration.ofMillis(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildWithNonPositiveRetryTier()
+    {
+        QueueWithDlxBuilder.durable("anyQueueName").withRetryTiers(Duration.ZERO);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildQuorum()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.quorum("anyQueueName")
+            .declaredBy(amqpAdmin1)
+            .withDeliveryLimit(5)
+            .withMaxInMemoryLength(100)
+            .withMaxInMemoryBytes(1024)
+            .withAtLeastOnceDeadLettering()
+            .withRetryTiers(Duration.ofSeconds(1))
+            .build();
+        assertThat(queueWithDlx.getQueue().isDurable()).isTrue();
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(8)
+            .containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx")
+            .containsEntry(QueueArguments.X_DELIVERY_LIMIT, Integer.valueOf(5))
+            .containsEntry(QueueArguments.X_MAX_IN_MEMORY_LENGTH, Integer.valueOf(100))
+            .containsEntry(QueueArguments.X_MAX_IN_MEMORY_BYTES, Long.valueOf(1024))
+            .containsEntry(QueueArguments.X_DEAD_LETTER_STRATEGY, QueueArguments.AT_LEAST_ONCE)
+            .containsEntry(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH);
+        assertThat(queueWithDlx.getDlxQueue().isDurable()).isTrue();
+        assertThat((Collection<Object>) queueWithDlx.getDlxQueue().getDeclaringAdmins()).containsOnly(amqpAdmin1);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+        assertThat(queueWithDlx.getRetryQueues().get(0).getArguments()).containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildClassicWithQuorumArgument()
+    {
+        QueueWithDlxBuilder.durable("anyQueueName").withDeliveryLimit(5).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildQuorumWithLazyMode()
+    {
+        QueueWithDlxBuilder.quorum("anyQueueName").withArgument(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY).build();
+    }
+
+    @Test
+    public void testBuildBounded()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .withMaxLength(1000)
+            .withMaxLengthBytes(1048576)
+            .withOverflow(QueueArguments.REJECT_PUBLISH_DLX)
+            .build();
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(5)
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx")
+            .containsEntry(QueueArguments.X_MAX_LENGTH, Integer.valueOf(1000))
+            .containsEntry(QueueArguments.X_MAX_LENGTH_BYTES, Long.valueOf(1048576))
+            .containsEntry(QueueArguments.X_OVERFLOW, QueueArguments.REJECT_PUBLISH_DLX);
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(1).containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildQuorumWithRejectPublishDlx()
+    {
+        QueueWithDlxBuilder.quorum("anyQueueName").withMaxLength(1000).withOverflow(QueueArguments.REJECT_PUBLISH_DLX).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildWithUnknownOverflow()
+    {
+        QueueWithDlxBuilder.durable("anyQueueName").withMaxLength(1000).withOverflow("anyOverflow").build();
+    }
+
+    @Test
+    public void testBuildWithDlxRetentionPolicy()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .withDlxRetentionPolicy(new DlxRetentionPolicy().withMaxAge(Duration.ofDays(14))
+                .withMaxLength(100000)
+                .withMaxLengthBytes(1073741824)
+                .withArchiveQueue("anyArchiveQueueName"))
+            .build();
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(6)
+            .containsEntry(QueueArguments.X_QUEUE_MODE, QueueArguments.LAZY)
+            .containsEntry(QueueArguments.X_MESSAGE_TTL, Long.valueOf(1209600000))
+            .containsEntry(QueueArguments.X_MAX_LENGTH, Integer.valueOf(100000))
+            .containsEntry(QueueArguments.X_MAX_LENGTH_BYTES, Long.valueOf(1073741824))
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyArchiveQueueName");
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(2).containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName.dlx");
+    }
+
+    @Test
+    public void testBuildQuorumWithDlxRetentionPolicy()
+    {
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.quorum("anyQueueName").withDlxRetentionPolicy(new DlxRetentionPolicy().withMaxLength(100)).build();
+        assertThat(queueWithDlx.getDlxQueue().getArguments()).hasSize(2)
+            .containsEntry(QueueArguments.X_QUEUE_TYPE, QueueArguments.QUORUM)
+            .containsEntry(QueueArguments.X_MAX_LENGTH, Integer.valueOf(100));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildWithSharedDlx()
+    {
+        SharedDlx sharedDlx = AmqpUtils.buildDurableSharedDlx("anySharedDlx", 3, amqpAdmin1);
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName").declaredBy(amqpAdmin2).withSharedDlx(sharedDlx).build();
+        assertThat(queueWithDlx.getQueue().getArguments()).hasSize(2)
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "anySharedDlx")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, "anyQueueName");
+        assertThat(queueWithDlx.isDlxQueueShared()).isTrue();
+        assertThat(queueWithDlx.getDlxQueue()).isSameAs(sharedDlx.getQueueFor("anyQueueName"));
+
+        Binding binding = queueWithDlx.getBindings().get(0);
+        assertThat(binding.getDestination()).isEqualTo(queueWithDlx.getDlxQueue().getName());
+        assertThat(binding.getExchange()).isEqualTo("anySharedDlx");
+        assertThat(binding.getRoutingKey()).isEqualTo("anyQueueName");
+        assertThat((Collection<Object>) binding.getDeclaringAdmins()).containsOnly(amqpAdmin2);
+        assertThat(queueWithDlx.getDeclarables()).containsExactly(queueWithDlx.getQueue(), binding);
+    }
+
+    @Test
+    public void testBuildEphemeral()
+    {
+        SharedDlx sharedDlx = AmqpUtils.buildDurableSharedDlx("anySharedDlx", 3, amqpAdmin1);
+        QueueWithDlx queueWithDlx = QueueWithDlxBuilder.ephemeral("anyQueueName", Duration.ofMinutes(5)).autoDelete().withSharedDlx(sharedDlx).build();
+        Queue queue = queueWithDlx.getQueue();
+        assertThat(queue.getName()).startsWith("anyQueueName.").hasSize("anyQueueName.".length() + 22);
+        assertThat(queue.isDurable()).isFalse();
+        assertThat(queue.isAutoDelete()).isTrue();
+        assertThat(queue.isExclusive()).isFalse();
+        assertThat(queue.getArguments()).hasSize(3)
+            .containsEntry(QueueArguments.X_EXPIRES, Long.valueOf(300000))
+            .containsEntry(QueueArguments.X_DEAD_LETTER_EXCHANGE, "anySharedDlx")
+            .containsEntry(QueueArguments.X_DEAD_LETTER_ROUTING_KEY, queue.getName());
+        assertThat(queueWithDlx.getDlxQueue()).isSameAs(sharedDlx.getQueueFor("anyQueueName"));
+        assertThat(queueWithDlx.getBindings()).hasSize(1);
+        Binding binding = queueWithDlx.getBindings().get(0);
+        assertThat(binding.getExchange()).isEqualTo("anySharedDlx");
+        assertThat(binding.getDestination()).isEqualTo(queueWithDlx.getDlxQueue().getName());
+        assertThat(binding.getRoutingKey()).isEqualTo("anyQueueName.*");
+
+        QueueWithDlx otherQueueWithDlx = QueueWithDlxBuilder.ephemeral("anyQueueName", Duration.ofMinutes(5)).exclusive().withSharedDlx(sharedDlx).build();
+        assertThat(otherQueueWithDlx.getQueue())
+            .matches(Queue::isExclusive)
+            .extracting(Queue::getName)
+            .isNotEqualTo(queue.getName());
+        assertThat(otherQueueWithDlx.getDlxQueue()).isSameAs(queueWithDlx.getDlxQueue());
+        assertThat(otherQueueWithDlx.getBindings()).extracting(Binding::getExchange, Binding::getDestination, Binding::getRoutingKey)
+            .containsExactly(tuple(binding.getExchange(), binding.getDestination(), binding.getRoutingKey()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildEphemeralWithoutSharedDlx()
+    {
+        QueueWithDlxBuilder.ephemeral("anyQueueName", Duration.ofMinutes(5)).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildEphemeralWithRetryTiers()
+    {
+        QueueWithDlxBuilder.ephemeral("anyQueueName", Duration.ofMinutes(5))
+            .withSharedDlx(AmqpUtils.buildDurableSharedDlx("anySharedDlx", 3, amqpAdmin1))
+            .withRetryTiers(Duration.ofSeconds(1))
+            .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildWithSharedDlxAndDlxRetentionPolicy()
+    {
+        QueueWithDlxBuilder.durable("anyQueueName")
+            .withSharedDlx(AmqpUtils.buildDurableSharedDlx("anySharedDlx", 3, amqpAdmin1))
+            .withDlxRetentionPolicy(new DlxRetentionPolicy().withMaxLength(100))
+            .build();
+    }
+}
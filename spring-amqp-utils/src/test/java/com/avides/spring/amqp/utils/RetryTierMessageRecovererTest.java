@@ -0,0 +1,122 @@
+package com.avides.spring.amqp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+
+public class RetryTierMessageRecovererTest
+{
+    private AmqpTemplate amqpTemplate = mock(AmqpTemplate.class);
+
+    private QueueWithDlx queueWithDlx = QueueWithDlxBuilder.durable("anyQueueName")
+        .withRetryTiers(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMillis(60500))
+        .build();
+
+    private RetryTierMessageRecoverer recoverer = new RetryTierMessageRecoverer(amqpTemplate, queueWithDlx);
+
+    @Test
+    public void testDetermineTargetQueueNameWithoutXDeath()
+    {
+        assertThat(recoverer.determineTargetQueueName(buildMessage())).isEqualTo("anyQueueName.retry.1s");
+    }
+
+    @Test
+    public void testDetermineTargetQueueName()
+    {
+        assertThat(recoverer.determineTargetQueueName(buildMessage("anyQueueName.retry.1s", 1))).isEqualTo("anyQueueName.retry.10s");
+        assertThat(recoverer.determineTargetQueueName(buildMessage("anyQueueName.retry.1s", 1, "anyQueueName.retry.10s", 1)))
+            .isEqualTo("anyQueueName.retry.60500ms");
+        assertThat(recoverer.determineTargetQueueName(buildMessage("anyQueueName.retry.1s", 1, "anyQueueName.retry.10s", 1, "anyQueueName.retry.60500ms", 1)))
+            .isEqualTo("anyQueueName.dlx");
+    }
+
+    @Test
+    public void testDetermineTargetQueueNameIgnoresOtherQueues()
+    {
+        assertThat(recoverer.determineTargetQueueName(buildMessage("anyQueueName", 5, "anyOtherQueueName.retry.1s", 3))).isEqualTo("anyQueueName.retry.1s");
+    }
+
+    @Test
+    public void testDetermineTargetQueueNameWithoutRetryTiers()
+    {
+        RetryTierMessageRecoverer recovererWithoutRetryTiers = new RetryTierMessageRecoverer(amqpTemplate, QueueWithDlxBuilder.durable("anyQueueName").build());
+        assertThat(recovererWithoutRetryTiers.determineTargetQueueName(buildMessage())).isEqualTo("anyQueueName.dlx");
+    }
+
+    @Test
+    public void testRecover()
+    {
+        Message message = buildMessage("anyQueueName.retry.1s", 1);
+        message.getMessageProperties().setReceivedDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+        recoverer.recover(message, new IllegalStateException());
+        verify(amqpTemplate).send("", "anyQueueName.retry.10s", message);
+        assertThat(message.getMessageProperties().getDeliveryMode()).isEqualTo(MessageDeliveryMode.NON_PERSISTENT);
+    }
+
+    @Test
+    public void testRecoverToDlxQueue()
+    {
+        Message message = buildMessage("anyQueueName.retry.1s", 1, "anyQueueName.retry.10s", 1, "anyQueueName.retry.60500ms", 1);
+        recoverer.recover(message, new IllegalStateException());
+        verify(amqpTemplate).send("", "anyQueueName.dlx", message);
+    }
+
+    @Test
+    public void testRecoverToSharedDlx()
+    {
+        QueueWithDlx queueWithSharedDlx = QueueWithDlxBuilder.durable("anyQueueName")
+            .withSharedDlx(AmqpUtils.buildDurableSharedDlx("anySharedDlx", 2, "amqpAdmin"))
+            .build();
+        Message message = buildMessage();
+        new RetryTierMessageRecoverer(amqpTemplate, queueWithSharedDlx).recover(message, new IllegalStateException());
+        verify(amqpTemplate).send("anySharedDlx", "anyQueueName", message);
+    }
+
+    @Test
+    public void testBuildRetryQueueName()
+    {
+        assertThat(RetryTierMessageRecoverer.buildRetryQueueName("anyQueueName", Duration.ofMinutes(1))).isEqualTo("anyQueueName.retry.60s");
+        assertThat(RetryTierMessageRecoverer.buildRetryQueueName("anyQueueName", Duration.ofMillis(500))).isEqualTo("anyQueueName.retry.500ms");
+    }
+
+    @Test
+    public void testDetermineRetriedQueueName()
+    {
+        assertThat(RetryTierMessageRecoverer.determineRetriedQueueName("anyQueueName.retry.60s")).isEqualTo("anyQueueName");
+        assertThat(RetryTierMessageRecoverer.determineRetriedQueueName("anyQueueName.retry.500ms")).isEqualTo("anyQueueName");
+        assertThat(RetryTierMessageRecoverer.determineRetriedQueueName("anyQueueName")).isEqualTo("anyQueueName");
+        assertThat(RetryTierMessageRecoverer.determineRetriedQueueName("anyQueueName.retry")).isEqualTo("anyQueueName.retry");
+        assertThat(RetryTierMessageRecoverer.determineRetriedQueueName("anyQueueName.retry.10s.dlx")).isEqualTo("anyQueueName.retry.10s.dlx");
+    }
+
+    private static Message buildMessage(Object... queuesAndCounts)
+    {
+        MessageProperties messageProperties = new MessageProperties();
+        if (queuesAndCounts.length > 0)
+        {
+            List<Map<String, Object>> xDeath = new ArrayList<>();
+            for (int i = 0; i < queuesAndCounts.length; i += 2)
+            {
+                Map<String, Object> death = new HashMap<>();
+                death.put("queue", queuesAndCounts[i]);
+                death.put("count", Long.valueOf(((Integer) queuesAndCounts[i + 1]).longValue()));
+                death.put("reason", "expired");
+                xDeath.add(death);
+            }
+            messageProperties.setHeader("x-death", xDeath);
+        }
+        return new Message(new byte[0], messageProperties);
+    }
+}